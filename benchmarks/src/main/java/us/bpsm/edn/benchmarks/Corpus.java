@@ -0,0 +1,51 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The sample documents used by the benchmarks. Each corpus is a single
+ * edn value of a particular shape, stored as a resource alongside this
+ * class.
+ */
+final class Corpus {
+
+    private Corpus() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Return the text of the named corpus.
+     *
+     * @param name the name of a corpus, without the ".edn" suffix.
+     * @return the contents of the corpus, never null.
+     */
+    static String load(String name) {
+        String resourceName = name + ".edn";
+        InputStream in = Corpus.class.getResourceAsStream(resourceName);
+        if (in == null) {
+            throw new IllegalArgumentException(
+                "No corpus named '" + name + "'.");
+        }
+        try {
+            Reader r = new InputStreamReader(in, StandardCharsets.UTF_8);
+            try {
+                StringBuilder b = new StringBuilder();
+                char[] buffer = new char[8 * 1024];
+                int n;
+                while ((n = r.read(buffer)) >= 0) {
+                    b.append(buffer, 0, n);
+                }
+                return b.toString();
+            } finally {
+                r.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
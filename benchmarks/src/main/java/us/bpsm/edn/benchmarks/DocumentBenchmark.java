@@ -0,0 +1,93 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.parser.EdnDocument;
+import us.bpsm.edn.parser.EdnPath;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures looking up one field of one of 1000 accounts in a map held
+ * as raw edn: by parsing the map, with {@link EdnPath}, by building an
+ * {@link EdnDocument}, and in an EdnDocument built beforehand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DocumentBenchmark {
+
+    private static final Keyword ACCOUNT = Keyword.newKeyword("account-500");
+    private static final Keyword OWNER = Keyword.newKeyword("owner");
+
+    private String text;
+    private Parser parser;
+    private EdnPath path;
+    private EdnDocument document;
+
+    @Setup
+    public void setUp() {
+        StringBuilder b = new StringBuilder("{");
+        for (int i = 0; i < 1000; i++) {
+            b.append(":account-").append(i)
+              .append(" {:owner \"owner-").append(i).append('"')
+              .append(" :balance ").append(i * 10.5)
+              .append(" :tags #{:a :b}")
+              .append(" :history [{:at #inst \"2012-01-01T00:00:00Z\"")
+              .append(" :amount 1.5} {:at #inst \"2012-01-02T00:00:00Z\"")
+              .append(" :amount -2.25}]}\n");
+        }
+        text = b.append('}').toString();
+        parser = Parsers.newParser(Parsers.defaultConfiguration());
+        path = EdnPath.compile("[:account-500 :owner]");
+        document = newDocument();
+    }
+
+    @Benchmark
+    public Object parse() {
+        Map<?, ?> accounts = (Map<?, ?>) parser.nextValue(
+          Parsers.newParseable(text));
+        return ((Map<?, ?>) accounts.get(ACCOUNT)).get(OWNER);
+    }
+
+    @Benchmark
+    public Object path() {
+        return path.select(parser, Parsers.newParseable(text));
+    }
+
+    @Benchmark
+    public Object document() {
+        return lookup(newDocument());
+    }
+
+    @Benchmark
+    public Object cachedDocument() {
+        return lookup(document);
+    }
+
+    private EdnDocument newDocument() {
+        return Parsers.newDocument(Parsers.defaultConfiguration(),
+          Parsers.newParseable(text));
+    }
+
+    private static Object lookup(EdnDocument d) {
+        return d.value(d.get(d.get(d.root(), ACCOUNT), OWNER));
+    }
+}
@@ -0,0 +1,100 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.Symbol;
+
+/**
+ * Measures {@link Keyword#newKeyword(String, String)}, which interns
+ * every keyword it returns. Keywords that are already interned measure
+ * the cost of a cache hit; fresh names measure the cost of a miss, and
+ * the keywords they produce soon become garbage, so misses also measure
+ * removing collected entries from the table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class KeywordBenchmark {
+
+    @Param({"16", "4096"})
+    public int distinct;
+
+    private String[] prefixes;
+    private String[] names;
+    private Symbol[] symbols;
+    private Keyword[] retained;
+    private int i;
+    private String freshPrefix;
+    private long fresh;
+
+    @Setup
+    public void setUp() {
+        // distinct per thread, so that contended misses really miss
+        freshPrefix = "fresh" + System.identityHashCode(this);
+        prefixes = new String[distinct];
+        names = new String[distinct];
+        symbols = new Symbol[distinct];
+        retained = new Keyword[distinct];
+        for (int j = 0; j < distinct; j++) {
+            prefixes[j] = "prefix" + (j % 7);
+            names[j] = "name" + j;
+            symbols[j] = Symbol.newSymbol(prefixes[j], names[j]);
+            // keep the interned keywords reachable so lookups hit
+            retained[j] = Keyword.newKeyword(symbols[j]);
+        }
+    }
+
+    private int next() {
+        int j = i;
+        i = (j + 1) % distinct;
+        return j;
+    }
+
+    @Benchmark
+    public Keyword internHit() {
+        int j = next();
+        return Keyword.newKeyword(prefixes[j], names[j]);
+    }
+
+    @Benchmark
+    public Keyword internHitFromSymbol() {
+        return Keyword.newKeyword(symbols[next()]);
+    }
+
+    @Benchmark
+    public Keyword internMiss() {
+        return Keyword.newKeyword(freshPrefix, "k" + (fresh++));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void internMissContended(Blackhole bh) {
+        bh.consume(Keyword.newKeyword(freshPrefix, "k" + (fresh++)));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void internHitContended(Blackhole bh) {
+        int j = next();
+        bh.consume(Keyword.newKeyword(prefixes[j], names[j]));
+    }
+}
@@ -0,0 +1,78 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures parsing a map of 1000 accounts, each a nested map, and then
+ * reading two fields of one account, parsing everything as usual and
+ * with {@link Parser.Config.Builder#lazyNestedCollections}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LazyBenchmark {
+
+    private static final Keyword ACCOUNT = Keyword.newKeyword("account-500");
+    private static final Keyword OWNER = Keyword.newKeyword("owner");
+    private static final Keyword BALANCE = Keyword.newKeyword("balance");
+
+    private String text;
+    private Parser eager;
+    private Parser lazy;
+
+    @Setup
+    public void setUp() {
+        StringBuilder b = new StringBuilder("{");
+        for (int i = 0; i < 1000; i++) {
+            b.append(":account-").append(i)
+              .append(" {:owner \"owner-").append(i).append('"')
+              .append(" :balance ").append(i * 10.5)
+              .append(" :tags #{:a :b}")
+              .append(" :history [{:at #inst \"2012-01-01T00:00:00Z\"")
+              .append(" :amount 1.5} {:at #inst \"2012-01-02T00:00:00Z\"")
+              .append(" :amount -2.25}]}\n");
+        }
+        text = b.append('}').toString();
+        eager = Parsers.newParser(Parsers.defaultConfiguration());
+        lazy = Parsers.newParser(Parsers.newParserConfigBuilder()
+            .lazyNestedCollections(true)
+            .build());
+    }
+
+    @Benchmark
+    public Object eager() {
+        return readTwoFields(eager);
+    }
+
+    @Benchmark
+    public Object lazy() {
+        return readTwoFields(lazy);
+    }
+
+    private Object readTwoFields(Parser parser) {
+        Map<?, ?> accounts = (Map<?, ?>) parser.nextValue(
+          Parsers.newParseable(text));
+        Map<?, ?> account = (Map<?, ?>) accounts.get(ACCOUNT);
+        return account.get(OWNER) + " " + account.get(BALANCE);
+    }
+}
@@ -0,0 +1,107 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.mapper.EdnMapper;
+import us.bpsm.edn.mapper.EdnRecord;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures reading a vector of 1000 orders into {@code Order} objects
+ * with {@link EdnMapper}, by reflection and through the codec generated
+ * for {@code @EdnRecord CodedOrder}, compared with parsing them into
+ * maps and copying those into Orders by hand. Each order has a nested
+ * map which Order doesn't bind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MapperBenchmark {
+
+    public static class Order {
+        long id;
+        String customer;
+        double total;
+        List<String> items;
+    }
+
+    @EdnRecord
+    public static class CodedOrder {
+        long id;
+        String customer;
+        double total;
+        List<String> items;
+    }
+
+    private static final Keyword ID = Keyword.newKeyword("id");
+    private static final Keyword CUSTOMER = Keyword.newKeyword("customer");
+    private static final Keyword TOTAL = Keyword.newKeyword("total");
+    private static final Keyword ITEMS = Keyword.newKeyword("items");
+
+    private String text;
+    private Parser parser;
+    private EdnMapper mapper;
+
+    @Setup
+    public void setUp() {
+        StringBuilder b = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            b.append("{:id ").append(i)
+              .append(" :customer \"customer-").append(i % 37).append('"')
+              .append(" :total ").append(i * 1.25)
+              .append(" :items [\"a\" \"b\" \"c\"]")
+              .append(" :audit {:created #inst \"2012-01-01T00:00:00Z\"")
+              .append(" :by \"batch\" :history [1 2 3 4 5 6 7 8]}}\n");
+        }
+        text = b.append(']').toString();
+        parser = Parsers.newParser(Parsers.defaultConfiguration());
+        mapper = EdnMapper.newMapper();
+    }
+
+    @Benchmark
+    public Object mapper() {
+        return mapper.readValue(Parsers.newParseable(text), Order[].class);
+    }
+
+    @Benchmark
+    public Object codec() {
+        return mapper.readValue(Parsers.newParseable(text), CodedOrder[].class);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object parseAndCopy() {
+        List<?> maps = (List<?>) parser.nextValue(Parsers.newParseable(text));
+        List<Order> orders = new ArrayList<Order>(maps.size());
+        for (Object o : maps) {
+            Map<?, ?> m = (Map<?, ?>) o;
+            Order order = new Order();
+            order.id = (Long) m.get(ID);
+            order.customer = (String) m.get(CUSTOMER);
+            order.total = (Double) m.get(TOTAL);
+            order.items = (List<String>) m.get(ITEMS);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,87 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.parser.DoubleTagHandler;
+import us.bpsm.edn.parser.LongTagHandler;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures numeric corpora parsed into boxed numbers by default, against
+ * summing them through primitive {@link LongTagHandler} and
+ * {@link DoubleTagHandler}s that box nothing, and against building them
+ * into the compact vectors of {@link Parsers#primitiveVectorFactory()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NumberBenchmark {
+
+    @Param({"vector-of-longs", "vector-of-doubles"})
+    public String corpus;
+
+    private String text;
+    private Parser boxing;
+    private Parser summing;
+    private Parser compact;
+    private long longSum;
+    private double doubleSum;
+
+    @Setup
+    public void setUp() {
+        text = Corpus.load(corpus);
+        boxing = Parsers.newParser(Parsers.defaultConfiguration());
+        summing = Parsers.newParser(Parsers.newParserConfigBuilder()
+            .putTagHandler(Parser.Config.LONG_TAG, new LongTagHandler() {
+                public Object transformLong(long value) {
+                    longSum += value;
+                    return null;
+                }
+            })
+            .putTagHandler(Parser.Config.DOUBLE_TAG, new DoubleTagHandler() {
+                public Object transformDouble(double value) {
+                    doubleSum += value;
+                    return null;
+                }
+            })
+            .build());
+        compact = Parsers.newParser(Parsers.newParserConfigBuilder()
+            .setVectorFactory(Parsers.primitiveVectorFactory())
+            .build());
+    }
+
+    @Benchmark
+    public Object boxed() {
+        return boxing.nextValue(Parsers.newParseable(text));
+    }
+
+    @Benchmark
+    public double primitiveSum() {
+        longSum = 0;
+        doubleSum = 0;
+        summing.nextValue(Parsers.newParseable(text));
+        return longSum + doubleSum;
+    }
+
+    @Benchmark
+    public Object primitiveVector() {
+        return compact.nextValue(Parsers.newParseable(text));
+    }
+}
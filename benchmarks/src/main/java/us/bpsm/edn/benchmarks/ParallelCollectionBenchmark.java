@@ -0,0 +1,68 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures parsing a single large vector of maps, sequentially and with
+ * {@link Parser.Config.Builder#parallelizeTopLevelCollections} on the
+ * common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParallelCollectionBenchmark {
+
+    @Param({"100000"})
+    public int elements;
+
+    private byte[] vector;
+    private Parser sequentialParser;
+    private Parser parallelParser;
+
+    @Setup
+    public void setUp() {
+        StringBuilder b = new StringBuilder("[");
+        for (int i = 0; i < elements; i++) {
+            b.append("{:seq ").append(i)
+             .append(" :user/id ").append(i % 977)
+             .append(" :tags #{:a :b} :latency ").append(i * 0.25)
+             .append(" :msg \"user ").append(i).append(" logged in\"}\n");
+        }
+        vector = b.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        sequentialParser = Parsers.newParser(Parsers.defaultConfiguration());
+        parallelParser = Parsers.newParser(Parsers.newParserConfigBuilder()
+            .parallelizeTopLevelCollections(ForkJoinPool.commonPool())
+            .build());
+    }
+
+    @Benchmark
+    public Object sequential() {
+        return sequentialParser.nextValue(Parsers.newParseable(vector));
+    }
+
+    @Benchmark
+    public Object parallel() {
+        return parallelParser.nextValue(Parsers.newParseable(vector));
+    }
+}
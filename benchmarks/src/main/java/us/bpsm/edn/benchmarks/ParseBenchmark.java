@@ -0,0 +1,158 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import us.bpsm.edn.parser.Parseable;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+import us.bpsm.edn.parser.PullParser;
+
+/**
+ * Measures {@link Parser#nextValue(Parseable)} over each corpus, reading
+ * from both of the {@link Parseable} flavors offered by {@link Parsers}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+    @Param({
+        "large-keyword-map",
+        "large-symbol-map",
+        "list-of-nil",
+        "map-of-maps",
+        "map-tree",
+        "mixed-vector",
+        "set-of-keywords",
+        "set-of-longs",
+        "set-of-symbols",
+        "vecor-of-maps",
+        "vector-of-bigdecs",
+        "vector-of-bigints",
+        "vector-of-booleans",
+        "vector-of-chars",
+        "vector-of-doubles",
+        "vector-of-instants",
+        "vector-of-ints",
+        "vector-of-keywords",
+        "vector-of-longs",
+        "vector-of-nil",
+        "vector-of-strings",
+        "vector-of-symbols",
+        "vector-of-uuid",
+        "vector-of-vectors",
+        "vector-tree"
+    })
+    public String corpus;
+
+    private String text;
+    private char[] chars;
+    private byte[] bytes;
+    private ByteBuffer direct;
+    private Path file;
+    private Parser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        text = Corpus.load(corpus);
+        chars = text.toCharArray();
+        bytes = text.getBytes(StandardCharsets.UTF_8);
+        direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        file = Files.createTempFile("edn-benchmark-", ".edn");
+        Files.write(file, bytes);
+        parser = Parsers.newParser(Parsers.defaultConfiguration());
+    }
+
+    @Benchmark
+    public void parseCharSequence(Blackhole bh) {
+        parseAll(Parsers.newParseable(text), bh);
+    }
+
+    @Benchmark
+    public void parseCharArray(Blackhole bh) {
+        parseAll(Parsers.newParseable(chars), bh);
+    }
+
+    @Benchmark
+    public void parseUtf8Bytes(Blackhole bh) {
+        parseAll(Parsers.newParseable(bytes), bh);
+    }
+
+    @Benchmark
+    public void parseDirectByteBuffer(Blackhole bh) {
+        parseAll(Parsers.newParseable(direct), bh);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public void parseMappedFile(Blackhole bh) throws IOException {
+        Parseable pbr = Parsers.newParseable(file);
+        try {
+            parseAll(pbr, bh);
+        } finally {
+            pbr.close();
+        }
+    }
+
+    @Benchmark
+    public void parseFileReader(Blackhole bh) throws IOException {
+        Parseable pbr = Parsers.newParseable(
+            Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        try {
+            parseAll(pbr, bh);
+        } finally {
+            pbr.close();
+        }
+    }
+
+    @Benchmark
+    public void parseReadable(Blackhole bh) {
+        parseAll(Parsers.newParseable(new StringReader(text)), bh);
+    }
+
+    @Benchmark
+    public void pullEventsUtf8Bytes(Blackhole bh) {
+        PullParser p = Parsers.newPullParser(Parsers.defaultConfiguration(),
+                                             Parsers.newParseable(bytes));
+        PullParser.Event e;
+        while ((e = p.next()) != PullParser.Event.END_OF_INPUT) {
+            bh.consume(e);
+        }
+    }
+
+    private void parseAll(Parseable pbr, Blackhole bh) {
+        Object value;
+        while ((value = parser.nextValue(pbr)) != Parser.END_OF_INPUT) {
+            bh.consume(value);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.parser.EdnPath;
+import us.bpsm.edn.parser.Parseable;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures extracting one nested field from each message of a log with
+ * an {@link EdnPath}, against parsing each message in full.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PathBenchmark {
+
+    @Param({"10000"})
+    public int lines;
+
+    private static final Keyword EVENT = Keyword.newKeyword("event");
+    private static final Keyword USER_ID = Keyword.newKeyword("user", "id");
+
+    private byte[] log;
+    private Parser parser;
+    private EdnPath path;
+
+    @Setup
+    public void setUp() {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            b.append("{:seq ").append(i)
+             .append(" :headers {:host \"h").append(i % 7)
+             .append("\" :trace [").append(i).append(' ').append(i * 31)
+             .append("]} :event {:kind :login :user/id ").append(i % 977)
+             .append(" :latency ").append(i * 0.25)
+             .append("} :body [\"lorem ipsum\" \"dolor sit amet\" #{:a :b :c}]}\n");
+        }
+        log = b.toString().getBytes(StandardCharsets.UTF_8);
+        parser = Parsers.newParser(Parsers.defaultConfiguration());
+        path = EdnPath.compile("[:event :user/id]");
+    }
+
+    @Benchmark
+    public void select(Blackhole bh) {
+        Parseable pbr = Parsers.newParseable(log);
+        Object v;
+        while ((v = path.select(parser, pbr)) != Parser.END_OF_INPUT) {
+            bh.consume(v);
+        }
+    }
+
+    @Benchmark
+    public void parseAndGet(Blackhole bh) {
+        Parseable pbr = Parsers.newParseable(log);
+        Object v;
+        while ((v = parser.nextValue(pbr)) != Parser.END_OF_INPUT) {
+            bh.consume(((Map<?, ?>) ((Map<?, ?>) v).get(EVENT)).get(USER_ID));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+import us.bpsm.edn.persistent.PersistentCollections;
+import us.bpsm.edn.persistent.PersistentHashMap;
+
+/**
+ * Measures parsing {@code large-keyword-map} into the default and into
+ * persistent collections, and deriving a copy of it with one key
+ * changed: by copying the default map, and by
+ * {@link PersistentHashMap#assoc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PersistentBenchmark {
+
+    private static final Keyword KEY = Keyword.newKeyword("changed");
+
+    private String text;
+    private Parser defaultParser;
+    private Parser persistentParser;
+    private Map<?, ?> defaultMap;
+    private PersistentHashMap<Object, Object> persistentMap;
+    private long n;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        text = Corpus.load("large-keyword-map");
+        defaultParser = Parsers.newParser(Parsers.defaultConfiguration());
+        persistentParser = Parsers.newParser(Parsers.newParserConfigBuilder()
+            .setVectorFactory(PersistentCollections.vectorFactory())
+            .setSetFactory(PersistentCollections.setFactory())
+            .setMapFactory(PersistentCollections.mapFactory())
+            .build());
+        defaultMap = (Map<?, ?>) parseDefault();
+        persistentMap = (PersistentHashMap<Object, Object>) parsePersistent();
+    }
+
+    @Benchmark
+    public Object parseDefault() {
+        return defaultParser.nextValue(Parsers.newParseable(text));
+    }
+
+    @Benchmark
+    public Object parsePersistent() {
+        return persistentParser.nextValue(Parsers.newParseable(text));
+    }
+
+    @Benchmark
+    public Object deriveByCopying() {
+        Map<Object, Object> copy = new HashMap<Object, Object>(defaultMap);
+        copy.put(KEY, n++);
+        return Collections.unmodifiableMap(copy);
+    }
+
+    @Benchmark
+    public Object deriveByAssoc() {
+        return persistentMap.assoc(KEY, n++);
+    }
+}
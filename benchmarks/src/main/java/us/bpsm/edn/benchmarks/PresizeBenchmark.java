@@ -0,0 +1,59 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures parsing large top-level collections into builders that grow
+ * as needed, against counting the elements first with
+ * {@link Parser.Config.Builder#presizeTopLevelCollections}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PresizeBenchmark {
+
+    @Param({"large-keyword-map", "set-of-longs", "vector-of-strings"})
+    public String corpus;
+
+    private String text;
+    private Parser growing;
+    private Parser presized;
+
+    @Setup
+    public void setUp() {
+        text = Corpus.load(corpus);
+        growing = Parsers.newParser(Parsers.defaultConfiguration());
+        presized = Parsers.newParser(Parsers.newParserConfigBuilder()
+            .presizeTopLevelCollections(true)
+            .build());
+    }
+
+    @Benchmark
+    public Object growing() {
+        return growing.nextValue(Parsers.newParseable(text));
+    }
+
+    @Benchmark
+    public Object presized() {
+        return presized.nextValue(Parsers.newParseable(text));
+    }
+}
@@ -0,0 +1,72 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.parser.Parsers;
+import us.bpsm.edn.printer.Printer;
+import us.bpsm.edn.printer.Printers;
+import us.bpsm.edn.protocols.Protocol;
+
+/**
+ * Measures {@link Printers#printString(Protocol, Object)} with both the
+ * compact and the pretty printing protocols, printing the value parsed
+ * from each corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PrintBenchmark {
+
+    @Param({
+        "large-keyword-map",
+        "map-of-maps",
+        "map-tree",
+        "mixed-vector",
+        "set-of-keywords",
+        "vector-of-doubles",
+        "vector-of-instants",
+        "vector-of-longs",
+        "vector-of-strings",
+        "vector-of-uuid",
+        "vector-tree"
+    })
+    public String corpus;
+
+    private Object value;
+    private Protocol<Printer.Fn<?>> compact;
+    private Protocol<Printer.Fn<?>> pretty;
+
+    @Setup
+    public void setUp() {
+        value = Parsers.newParser(Parsers.defaultConfiguration())
+            .nextValue(Parsers.newParseable(Corpus.load(corpus)));
+        compact = Printers.defaultPrinterProtocol();
+        pretty = Printers.prettyPrinterProtocol();
+    }
+
+    @Benchmark
+    public String printCompact() {
+        return Printers.printString(compact, value);
+    }
+
+    @Benchmark
+    public String printPretty() {
+        return Printers.printString(pretty, value);
+    }
+}
@@ -0,0 +1,74 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.printer.Printer;
+import us.bpsm.edn.printer.Printers;
+import us.bpsm.edn.protocols.Protocol;
+
+/**
+ * Measures {@link Protocol#lookup(Class)} on the default printer
+ * protocol, both for classes registered directly and for classes that
+ * are only found via their supertypes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProtocolBenchmark {
+
+    private Protocol<Printer.Fn<?>> protocol;
+    private Class<?> direct;
+    private Class<?> inherited;
+
+    @Setup
+    public void setUp() {
+        protocol = Printers.defaultPrinterProtocol();
+        direct = Keyword.class;
+        inherited = Collections.unmodifiableMap(
+            new HashMap<Object, Object>()).getClass();
+        // warm the supertype cache, as any real printer would
+        protocol.lookup(inherited);
+        protocol.lookup(ArrayList.class);
+    }
+
+    @Benchmark
+    public Object lookupDirect() {
+        return protocol.lookup(direct);
+    }
+
+    @Benchmark
+    public Object lookupInherited() {
+        return protocol.lookup(inherited);
+    }
+
+    @Benchmark
+    public Object lookupNull() {
+        return protocol.lookup(null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object lookupInheritedContended() {
+        return protocol.lookup(inherited);
+    }
+}
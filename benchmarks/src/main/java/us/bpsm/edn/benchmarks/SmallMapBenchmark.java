@@ -0,0 +1,81 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures parsing the eight-keyword maps of {@code vecor-of-maps}, and
+ * looking up every key of every map, both in the maps as parsed and in
+ * copies of them held in unmodifiable HashMaps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SmallMapBenchmark {
+
+    private String text;
+    private Parser parser;
+    private List<Map<?, ?>> parsed;
+    private List<Map<?, ?>> hashed;
+    private Object[] keys;
+
+    @Setup
+    public void setUp() {
+        text = Corpus.load("vecor-of-maps");
+        parser = Parsers.newParser(Parsers.defaultConfiguration());
+        parsed = new ArrayList<Map<?, ?>>();
+        hashed = new ArrayList<Map<?, ?>>();
+        for (Object m : (List<?>) parse()) {
+            parsed.add((Map<?, ?>) m);
+            hashed.add(Collections.unmodifiableMap(
+              new HashMap<Object, Object>((Map<?, ?>) m)));
+        }
+        keys = parsed.get(0).keySet().toArray();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return parser.nextValue(Parsers.newParseable(text));
+    }
+
+    @Benchmark
+    public void lookupParsed(Blackhole bh) {
+        lookup(parsed, bh);
+    }
+
+    @Benchmark
+    public void lookupHashed(Blackhole bh) {
+        lookup(hashed, bh);
+    }
+
+    private void lookup(List<Map<?, ?>> maps, Blackhole bh) {
+        for (Map<?, ?> m : maps) {
+            for (Object k : keys) {
+                bh.consume(m.get(k));
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures {@link Parsers#stream(Parser, us.bpsm.edn.parser.Parseable)}
+ * over a newline-delimited log of maps, sequentially and in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StreamBenchmark {
+
+    @Param({"100000"})
+    public int lines;
+
+    private byte[] log;
+    private Parser parser;
+
+    @Setup
+    public void setUp() {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            b.append("{:seq ").append(i)
+             .append(" :user/id ").append(i % 977)
+             .append(" :event :login :ok true :latency ")
+             .append(i * 0.25)
+             .append(" :msg \"user ").append(i).append(" logged in\"}\n");
+        }
+        log = b.toString().getBytes(StandardCharsets.UTF_8);
+        parser = Parsers.newParser(Parsers.defaultConfiguration());
+    }
+
+    @Benchmark
+    public long sequential() {
+        return Parsers.stream(parser, Parsers.newParseable(log)).count();
+    }
+
+    @Benchmark
+    public long parallel() {
+        return Parsers.stream(parser, Parsers.newParseable(log))
+            .parallel().count();
+    }
+}
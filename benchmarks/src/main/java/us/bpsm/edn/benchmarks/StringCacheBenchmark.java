@@ -0,0 +1,73 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+
+/**
+ * Measures parsing a vector of 1000 events whose string values are
+ * mostly drawn from a few dozen status codes and region names, with
+ * and without {@link Parser.Config.Builder#cacheStrings}. With the
+ * cache, the repeated strings are neither allocated nor retained more
+ * than once, which {@code -prof gc} shows as allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StringCacheBenchmark {
+
+    private static final String[] STATUS = {
+        "OK", "PENDING", "FAILED", "RETRYING", "CANCELLED", "TIMED_OUT"
+    };
+    private static final String[] REGION = {
+        "eu-west-1", "eu-central-1", "us-east-1", "us-east-2", "us-west-2",
+        "ap-south-1", "ap-northeast-1", "sa-east-1"
+    };
+
+    private String text;
+    private Parser fresh;
+    private Parser cached;
+
+    @Setup
+    public void setUp() {
+        StringBuilder b = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            b.append("{:id ").append(i)
+              .append(" :status \"").append(STATUS[i % STATUS.length])
+              .append("\" :region \"").append(REGION[i % REGION.length])
+              .append("\" :owner \"team-").append(i % 40)
+              .append("\" :note \"request ").append(i).append(" handled\"}\n");
+        }
+        text = b.append(']').toString();
+        fresh = Parsers.newParser(Parsers.defaultConfiguration());
+        cached = Parsers.newParser(Parsers.newParserConfigBuilder()
+            .cacheStrings(256, 32)
+            .build());
+    }
+
+    @Benchmark
+    public Object fresh() {
+        return fresh.nextValue(Parsers.newParseable(text));
+    }
+
+    @Benchmark
+    public Object cached() {
+        return cached.nextValue(Parsers.newParseable(text));
+    }
+}
@@ -4,50 +4,101 @@ package us.bpsm.edn;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A canonicalizing map which holds its values weakly. Looking up a
+ * value which is already interned takes no locks and allocates nothing.
+ *
+ * <p>Each weak reference remembers its key, so that when its value has
+ * been collected the entry can be removed on its own, as the reference
+ * is drained from the queue, rather than by sweeping the whole table.
+ * The queue is drained only when a new value is interned, so a table
+ * which only sees hits never does any cleaning up; such a table isn't
+ * growing either.
+ */
 class Interner<K,V> {
 
-    private final ConcurrentHashMap<K, Reference<V>> table =
-            new ConcurrentHashMap<K, Reference<V>>();
+    private static final class KeyedReference<K,V> extends WeakReference<V> {
+        final K key;
+
+        KeyedReference(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    /** Makes the value to intern for a key which has none. */
+    interface Factory<K,V> {
+        V create(K key);
+    }
+
+    private final ConcurrentHashMap<K, KeyedReference<K,V>> table =
+            new ConcurrentHashMap<K, KeyedReference<K,V>>();
     private final ReferenceQueue<V> refQueue = new ReferenceQueue<V>();
 
+    /**
+     * Return the value interned for {@code key}, or null if there is none.
+     */
+    public V get(K key) {
+        KeyedReference<K,V> ref = table.get(key);
+        return ref != null ? ref.get() : null;
+    }
+
+    /**
+     * Return the value interned for {@code key}, interning {@code value}
+     * if there is none.
+     */
     public V intern(K key, V value) {
+        V existingValue = get(key);
+        return existingValue != null ? existingValue : insert(key, value);
+    }
+
+    /**
+     * Return the value interned for {@code key}, interning the value
+     * made by {@code factory} if there is none. The factory is only
+     * called on a miss, so a hit allocates nothing.
+     */
+    public V intern(K key, Factory<K,V> factory) {
+        V existingValue = get(key);
+        return existingValue != null
+                ? existingValue : insert(key, factory.create(key));
+    }
+
+    private V insert(K key, V value) {
+        V existingValue;
+        clearDeadEntries();
+        KeyedReference<K,V> newRef =
+                new KeyedReference<K,V>(key, value, refQueue);
         while (true) {
-            clearDeadEntries();
-            WeakReference<V> newRef = new WeakReference<V>(value, refQueue);
-            Reference<V> existingRef = table.putIfAbsent(key, newRef);
+            KeyedReference<K,V> existingRef = table.putIfAbsent(key, newRef);
             if (existingRef == null) {
                 // newRef has been entered into the cache
                 return value;
             }
-
-            // existingRef was found in the cache; newRef is garbage
-            V existingValue = existingRef.get();
+            existingValue = existingRef.get();
             if (existingValue != null) {
+                // another thread got there first; newRef is garbage
                 return existingValue;
             }
-
             // existingRef's referent has been collected out from under us
-            table.remove(key, existingRef);
+            if (table.replace(key, existingRef, newRef)) {
+                return value;
+            }
         }
     }
 
     private void clearDeadEntries() {
-        if (refQueue.poll() == null) {
-            // empty queue indicates that there's nothing to clear
-            return;
-        }
-        while (refQueue.poll() != null) {
-            // wait until there's nothing more in flight in the queue
-        }
-        for (Map.Entry<K, Reference<V>> me: table.entrySet()) {
-            Reference<V> ref = me.getValue();
-            if (ref != null && ref.get() == null) {
-                table.remove(me.getKey(), ref);
-            }
+        Reference<? extends V> ref;
+        while ((ref = refQueue.poll()) != null) {
+            // The entry may already hold a newer reference for the same
+            // key, which must be left alone.
+            table.remove(((KeyedReference<?,?>) ref).key, ref);
         }
     }
 
+    int size() {
+        return table.size();
+    }
+
 }
@@ -38,7 +38,7 @@ public final class Keyword implements Named, Comparable<Keyword>, Serializable {
     }
 
     public static Keyword newKeyword(Symbol sym) {
-        return INTERNER.intern(sym, new Keyword(sym));
+        return INTERNER.intern(sym, FACTORY);
     }
 
     /**
@@ -95,6 +95,12 @@ public final class Keyword implements Named, Comparable<Keyword>, Serializable {
     }
 
     private static final Interner<Symbol, Keyword> INTERNER = new Interner<Symbol, Keyword>();
+    private static final Interner.Factory<Symbol, Keyword> FACTORY =
+      new Interner.Factory<Symbol, Keyword>() {
+        public Keyword create(Symbol sym) {
+            return new Keyword(sym);
+        }
+    };
 
     private Object writeReplace() {
         return new SerializationProxy(sym);
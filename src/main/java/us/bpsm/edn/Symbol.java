@@ -16,6 +16,8 @@ public final class Symbol implements Named, Comparable<Symbol>, Serializable {
 
     private final String prefix;
     private final String name;
+    /** The hash code, once computed; zero until then. */
+    private transient int hash;
 
     /**
      * {@inheritDoc}
@@ -66,11 +68,15 @@ public final class Symbol implements Named, Comparable<Symbol>, Serializable {
 
     @Override
     public final int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + getClass().getName().hashCode();
-        result = prime * result + name.hashCode();
-        result = prime * result + ((prefix == null) ? 0 : prefix.hashCode());
+        int result = hash;
+        if (result == 0) {
+            final int prime = 31;
+            result = 1;
+            result = prime * result + getClass().getName().hashCode();
+            result = prime * result + name.hashCode();
+            result = prime * result + ((prefix == null) ? 0 : prefix.hashCode());
+            hash = result;
+        }
         return result;
     }
 
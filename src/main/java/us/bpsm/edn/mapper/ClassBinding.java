@@ -0,0 +1,256 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import us.bpsm.edn.EdnException;
+import us.bpsm.edn.Keyword;
+
+/**
+ * How to build and take apart instances of one class: the keyword of
+ * each property, and method handles to its constructor and accessors.
+ *
+ * <p>A record is built by collecting its components in an array and
+ * then calling its canonical constructor. Any other class is built with
+ * its no-argument constructor, after which its non-static, non-final,
+ * non-transient fields are set one by one.
+ */
+final class ClassBinding {
+
+    // Records are looked up reflectively, so that this compiles for
+    // Java 8 and still binds records where the JVM has them.
+    private static final Method IS_RECORD =
+      method(Class.class, "isRecord");
+    private static final Method GET_RECORD_COMPONENTS =
+      method(Class.class, "getRecordComponents");
+
+    private static final MethodType GETTER_TYPE =
+      MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+    static final class Property {
+        final Keyword key;
+        final int index;
+        final Type type;
+        final MethodHandle getter;
+        final MethodHandle setter;
+        ValueReader reader;
+
+        Property(String name, int index, Type type, MethodHandle getter,
+                 MethodHandle setter) {
+            this.key = Keyword.newKeyword(name);
+            this.index = index;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    final Class<?> type;
+    final Property[] properties;
+    private final Map<Keyword, Property> byKey =
+      new HashMap<Keyword, Property>();
+    private final boolean record;
+    /** {@code (Object[])Object} for a record, else {@code ()Object}. */
+    private final MethodHandle constructor;
+    /** The value of each record component which is absent. */
+    private final Object[] defaults;
+
+    ClassBinding(Class<?> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.record = isRecord(type);
+            if (record) {
+                Object[] components =
+                  (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+                Class<?>[] types = new Class<?>[components.length];
+                properties = new Property[components.length];
+                defaults = new Object[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    Object c = components[i];
+                    Class<?> rc = c.getClass();
+                    Method accessor =
+                      (Method) rc.getMethod("getAccessor").invoke(c);
+                    accessor.setAccessible(true);
+                    types[i] = (Class<?>) rc.getMethod("getType").invoke(c);
+                    defaults[i] = defaultValue(types[i]);
+                    properties[i] = new Property(
+                      (String) rc.getMethod("getName").invoke(c), i,
+                      (Type) rc.getMethod("getGenericType").invoke(c),
+                      lookup.unreflect(accessor).asType(GETTER_TYPE), null);
+                }
+                Constructor<?> ctor = type.getDeclaredConstructor(types);
+                ctor.setAccessible(true);
+                constructor = lookup.unreflectConstructor(ctor)
+                  .asSpreader(Object[].class, types.length)
+                  .asType(MethodType.methodType(Object.class, Object[].class));
+            } else {
+                Constructor<?> ctor;
+                try {
+                    ctor = type.getDeclaredConstructor();
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalArgumentException("Can't bind " +
+                      type.getName() + ": it is not a record and has no " +
+                      "no-argument constructor.");
+                }
+                ctor.setAccessible(true);
+                constructor = lookup.unreflectConstructor(ctor)
+                  .asType(MethodType.methodType(Object.class));
+                List<Property> ps = new ArrayList<Property>();
+                Set<String> names = new HashSet<String>();
+                for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                    for (Field f : c.getDeclaredFields()) {
+                        int mods = f.getModifiers();
+                        if (Modifier.isStatic(mods) || Modifier.isFinal(mods)
+                            || Modifier.isTransient(mods) || f.isSynthetic()
+                            || !names.add(f.getName())) {
+                            continue;
+                        }
+                        f.setAccessible(true);
+                        ps.add(new Property(f.getName(), ps.size(),
+                          f.getGenericType(),
+                          lookup.unreflectGetter(f).asType(GETTER_TYPE),
+                          lookup.unreflectSetter(f).asType(SETTER_TYPE)));
+                    }
+                }
+                properties = ps.toArray(new Property[ps.size()]);
+                defaults = null;
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(
+              "Can't bind " + type.getName(), e);
+        } catch (RuntimeException e) {
+            // Such as an InaccessibleObjectException from setAccessible.
+            throw new IllegalArgumentException(
+              "Can't bind " + type.getName(), e);
+        }
+        for (Property p : properties) {
+            byKey.put(p.key, p);
+        }
+    }
+
+    static boolean isRecord(Class<?> type) {
+        if (IS_RECORD == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_RECORD.invoke(type);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The property named by {@code key}, or null.
+     */
+    Property property(Object key) {
+        return byKey.get(key);
+    }
+
+    /** Begin building an instance. */
+    Object newTarget() {
+        if (record) {
+            return defaults.clone();
+        }
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new EdnException("Can't construct " + type.getName(), t);
+        }
+    }
+
+    void set(Object target, Property p, Object value) {
+        if (record) {
+            ((Object[]) target)[p.index] = value;
+            return;
+        }
+        try {
+            p.setter.invokeExact(target, value);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new EdnException("Can't set " + p.key, t);
+        }
+    }
+
+    /** Return the instance begun by {@link #newTarget()}. */
+    Object finish(Object target) {
+        if (!record) {
+            return target;
+        }
+        try {
+            return (Object) constructor.invokeExact((Object[]) target);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new EdnException("Can't construct " + type.getName(), t);
+        }
+    }
+
+    Object get(Object instance, Property p) {
+        try {
+            return (Object) p.getter.invokeExact(instance);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new EdnException("Can't get " + p.key, t);
+        }
+    }
+
+    private static Object defaultValue(Class<?> c) {
+        if (!c.isPrimitive()) {
+            return null;
+        } else if (c == boolean.class) {
+            return false;
+        } else if (c == char.class) {
+            return '\0';
+        } else if (c == byte.class) {
+            return (byte) 0;
+        } else if (c == short.class) {
+            return (short) 0;
+        } else if (c == int.class) {
+            return 0;
+        } else if (c == long.class) {
+            return 0L;
+        } else if (c == float.class) {
+            return 0f;
+        } else {
+            return 0d;
+        }
+    }
+
+    private static Method method(Class<?> c, String name) {
+        try {
+            return c.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper;
+
+import java.lang.reflect.Type;
+import java.util.Set;
+
+import us.bpsm.edn.parser.PullParser;
+import us.bpsm.edn.parser.PullParser.Event;
+import us.bpsm.edn.printer.Printer;
+
+/**
+ * Helpers called by the {@link EdnCodec}s which
+ * {@link us.bpsm.edn.mapper.processor.EdnRecordProcessor} generates.
+ * They read and print exactly as {@link EdnMapper} does when binding by
+ * reflection. This class is not meant to be used directly.
+ */
+public final class CodecSupport {
+
+    private CodecSupport() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Read a value of {@code type} which doesn't begin with a map: nil,
+     * or a tagged value whose handler produces a {@code type}.
+     *
+     * @param <T> the type to read.
+     * @param p a parser positioned on some event other than START_MAP.
+     * @param mapper the mapper whose tag handlers apply.
+     * @param type the type to read.
+     * @return the value, possibly null.
+     */
+    public static <T> T readOther(PullParser p, EdnMapper mapper,
+                                  Class<T> type) {
+        return type.cast(new ValueReader.ObjectReader(mapper, type).read(p));
+    }
+
+    /**
+     * Advance to the next key of the map being read.
+     *
+     * @param p a parser within a map, on a START_MAP or a value.
+     * @param type the type being read, for error messages.
+     * @return true if {@code p} is on a KEY, false if on END_MAP.
+     */
+    public static boolean nextKey(PullParser p, Class<?> type) {
+        Event e = p.next();
+        if (e == Event.KEY) {
+            return true;
+        } else if (e == Event.END_MAP) {
+            return false;
+        }
+        throw ValueReader.cantBind(e, type);
+    }
+
+    /**
+     * Note that the key of the property numbered {@code index} has been
+     * read, rejecting it if it was read before.
+     *
+     * @param seen the properties read so far, property {@code i} as bit
+     *        {@code i}; 0 at first.
+     * @param index the number of the property, less than 64.
+     * @param key the key naming it.
+     * @return {@code seen}, updated.
+     */
+    public static long seen(long seen, int index, Object key) {
+        return ValueReader.seen(seen, index, key);
+    }
+
+    /**
+     * Note that a key has been read which is not accounted for by
+     * {@link #seen(long, int, Object)}, rejecting it if it was read
+     * before.
+     *
+     * @param seen the other keys read so far; null at first.
+     * @param key the key.
+     * @return {@code seen}, updated.
+     */
+    public static Set<Object> seen(Set<Object> seen, Object key) {
+        return ValueReader.seen(seen, key);
+    }
+
+    /**
+     * Skip the value beginning at the current event.
+     *
+     * @param p a parser on the first event of a value.
+     */
+    public static void skip(PullParser p) {
+        ValueReader.skip(p);
+    }
+
+    public static long readLong(PullParser p, EdnMapper mapper) {
+        if (p.event() == Event.VALUE && p.value() instanceof Long) {
+            return p.longValue();
+        }
+        return (Long) mapper.read(p, long.class);
+    }
+
+    public static int readInt(PullParser p, EdnMapper mapper) {
+        if (p.event() == Event.VALUE && p.value() instanceof Long) {
+            long n = p.longValue();
+            if (n == (int) n) {
+                return (int) n;
+            }
+        }
+        return (Integer) mapper.read(p, int.class);
+    }
+
+    public static double readDouble(PullParser p, EdnMapper mapper) {
+        if (p.event() == Event.VALUE && p.value() instanceof Double) {
+            return p.doubleValue();
+        }
+        return (Double) mapper.read(p, double.class);
+    }
+
+    public static boolean readBoolean(PullParser p, EdnMapper mapper) {
+        if (p.event() == Event.VALUE && p.value() instanceof Boolean) {
+            return p.booleanValue();
+        }
+        return (Boolean) mapper.read(p, boolean.class);
+    }
+
+    public static String readString(PullParser p, EdnMapper mapper) {
+        if (p.event() == Event.VALUE && p.value() instanceof String) {
+            return p.stringValue();
+        }
+        return (String) mapper.read(p, String.class);
+    }
+
+    /**
+     * Read a value of any type the mapper can bind.
+     *
+     * @param p a parser on the first event of a value.
+     * @param mapper the mapper to read with.
+     * @param type the type to read, as given by {@link #propertyType}.
+     * @return the value, possibly null.
+     */
+    public static Object read(PullParser p, EdnMapper mapper, Type type) {
+        return mapper.read(p, type);
+    }
+
+    /**
+     * The generic type of the field behind property {@code name} of
+     * {@code c}.
+     *
+     * @param c a class with a field named {@code name}.
+     * @param name the name of the field.
+     * @return the field's generic type.
+     */
+    public static Type propertyType(Class<?> c, String name) {
+        try {
+            return c.getDeclaredField(name).getGenericType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Print {@code v}, converting enums and arrays as {@link EdnMapper}
+     * does.
+     *
+     * @param printer the printer to print with.
+     * @param v the value to print, possibly null.
+     */
+    public static void printValue(Printer printer, Object v) {
+        printer.printValue(EdnMapper.printable(v));
+    }
+}
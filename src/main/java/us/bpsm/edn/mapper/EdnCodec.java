@@ -0,0 +1,33 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper;
+
+import us.bpsm.edn.parser.PullParser;
+import us.bpsm.edn.printer.Printer;
+
+/**
+ * Reads and prints instances of one class, without reflection. Codecs
+ * are generated for classes annotated with {@link EdnRecord}, and are
+ * found by {@link EdnMapper}; there is seldom a reason to call one
+ * directly.
+ *
+ * @param <T> the class read and printed.
+ */
+public interface EdnCodec<T> extends Printer.Fn<T> {
+
+    /**
+     * The class this codec reads and prints.
+     *
+     * @return a class, never null.
+     */
+    Class<T> type();
+
+    /**
+     * Read an instance from {@code p}, which is positioned on the first
+     * event of its value, leaving {@code p} on the value's last event.
+     *
+     * @param p the parser to read from, not null.
+     * @param mapper the mapper to read properties of other types with.
+     * @return the instance read, or null if the value was {@code nil}.
+     */
+    T read(PullParser p, EdnMapper mapper);
+}
@@ -0,0 +1,373 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.Symbol;
+import us.bpsm.edn.Tag;
+import us.bpsm.edn.TaggedValue;
+import us.bpsm.edn.parser.CollectionBuilder;
+import us.bpsm.edn.parser.Parseable;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+import us.bpsm.edn.parser.PullParser;
+import us.bpsm.edn.parser.PullParser.Event;
+import us.bpsm.edn.parser.TagHandler;
+import us.bpsm.edn.printer.Printer;
+import us.bpsm.edn.protocols.Protocol;
+
+/**
+ * An EdnMapper reads edn maps directly into instances of Java classes,
+ * and prints such instances back as edn maps.
+ *
+ * <p>A class can be bound if it is a record, or if it is a concrete
+ * class with a no-argument constructor. The properties of a record are
+ * its components; those of any other class are its non-static,
+ * non-final, non-transient fields, including inherited ones. A property
+ * named {@code foo} is read from and printed as the key {@code :foo}.
+ *
+ * <pre>
+ * {@code EdnMapper mapper = EdnMapper.newMapper();
+ * Point p = mapper.readValue(Parsers.newParseable("{:x 1 :y 2}"),
+ *                            Point.class);}
+ * </pre>
+ *
+ * <p>The mapper reads with a {@link PullParser}, so no intermediate
+ * {@link Map} is built for a bound object, and the values of keys which
+ * name no property are skipped rather than parsed. Properties of type
+ * {@link Object}, and the elements of raw collections, are built as
+ * {@link Parser#nextValue(Parseable)} would build them, using the
+ * collection factories and tag handlers of the mapper's
+ * {@link Parser.Config}.
+ *
+ * <p>Properties may be primitives and their boxes, String, Keyword,
+ * Symbol, BigInteger, BigDecimal, enums (read from a keyword, symbol or
+ * string and printed as a keyword), arrays, {@link List}, {@link Set},
+ * {@link Collection}, {@link Map}, other bound classes, and any type a
+ * configured {@link TagHandler} produces. Numbers are narrowed only if
+ * they fit.
+ *
+ * <p>The reflective work of binding a class is done once, the first
+ * time the class is used. Classes annotated with {@link EdnRecord} need
+ * none: they are read and printed by the {@link EdnCodec} generated for
+ * them at compile time. An EdnMapper is thread-safe.
+ */
+public final class EdnMapper {
+
+    private final Parser.Config cfg;
+    private final ConcurrentMap<Class<?>, ClassBinding> bindings =
+      new ConcurrentHashMap<Class<?>, ClassBinding>();
+    private final ConcurrentMap<Class<?>, Object> codecs =
+      new ConcurrentHashMap<Class<?>, Object>();
+    private final ConcurrentMap<Type, ValueReader> readers =
+      new ConcurrentHashMap<Type, ValueReader>();
+    private final ValueReader generic = new ValueReader() {
+        @Override
+        Object read(PullParser p) {
+            return readGeneric(p);
+        }
+    };
+
+    private EdnMapper(Parser.Config cfg) {
+        this.cfg = cfg;
+    }
+
+    /**
+     * Return a mapper which uses {@code cfg} to parse its input.
+     *
+     * @param cfg the configuration of the parser, not null.
+     * @return a new EdnMapper, never null.
+     */
+    public static EdnMapper newMapper(Parser.Config cfg) {
+        if (cfg == null) {
+            throw new IllegalArgumentException("cfg must not be null");
+        }
+        return new EdnMapper(cfg);
+    }
+
+    /**
+     * Return a mapper which uses {@link Parsers#defaultConfiguration()}.
+     *
+     * @return a new EdnMapper, never null.
+     */
+    public static EdnMapper newMapper() {
+        return new EdnMapper(Parsers.defaultConfiguration());
+    }
+
+    /**
+     * Read the next value from {@code pbr} as an instance of
+     * {@code type}. Nothing beyond the end of that value is consumed.
+     *
+     * @param <T> the type of the value.
+     * @param pbr the input, not null.
+     * @param type the class of the value, not null.
+     * @return the value read, which is null if the input was
+     *         {@code nil}.
+     *
+     * @throws EdnSyntaxException if the input is empty, is not valid
+     *         edn, or doesn't fit {@code type}.
+     * @throws IllegalArgumentException if {@code type}, or the type of
+     *         one of its properties, can't be bound.
+     */
+    public <T> T readValue(Parseable pbr, Class<T> type) {
+        PullParser p = Parsers.newPullParser(cfg, pbr);
+        if (p.next() == Event.END_OF_INPUT) {
+            throw new EdnSyntaxException("Unexpected end of input");
+        }
+        Object v = read(p, type);
+        if (type.isPrimitive()) {
+            @SuppressWarnings("unchecked")
+            T t = (T) v;
+            return t;
+        }
+        return type.cast(v);
+    }
+
+    /**
+     * Return a printing function which prints instances of {@code type}
+     * as edn maps from keyword to property value. The properties
+     * themselves are printed by the protocol of the calling
+     * {@link Printer}, so any bound classes they refer to must also be
+     * registered; see {@link #registerPrinters(Protocol.Builder, Class...)}.
+     *
+     * @param <T> the type to print.
+     * @param type the class to print, not null.
+     * @return a Printer.Fn, never null.
+     *
+     * @throws IllegalArgumentException if {@code type} can't be bound.
+     */
+    public <T> Printer.Fn<T> printFn(Class<T> type) {
+        EdnCodec<T> codec = codec(type);
+        if (codec != null) {
+            return codec;
+        }
+        final ClassBinding b = binding(type);
+        return new Printer.Fn<T>() {
+            @Override
+            public void eval(T self, Printer printer) {
+                printer.append('{');
+                for (ClassBinding.Property p : b.properties) {
+                    printer.printValue(p.key)
+                      .printValue(printable(b.get(self, p)));
+                }
+                printer.append('}');
+            }
+        };
+    }
+
+    /**
+     * Register a {@link #printFn(Class)} for each of {@code types} with
+     * {@code builder}.
+     *
+     * @param builder a builder, such as
+     *        {@link us.bpsm.edn.printer.Printers#defaultProtocolBuilder()}.
+     * @param types the classes to print.
+     * @return {@code builder}, for method chaining.
+     */
+    public Protocol.Builder<Printer.Fn<?>> registerPrinters(
+      Protocol.Builder<Printer.Fn<?>> builder, Class<?>... types) {
+        for (Class<?> type : types) {
+            builder.put(type, printFn(type));
+        }
+        return builder;
+    }
+
+    /**
+     * The generated codec for {@code type}, or null if it isn't
+     * annotated with {@link EdnRecord}.
+     */
+    @SuppressWarnings("unchecked")
+    <T> EdnCodec<T> codec(Class<T> type) {
+        Object codec = codecs.get(type);
+        if (codec == null) {
+            codec = loadCodec(type);
+            codecs.putIfAbsent(type, codec);
+        }
+        return codec instanceof EdnCodec ? (EdnCodec<T>) codec : null;
+    }
+
+    private static Object loadCodec(Class<?> type) {
+        if (!type.isAnnotationPresent(EdnRecord.class)) {
+            return Boolean.FALSE;
+        }
+        String name = type.getName().replace('$', '_') + "EdnCodec";
+        try {
+            Constructor<?> ctor = Class.forName(name, true,
+              type.getClassLoader()).getDeclaredConstructor();
+            ctor.setAccessible(true);
+            return ctor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Can't load " + name +
+              ", the codec generated for @EdnRecord " + type.getName(), e);
+        }
+    }
+
+    ClassBinding binding(Class<?> type) {
+        ClassBinding b = bindings.get(type);
+        if (b == null) {
+            b = new ClassBinding(type);
+            ClassBinding prior = bindings.putIfAbsent(type, b);
+            if (prior != null) {
+                b = prior;
+            }
+        }
+        return b;
+    }
+
+    ValueReader reader(ClassBinding.Property p) {
+        ValueReader r = p.reader;
+        if (r == null) {
+            // Racing threads compute equivalent readers; either will do.
+            p.reader = r = readerFor(p.type);
+        }
+        return r;
+    }
+
+    Object read(PullParser p, Type t) {
+        ValueReader r = readers.get(t);
+        if (r == null) {
+            r = readerFor(t);
+            readers.putIfAbsent(t, r);
+        }
+        return r.read(p);
+    }
+
+    ValueReader readerFor(Type t) {
+        if (t instanceof Class) {
+            Class<?> c = (Class<?>) t;
+            if (c == Object.class) {
+                return generic;
+            } else if (c.isEnum()) {
+                return new ValueReader.EnumReader(c);
+            } else if (c.isArray()) {
+                return new ValueReader.Sequence(
+                  c, readerFor(c.getComponentType()));
+            } else if (isSequence(c)) {
+                return new ValueReader.Sequence(c, generic);
+            } else if (c == Map.class) {
+                return new ValueReader.MapReader(generic, generic);
+            } else if (codec(c) != null) {
+                return new ValueReader.CodecReader(this, codec(c));
+            } else if (isBindable(c)) {
+                return new ValueReader.ObjectReader(this, c);
+            }
+            return new ValueReader.Atom(this, c);
+        } else if (t instanceof ParameterizedType) {
+            Class<?> raw = (Class<?>) ((ParameterizedType) t).getRawType();
+            Type[] args = ((ParameterizedType) t).getActualTypeArguments();
+            if (isSequence(raw)) {
+                return new ValueReader.Sequence(raw, readerFor(args[0]));
+            } else if (raw == Map.class) {
+                return new ValueReader.MapReader(readerFor(args[0]),
+                                                 readerFor(args[1]));
+            }
+            return readerFor(raw);
+        } else if (t instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) t).getGenericComponentType();
+            Class<?> raw = component instanceof ParameterizedType
+              ? (Class<?>) ((ParameterizedType) component).getRawType()
+              : Object.class;
+            return new ValueReader.Sequence(
+              Array.newInstance(raw, 0).getClass(), readerFor(component));
+        }
+        // Type variables and wildcards.
+        return generic;
+    }
+
+    private static boolean isSequence(Class<?> c) {
+        return c == List.class || c == Set.class || c == Collection.class
+          || c == Iterable.class;
+    }
+
+    private static boolean isBindable(Class<?> c) {
+        if (ClassBinding.isRecord(c)) {
+            return true;
+        }
+        if (c.isPrimitive() || c.isInterface()
+            || Modifier.isAbstract(c.getModifiers())
+            || c.getName().startsWith("java.")
+            || c == Keyword.class || c == Symbol.class || c == Tag.class
+            || c == TaggedValue.class) {
+            return false;
+        }
+        try {
+            c.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Build the value beginning at the current event as
+     * {@link Parser#nextValue(Parseable)} would.
+     */
+    Object readGeneric(PullParser p) {
+        Event e = p.event();
+        switch (e) {
+        case VALUE:
+        case KEY:
+            return p.value();
+        case TAG:
+            Tag tag = (Tag) p.value();
+            if (p.next() == Event.END_OF_INPUT) {
+                throw new EdnSyntaxException("Unexpected end of input");
+            }
+            Object v = readGeneric(p);
+            TagHandler h = cfg.getTagHandler(tag);
+            return h != null ? h.transform(tag, v)
+                             : TaggedValue.newTaggedValue(tag, v);
+        case START_LIST:
+            return readCollection(p, cfg.getListFactory(), Event.END_LIST);
+        case START_VECTOR:
+            return readCollection(p, cfg.getVectorFactory(), Event.END_VECTOR);
+        case START_SET:
+            return readCollection(p, cfg.getSetFactory(), Event.END_SET);
+        case START_MAP:
+            return readCollection(p, cfg.getMapFactory(), Event.END_MAP);
+        default:
+            throw new EdnSyntaxException("Unexpected " + e);
+        }
+    }
+
+    private Object readCollection(PullParser p, CollectionBuilder.Factory f,
+                                  Event end) {
+        CollectionBuilder b = f.builder();
+        for (Event e = p.next(); e != end; e = p.next()) {
+            b.add(readGeneric(p));
+        }
+        return b.build();
+    }
+
+    /**
+     * Convert what the default printer can't print: enums become
+     * keywords and arrays become lists.
+     */
+    static Object printable(Object v) {
+        if (v instanceof Enum) {
+            return Keyword.newKeyword(((Enum<?>) v).name());
+        } else if (v != null && v.getClass().isArray()) {
+            int n = Array.getLength(v);
+            List<Object> list = new ArrayList<Object>(n);
+            for (int i = 0; i < n; i++) {
+                list.add(printable(Array.get(v, i)));
+            }
+            return list;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,25 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which an {@link EdnCodec} is to be generated at
+ * compile time by {@link us.bpsm.edn.mapper.processor.EdnRecordProcessor}.
+ * The codec for {@code com.example.Outer.Point} is generated as
+ * {@code com.example.Outer_PointEdnCodec}, and {@link EdnMapper} uses it
+ * in place of reflection whenever it reads or prints a {@code Point}.
+ *
+ * <p>The annotated class must be a record, or a concrete class with a
+ * non-private no-argument constructor whose properties are non-private
+ * fields. It must not be generic or private.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EdnRecord {
+}
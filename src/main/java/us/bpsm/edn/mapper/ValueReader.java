@@ -0,0 +1,363 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Named;
+import us.bpsm.edn.parser.PullParser;
+import us.bpsm.edn.parser.PullParser.Event;
+
+/**
+ * Reads one value of a particular Java type from a {@link PullParser}.
+ * {@link #read(PullParser)} is called with the parser positioned on
+ * the first event of the value, and returns with the parser on its last
+ * event.
+ */
+abstract class ValueReader {
+
+    abstract Object read(PullParser p);
+
+    static EdnSyntaxException cantBind(Object what, Class<?> type) {
+        return new EdnSyntaxException("Can't bind " + what + " to " +
+          type.getName() + ".");
+    }
+
+    static EdnSyntaxException duplicateKey(Object key) {
+        return new EdnSyntaxException(
+          "Map contains duplicate key '" + key + "'.");
+    }
+
+    /**
+     * Reads an atomic value, such as a number or a String, into a type
+     * which may differ from the one the parser produced.
+     */
+    static final class Atom extends ValueReader {
+        private final EdnMapper mapper;
+        private final Class<?> type;
+
+        Atom(EdnMapper mapper, Class<?> type) {
+            this.mapper = mapper;
+            this.type = type;
+        }
+
+        @Override
+        Object read(PullParser p) {
+            Object v = mapper.readGeneric(p);
+            if (v == null) {
+                if (type.isPrimitive()) {
+                    throw cantBind("nil", type);
+                }
+                return null;
+            }
+            if (type == int.class || type == Integer.class) {
+                return (int) integral(v, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            } else if (type == long.class || type == Long.class) {
+                return integral(v, Long.MIN_VALUE, Long.MAX_VALUE);
+            } else if (type == short.class || type == Short.class) {
+                return (short) integral(v, Short.MIN_VALUE, Short.MAX_VALUE);
+            } else if (type == byte.class || type == Byte.class) {
+                return (byte) integral(v, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            } else if (type == double.class || type == Double.class) {
+                return number(v).doubleValue();
+            } else if (type == float.class || type == Float.class) {
+                return number(v).floatValue();
+            } else if (type == boolean.class) {
+                return (Boolean) cast(v, Boolean.class);
+            } else if (type == char.class) {
+                return (Character) cast(v, Character.class);
+            } else if (type == BigInteger.class && v instanceof Long) {
+                return BigInteger.valueOf((Long) v);
+            } else if (type == BigDecimal.class && v instanceof Number
+                       && !(v instanceof Double)) {
+                return v instanceof Long ? BigDecimal.valueOf((Long) v)
+                                         : new BigDecimal(v.toString());
+            }
+            return cast(v, type);
+        }
+
+        private long integral(Object v, long min, long max) {
+            if (v instanceof Long || v instanceof Integer
+                || v instanceof Short || v instanceof Byte) {
+                long n = ((Number) v).longValue();
+                if (n >= min && n <= max) {
+                    return n;
+                }
+            } else if (v instanceof BigInteger
+                       && ((BigInteger) v).bitLength() < 64) {
+                return integral(((BigInteger) v).longValue(), min, max);
+            }
+            throw cantBind(v, type);
+        }
+
+        private Number number(Object v) {
+            return (Number) cast(v, Number.class);
+        }
+
+        private Object cast(Object v, Class<?> c) {
+            if (!c.isInstance(v)) {
+                throw cantBind(v, type);
+            }
+            return v;
+        }
+    }
+
+    /**
+     * Reads an enum constant from a keyword, symbol or string naming it.
+     */
+    static final class EnumReader extends ValueReader {
+        private final Class<?> type;
+        private final Map<String, Object> constants =
+          new LinkedHashMap<String, Object>();
+
+        EnumReader(Class<?> type) {
+            this.type = type;
+            for (Object c : type.getEnumConstants()) {
+                constants.put(((Enum<?>) c).name(), c);
+            }
+        }
+
+        @Override
+        Object read(PullParser p) {
+            if (p.event() != Event.VALUE && p.event() != Event.KEY) {
+                throw cantBind(p.event(), type);
+            }
+            Object v = p.value();
+            if (v == null) {
+                return null;
+            }
+            String name = v instanceof Named ? ((Named) v).getName()
+                        : v instanceof String ? (String) v : null;
+            Object c = name != null ? constants.get(name) : null;
+            if (c == null) {
+                throw cantBind(v, type);
+            }
+            return c;
+        }
+    }
+
+    /**
+     * Reads an edn list, vector or set into a Java array, List, Set or
+     * Collection.
+     */
+    static final class Sequence extends ValueReader {
+        private final Class<?> type;
+        private final ValueReader element;
+
+        Sequence(Class<?> type, ValueReader element) {
+            this.type = type;
+            this.element = element;
+        }
+
+        @Override
+        Object read(PullParser p) {
+            Event end;
+            switch (p.event()) {
+            case START_LIST:
+                end = Event.END_LIST;
+                break;
+            case START_VECTOR:
+                end = Event.END_VECTOR;
+                break;
+            case START_SET:
+                end = Event.END_SET;
+                break;
+            case VALUE:
+                if (p.value() == null) {
+                    return null;
+                }
+                throw cantBind(p.event(), type);
+            default:
+                throw cantBind(p.event(), type);
+            }
+            List<Object> items = new ArrayList<Object>();
+            // The elements of an edn set, to reject duplicates as the
+            // parser does.
+            Set<Object> elements =
+              end == Event.END_SET ? new HashSet<Object>() : null;
+            for (Event e = p.next(); e != end; e = p.next()) {
+                Object o = element.read(p);
+                if (elements != null && !elements.add(o)) {
+                    throw new EdnSyntaxException(
+                      "Set contains duplicate element '" + o + "'.");
+                }
+                items.add(o);
+            }
+            if (type.isArray()) {
+                Object a = Array.newInstance(type.getComponentType(),
+                                             items.size());
+                for (int i = 0; i < items.size(); i++) {
+                    Array.set(a, i, items.get(i));
+                }
+                return a;
+            } else if (Set.class.isAssignableFrom(type)) {
+                return Collections.unmodifiableSet(elements != null
+                  ? elements : new HashSet<Object>(items));
+            }
+            return Collections.unmodifiableList(items);
+        }
+    }
+
+    /**
+     * Reads an edn map into a Java Map, preserving the order of its
+     * entries.
+     */
+    static final class MapReader extends ValueReader {
+        private final ValueReader key;
+        private final ValueReader value;
+
+        MapReader(ValueReader key, ValueReader value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        Object read(PullParser p) {
+            if (p.event() != Event.START_MAP) {
+                if (p.event() == Event.VALUE && p.value() == null) {
+                    return null;
+                }
+                throw cantBind(p.event(), Map.class);
+            }
+            Map<Object, Object> m = new LinkedHashMap<Object, Object>();
+            for (Event e = p.next(); e != Event.END_MAP; e = p.next()) {
+                Object k = key.read(p);
+                if (m.containsKey(k)) {
+                    throw duplicateKey(k);
+                }
+                p.next();
+                m.put(k, value.read(p));
+            }
+            return Collections.unmodifiableMap(m);
+        }
+    }
+
+    /**
+     * Reads an edn map into an instance of a bound class, setting each
+     * property as its key is encountered. Keys naming no property are
+     * skipped without building their values. A key which is repeated is
+     * rejected, as the parser rejects it in a map.
+     */
+    static final class ObjectReader extends ValueReader {
+        private final EdnMapper mapper;
+        private final Class<?> type;
+
+        ObjectReader(EdnMapper mapper, Class<?> type) {
+            this.mapper = mapper;
+            this.type = type;
+        }
+
+        @Override
+        Object read(PullParser p) {
+            switch (p.event()) {
+            case START_MAP:
+                break;
+            case VALUE:
+                if (p.value() == null) {
+                    return null;
+                }
+                throw cantBind(p.value(), type);
+            case TAG:
+                Object v = mapper.readGeneric(p);
+                if (v != null && !type.isInstance(v)) {
+                    throw cantBind(v, type);
+                }
+                return v;
+            default:
+                throw cantBind(p.event(), type);
+            }
+            // The binding is looked up here, rather than when the
+            // reader is made, so that classes may refer to themselves.
+            ClassBinding b = mapper.binding(type);
+            Object target = b.newTarget();
+            long seen = 0L;
+            Set<Object> others = null;
+            for (Event e = p.next(); e != Event.END_MAP; e = p.next()) {
+                if (e != Event.KEY) {
+                    throw cantBind(e, type);
+                }
+                Object key = p.value();
+                ClassBinding.Property prop = b.property(key);
+                if (prop != null && prop.index < Long.SIZE) {
+                    seen = seen(seen, prop.index, key);
+                } else {
+                    others = seen(others, key);
+                }
+                p.next();
+                if (prop != null) {
+                    b.set(target, prop, mapper.reader(prop).read(p));
+                } else {
+                    skip(p);
+                }
+            }
+            return b.finish(target);
+        }
+    }
+
+    /**
+     * Reads with a generated {@link EdnCodec}.
+     */
+    static final class CodecReader extends ValueReader {
+        private final EdnMapper mapper;
+        private final EdnCodec<?> codec;
+
+        CodecReader(EdnMapper mapper, EdnCodec<?> codec) {
+            this.mapper = mapper;
+            this.codec = codec;
+        }
+
+        @Override
+        Object read(PullParser p) {
+            return codec.read(p, mapper);
+        }
+    }
+
+    /**
+     * Note that {@code key}, naming the property numbered {@code index},
+     * has been read. Bit {@code i} of {@code seen} is set if the
+     * property numbered {@code i} already has been. Throw if this one
+     * has; otherwise return {@code seen} with its bit set.
+     */
+    static long seen(long seen, int index, Object key) {
+        long bit = 1L << index;
+        if ((seen & bit) != 0) {
+            throw duplicateKey(key);
+        }
+        return seen | bit;
+    }
+
+    /**
+     * Note that {@code key} has been read, where {@code seen}, which is
+     * null until needed, holds the keys already read which are not
+     * tracked by {@link #seen(long, int, Object)}. Throw if {@code key}
+     * is among them; otherwise return {@code seen} with it added.
+     */
+    static Set<Object> seen(Set<Object> seen, Object key) {
+        if (seen == null) {
+            seen = new HashSet<Object>();
+        }
+        if (!seen.add(key)) {
+            throw duplicateKey(key);
+        }
+        return seen;
+    }
+
+    /**
+     * Skip the value beginning at the current event of {@code p}.
+     */
+    static void skip(PullParser p) {
+        while (p.event() == Event.TAG) {
+            p.next();
+        }
+        p.skipChildren();
+    }
+}
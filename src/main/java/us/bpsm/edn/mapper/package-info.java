@@ -0,0 +1,7 @@
+/**
+ * This package binds edn maps to Java objects and back, without building
+ * the maps in between.
+ *
+ * <p>The entry point is {@link us.bpsm.edn.mapper.EdnMapper}.
+ */
+package us.bpsm.edn.mapper;
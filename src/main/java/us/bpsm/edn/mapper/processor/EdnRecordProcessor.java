@@ -0,0 +1,385 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import us.bpsm.edn.mapper.EdnRecord;
+
+/**
+ * Generates an {@link us.bpsm.edn.mapper.EdnCodec} for each class
+ * annotated with {@link EdnRecord}. The codec reads a map by comparing
+ * each key against keyword constants, and sets the matching field (or
+ * collects the matching record component) directly, so that no
+ * reflection or lookup is needed to read properties which are
+ * primitives or Strings. Properties of other types are read through
+ * {@link us.bpsm.edn.mapper.EdnMapper}. Every property is printed with
+ * the Printer's protocol, just as EdnMapper prints it.
+ *
+ * <p>The processor is found through {@code META-INF/services} whenever
+ * edn-java is on the compiler's class path.
+ */
+public class EdnRecordProcessor extends AbstractProcessor {
+
+    private static final String SUPPORT = "us.bpsm.edn.mapper.CodecSupport";
+    private static final String EVENT = "us.bpsm.edn.parser.PullParser.Event";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(EdnRecord.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+                           RoundEnvironment env) {
+        for (Element e : env.getElementsAnnotatedWith(EdnRecord.class)) {
+            TypeElement type = (TypeElement) e;
+            try {
+                generate(type);
+            } catch (InvalidRecordException x) {
+                processingEnv.getMessager().printMessage(
+                  Diagnostic.Kind.ERROR, x.getMessage(), x.element);
+            } catch (IOException x) {
+                processingEnv.getMessager().printMessage(
+                  Diagnostic.Kind.ERROR, "Can't write codec: " + x, type);
+            }
+        }
+        return true;
+    }
+
+    private static final class InvalidRecordException extends Exception {
+        private static final long serialVersionUID = 1L;
+        final Element element;
+
+        InvalidRecordException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+
+    private static final class Property {
+        final String name;
+        final TypeMirror type;
+        final TypeElement declaringType;
+
+        Property(String name, TypeMirror type, TypeElement declaringType) {
+            this.name = name;
+            this.type = type;
+            this.declaringType = declaringType;
+        }
+    }
+
+    private void generate(TypeElement type)
+      throws InvalidRecordException, IOException {
+        // Compared by name, as ElementKind.RECORD is missing before Java 16.
+        boolean record = type.getKind().name().equals("RECORD");
+        if (!record && type.getKind() != ElementKind.CLASS) {
+            throw new InvalidRecordException(
+              "@EdnRecord must annotate a class or record", type);
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new InvalidRecordException(
+              "@EdnRecord classes must not be generic", type);
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new InvalidRecordException(
+              "@EdnRecord classes must not be abstract", type);
+        }
+        StringBuilder binaryName = new StringBuilder();
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE;
+             e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new InvalidRecordException(
+                  "@EdnRecord classes must not be private", type);
+            }
+            if (e != type && !(e instanceof TypeElement)) {
+                throw new InvalidRecordException(
+                  "@EdnRecord classes must not be local", type);
+            }
+            if (e.getEnclosingElement().getKind() != ElementKind.PACKAGE
+                && !e.getModifiers().contains(Modifier.STATIC)
+                && e.getKind() == ElementKind.CLASS) {
+                throw new InvalidRecordException(
+                  "@EdnRecord classes must not be inner classes", type);
+            }
+            binaryName.insert(0, binaryName.length() == 0 ? "" : "_")
+              .insert(0, e.getSimpleName());
+        }
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        List<Property> properties =
+          record ? recordComponents(type) : fields(type, pkg);
+        if (!record) {
+            checkConstructor(type);
+        }
+        String codec = binaryName + "EdnCodec";
+        String pkgName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        Writer w = processingEnv.getFiler().createSourceFile(
+          pkgName.isEmpty() ? codec : pkgName + "." + codec, type).openWriter();
+        try {
+            w.write(source(pkgName, codec, typeName(type, pkgName), record,
+                           properties));
+        } finally {
+            w.close();
+        }
+    }
+
+    private static List<Property> recordComponents(TypeElement type) {
+        // A record's instance fields are its components, in order.
+        List<Property> ps = new ArrayList<Property>();
+        for (Element e : type.getEnclosedElements()) {
+            if (e.getKind() == ElementKind.FIELD
+                && !e.getModifiers().contains(Modifier.STATIC)) {
+                ps.add(new Property(e.getSimpleName().toString(), e.asType(),
+                                    type));
+            }
+        }
+        return ps;
+    }
+
+    /** The bound fields, in the order ClassBinding finds them. */
+    private List<Property> fields(TypeElement type, PackageElement pkg)
+      throws InvalidRecordException {
+        List<Property> ps = new ArrayList<Property>();
+        Set<String> names = new HashSet<String>();
+        for (TypeElement c = type; c != null; c = superclass(c)) {
+            for (Element e : c.getEnclosedElements()) {
+                Set<Modifier> mods = e.getModifiers();
+                if (e.getKind() != ElementKind.FIELD
+                    || mods.contains(Modifier.STATIC)
+                    || mods.contains(Modifier.FINAL)
+                    || mods.contains(Modifier.TRANSIENT)
+                    || !names.add(e.getSimpleName().toString())) {
+                    continue;
+                }
+                if (mods.contains(Modifier.PRIVATE)
+                    || (!mods.contains(Modifier.PUBLIC)
+                        && !processingEnv.getElementUtils().getPackageOf(c)
+                             .equals(pkg))) {
+                    throw new InvalidRecordException(
+                      "Fields of @EdnRecord classes must be accessible " +
+                      "from their package", e);
+                }
+                ps.add(new Property(e.getSimpleName().toString(),
+                                    ((VariableElement) e).asType(), c));
+            }
+        }
+        return ps;
+    }
+
+    private static TypeElement superclass(TypeElement c) {
+        TypeMirror s = c.getSuperclass();
+        if (s.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement e = (TypeElement) ((DeclaredType) s).asElement();
+        return e.getQualifiedName().contentEquals("java.lang.Object") ? null : e;
+    }
+
+    private static void checkConstructor(TypeElement type)
+      throws InvalidRecordException {
+        for (Element e : type.getEnclosedElements()) {
+            if (e.getKind() == ElementKind.CONSTRUCTOR
+                && ((ExecutableElement) e).getParameters().isEmpty()
+                && !e.getModifiers().contains(Modifier.PRIVATE)) {
+                return;
+            }
+        }
+        throw new InvalidRecordException("@EdnRecord classes must have a " +
+          "non-private no-argument constructor", type);
+    }
+
+    /** The name of {@code type} as written within its package. */
+    private static String typeName(TypeElement type, String pkgName) {
+        String name = type.getQualifiedName().toString();
+        return pkgName.isEmpty() ? name : name.substring(pkgName.length() + 1);
+    }
+
+    private String source(String pkgName, String codec, String type,
+                          boolean record, List<Property> properties) {
+        StringBuilder b = new StringBuilder();
+        if (!pkgName.isEmpty()) {
+            b.append("package ").append(pkgName).append(";\n\n");
+        }
+        b.append("/** Generated by EdnRecordProcessor from {@link ")
+          .append(type).append("}. Do not edit. */\n")
+          .append("final class ").append(codec)
+          .append(" implements us.bpsm.edn.mapper.EdnCodec<").append(type)
+          .append("> {\n\n");
+        for (Property p : properties) {
+            b.append("    private static final us.bpsm.edn.Keyword K_")
+              .append(p.name).append(" =\n      us.bpsm.edn.Keyword.newKeyword(\"")
+              .append(p.name).append("\");\n");
+            if (reader(p) == null) {
+                b.append("    private static final java.lang.reflect.Type T_")
+                  .append(p.name).append(" =\n      ").append(SUPPORT)
+                  .append(".propertyType(")
+                  .append(typeName(p.declaringType, pkgName))
+                  .append(".class, \"").append(p.name).append("\");\n");
+            }
+        }
+        b.append("\n    @Override\n")
+          .append("    public java.lang.Class<").append(type)
+          .append("> type() {\n        return ").append(type)
+          .append(".class;\n    }\n\n");
+
+        b.append("    @Override\n    @SuppressWarnings(\"unchecked\")\n")
+          .append("    public ").append(type)
+          .append(" read(us.bpsm.edn.parser.PullParser parser,\n")
+          .append("                us.bpsm.edn.mapper.EdnMapper mapper) {\n")
+          .append("        if (parser.event() != ").append(EVENT)
+          .append(".START_MAP) {\n")
+          .append("            return ").append(SUPPORT)
+          .append(".readOther(parser, mapper, ").append(type)
+          .append(".class);\n        }\n");
+        if (record) {
+            for (Property p : properties) {
+                b.append("        ").append(p.type).append(" v_").append(p.name)
+                  .append(" = ").append(defaultValue(p.type)).append(";\n");
+            }
+        } else {
+            b.append("        ").append(type).append(" result = new ")
+              .append(type).append("();\n");
+        }
+        b.append("        long seen = 0L;\n")
+          .append("        java.util.Set<Object> others = null;\n")
+          .append("        while (").append(SUPPORT).append(".nextKey(parser, ")
+          .append(type).append(".class)) {\n")
+          .append("            Object key = parser.value();\n")
+          .append("            parser.next();\n")
+          .append("            ");
+        for (int i = 0; i < properties.size(); i++) {
+            Property p = properties.get(i);
+            b.append("if (key == K_").append(p.name).append(") {\n")
+              .append("                ");
+            if (i < Long.SIZE) {
+                b.append("seen = ").append(SUPPORT).append(".seen(seen, ")
+                  .append(i).append(", key);\n");
+            } else {
+                b.append("others = ").append(SUPPORT)
+                  .append(".seen(others, key);\n");
+            }
+            b.append("                ")
+              .append(record ? "v_" : "result.").append(p.name)
+              .append(" = ").append(readExpression(p)).append(";\n")
+              .append("            } else ");
+        }
+        b.append("{\n                others = ").append(SUPPORT)
+          .append(".seen(others, key);\n                ").append(SUPPORT)
+          .append(".skip(parser);\n            }\n        }\n");
+        if (record) {
+            b.append("        return new ").append(type).append("(");
+            for (int i = 0; i < properties.size(); i++) {
+                b.append(i == 0 ? "" : ", ").append("v_")
+                  .append(properties.get(i).name);
+            }
+            b.append(");\n");
+        } else {
+            b.append("        return result;\n");
+        }
+        b.append("    }\n\n");
+
+        b.append("    @Override\n")
+          .append("    public void eval(").append(type)
+          .append(" self, us.bpsm.edn.printer.Printer printer) {\n")
+          .append("        printer.append('{');\n");
+        for (Property p : properties) {
+            String value = "self." + p.name + (record ? "()" : "");
+            b.append("        printer.printValue(K_").append(p.name)
+              .append(");\n        ");
+            TypeKind k = p.type.getKind();
+            if (k.isPrimitive() || isString(p.type)) {
+                b.append("printer.printValue(").append(value).append(");\n");
+            } else {
+                b.append(SUPPORT).append(".printValue(printer, ")
+                  .append(value).append(");\n");
+            }
+        }
+        b.append("        printer.append('}');\n    }\n}\n");
+        return b.toString();
+    }
+
+    /** The CodecSupport method which reads {@code p} directly, or null. */
+    private static String reader(Property p) {
+        switch (p.type.getKind()) {
+        case LONG:
+            return "readLong";
+        case INT:
+            return "readInt";
+        case DOUBLE:
+            return "readDouble";
+        case BOOLEAN:
+            return "readBoolean";
+        case SHORT:
+        case BYTE:
+        case FLOAT:
+        case CHAR:
+            return "read";
+        default:
+            return isString(p.type) ? "readString" : null;
+        }
+    }
+
+    private String readExpression(Property p) {
+        String reader = reader(p);
+        TypeKind k = p.type.getKind();
+        if (reader == null) {
+            return "(" + p.type + ") " + SUPPORT + ".read(parser, mapper, T_"
+              + p.name + ")";
+        } else if (reader.equals("read")) {
+            return "(" + processingEnv.getTypeUtils().boxedClass(
+              processingEnv.getTypeUtils().getPrimitiveType(k))
+              .getQualifiedName() + ") " + SUPPORT + ".read(parser, mapper, "
+              + p.type + ".class)";
+        }
+        return SUPPORT + "." + reader + "(parser, mapper)";
+    }
+
+    private static boolean isString(TypeMirror t) {
+        return t.getKind() == TypeKind.DECLARED && ((TypeElement)
+          ((DeclaredType) t).asElement()).getQualifiedName()
+          .contentEquals("java.lang.String");
+    }
+
+    private static String defaultValue(TypeMirror t) {
+        switch (t.getKind()) {
+        case BOOLEAN:
+            return "false";
+        case CHAR:
+            return "'\\0'";
+        case BYTE:
+        case SHORT:
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+            return "(" + t + ") 0";
+        default:
+            return "null";
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * This package holds the annotation processor which generates an
+ * {@link us.bpsm.edn.mapper.EdnCodec} for each class annotated with
+ * {@link us.bpsm.edn.mapper.EdnRecord}.
+ */
+package us.bpsm.edn.mapper.processor;
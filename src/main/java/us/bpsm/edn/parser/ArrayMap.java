@@ -0,0 +1,178 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * An unmodifiable map of a few entries, stored as alternating keys and
+ * values in a single array. Lookups compare keys by identity before
+ * trying {@code equals}, as the keys of small maps are usually interned
+ * {@link us.bpsm.edn.Keyword}s.
+ */
+final class ArrayMap extends AbstractMap<Object, Object>
+  implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Keys at even indices, each followed by its value. */
+    private final Object[] kvs;
+
+    ArrayMap(Object[] kvs) {
+        this.kvs = kvs;
+    }
+
+    /**
+     * Return the index of {@code key} in {@code kvs}, or -1. Keys are
+     * at even indices {@code < end}.
+     */
+    static int indexOfKey(Object[] kvs, int end, Object key) {
+        for (int i = 0; i < end; i += 2) {
+            if (kvs[i] == key) {
+                return i;
+            }
+        }
+        if (key != null) {
+            for (int i = 0; i < end; i += 2) {
+                if (key.equals(kvs[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return kvs.length / 2;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOfKey(kvs, kvs.length, key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOfKey(kvs, kvs.length, key);
+        return i >= 0 ? kvs[i + 1] : null;
+    }
+
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<Object, Object>>() {
+            @Override
+            public int size() {
+                return kvs.length / 2;
+            }
+
+            @Override
+            public Iterator<Map.Entry<Object, Object>> iterator() {
+                return new Iterator<Map.Entry<Object, Object>>() {
+                    int i = 0;
+
+                    public boolean hasNext() {
+                        return i < kvs.length;
+                    }
+
+                    public Map.Entry<Object, Object> next() {
+                        if (i >= kvs.length) {
+                            throw new NoSuchElementException();
+                        }
+                        i += 2;
+                        return new SimpleImmutableEntry<Object, Object>(
+                          kvs[i - 2], kvs[i - 1]);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < kvs.length; i += 2) {
+            Object k = kvs[i];
+            Object v = kvs[i + 1];
+            h += (k == null ? 0 : k.hashCode()) ^ (v == null ? 0 : v.hashCode());
+        }
+        return h;
+    }
+
+    @Override
+    public Object put(Object key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(Map<?, ?> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object putIfAbsent(Object key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean replace(Object key, Object oldValue, Object newValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object replace(Object key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void replaceAll(
+      BiFunction<? super Object, ? super Object, ? extends Object> f) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object computeIfAbsent(Object key,
+      Function<? super Object, ? extends Object> f) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object computeIfPresent(Object key,
+      BiFunction<? super Object, ? super Object, ? extends Object> f) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object compute(Object key,
+      BiFunction<? super Object, ? super Object, ? extends Object> f) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object merge(Object key, Object value,
+      BiFunction<? super Object, ? super Object, ? extends Object> f) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,116 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * An unmodifiable set of a few elements, stored in an array. Like
+ * {@link ArrayMap}, lookups compare by identity before trying
+ * {@code equals}.
+ */
+final class ArraySet extends AbstractSet<Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] elements;
+
+    ArraySet(Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Return the index of {@code o} in {@code elements[0..end)}, or -1.
+     */
+    static int indexOf(Object[] elements, int end, Object o) {
+        for (int i = 0; i < end; i++) {
+            if (elements[i] == o) {
+                return i;
+            }
+        }
+        if (o != null) {
+            for (int i = 0; i < end; i++) {
+                if (o.equals(elements[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(elements, elements.length, o) >= 0;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            int i = 0;
+
+            public boolean hasNext() {
+                return i < elements.length;
+            }
+
+            public Object next() {
+                if (i >= elements.length) {
+                    throw new NoSuchElementException();
+                }
+                return elements[i++];
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (Object o : elements) {
+            h += o == null ? 0 : o.hashCode();
+        }
+        return h;
+    }
+
+    @Override
+    public boolean add(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Object> filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,41 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+/**
+ * An {@link IndexedParseable} reading from a range of a {@code char[]}.
+ * The array is not copied, so it must not be modified while it is being
+ * parsed.
+ */
+final class CharArrayParseable extends IndexedParseable {
+    private final char[] chars;
+
+    CharArrayParseable(char[] chars, int offset, int length) {
+        super(offset, offset + length);
+        if (offset < 0 || length < 0 || length > chars.length - offset) {
+            throw new IndexOutOfBoundsException(
+                "offset " + offset + " and length " + length +
+                " do not lie within an array of length " + chars.length);
+        }
+        this.chars = chars;
+    }
+
+    IndexedParseable slice(int from, int to) {
+        return new CharArrayParseable(chars, from, to - from);
+    }
+
+    public int read() {
+        return pos < limit ? chars[pos++] : END_OF_INPUT;
+    }
+
+    int unitAt(int i) {
+        return chars[i];
+    }
+
+    String text(int from, int to) {
+        return new String(chars, from, to - from);
+    }
+
+    void appendText(StringBuilder b, int from, int to) {
+        b.append(chars, from, to - from);
+    }
+}
@@ -49,5 +49,24 @@ public interface CollectionBuilder {
          * @return a new CollectionBuilder, never null.
          */
         CollectionBuilder builder();
+
+        /**
+         * Returns a new CollectionBuilder which will probably be given
+         * {@code expectedSize} elements, or for a map, {@code
+         * expectedSize} key-value pairs. The parser calls this instead of
+         * {@link #builder()} when it has counted the elements in advance,
+         * so that the builder can allocate its storage at the right size
+         * from the start.
+         * <p>
+         * The default implementation ignores the hint and calls
+         * {@link #builder()}.
+         *
+         * @param expectedSize the expected number of elements or
+         *        key-value pairs, not negative.
+         * @return a new CollectionBuilder, never null.
+         */
+        default CollectionBuilder builder(int expectedSize) {
+            return builder();
+        }
     }
 }
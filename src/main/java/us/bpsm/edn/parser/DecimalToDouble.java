@@ -0,0 +1,179 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.math.BigInteger;
+
+/**
+ * Converts a decimal {@code w * 10^q} to the nearest double, using
+ * Clinger's exact fast path where it applies and the Eisel-Lemire
+ * algorithm otherwise. This is the same technique as the fast_float
+ * library and Go's strconv package, with which it shares its table of
+ * powers of ten.
+ *
+ * <p>The algorithm gives up, returning {@link Double#NaN}, when the
+ * result would be subnormal, infinite, or when the 128-bit
+ * approximation of {@code 10^q} is too coarse to decide the rounding.
+ * Callers then fall back to {@link Double#parseDouble(String)}.
+ *
+ * @see <a href="https://arxiv.org/abs/2101.11408">Lemire, Number
+ *      Parsing at a Gigabyte per Second</a>
+ * @see <a href="https://nigeltao.github.io/blog/2020/eisel-lemire.html">
+ *      Tao, The Eisel-Lemire ParseNumberF64 Algorithm</a>
+ */
+final class DecimalToDouble {
+
+    /** The most significant decimal digits that fit in {@code w}. */
+    static final int MAX_DIGITS = 19;
+
+    private static final int MIN_EXP10 = -342;
+    private static final int MAX_EXP10 = 308;
+
+    /**
+     * The 128 most significant bits of {@code 10^q} for each {@code q}
+     * in {@code [MIN_EXP10, MAX_EXP10]}, high word first. Negative powers
+     * are rounded up, positive powers truncated.
+     */
+    private static final long[] POWERS_OF_TEN = powersOfTen();
+
+    /** The powers of ten which are exactly representable as doubles. */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private DecimalToDouble() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Return the double nearest to {@code w * 10^q}, negated if
+     * {@code negative}, or NaN if that can't be decided quickly.
+     *
+     * @param negative true for a negative result.
+     * @param w the significant digits as an <em>unsigned</em> long.
+     * @param q the decimal exponent.
+     * @return the correctly rounded double, or NaN.
+     */
+    static double toDouble(boolean negative, long w, int q) {
+        if (w == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (w >>> 53 == 0 && -22 <= q && q <= 22) {
+            // Both w and 10^|q| are exact doubles, so a single
+            // correctly rounded operation gives the correct result.
+            double d = (double) w;
+            d = q < 0 ? d / EXACT_POWERS_OF_TEN[-q]
+                      : d * EXACT_POWERS_OF_TEN[q];
+            return negative ? -d : d;
+        }
+        if (q < MIN_EXP10 || MAX_EXP10 < q) {
+            return Double.NaN;
+        }
+
+        // Normalize w, and estimate the binary exponent of the result.
+        final int clz = Long.numberOfLeadingZeros(w);
+        w <<= clz;
+        long exp2 = ((217706 * q) >> 16) + 64 + 1023 - clz;
+
+        // Multiply by the high half of the power of ten.
+        final int index = 2 * (q - MIN_EXP10);
+        final long powHi = POWERS_OF_TEN[index];
+        final long powLo = POWERS_OF_TEN[index + 1];
+        long xHi = unsignedMultiplyHigh(w, powHi);
+        long xLo = w * powHi;
+
+        // If the low bits leave the rounding undecided, bring in the
+        // low half of the power of ten too.
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + w, w) < 0) {
+            long yHi = unsignedMultiplyHigh(w, powLo);
+            long yLo = w * powLo;
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0
+                && Long.compareUnsigned(yLo + w, w) < 0) {
+                return Double.NaN;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        // Shift to 54 bits.
+        final long msb = xHi >>> 63;
+        long mantissa = xHi >>> (msb + 9);
+        exp2 -= 1 ^ msb;
+
+        // An exact half-way case can't be told apart from one slightly
+        // above or below it at this precision.
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            return Double.NaN;
+        }
+
+        // Round to 53 bits.
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >>> 53 > 0) {
+            mantissa >>>= 1;
+            exp2 += 1;
+        }
+        if (exp2 <= 0 || exp2 >= 0x7FF) {
+            // Subnormal or infinite.
+            return Double.NaN;
+        }
+        long bits = exp2 << 52 | (mantissa & 0x000FFFFFFFFFFFFFL);
+        if (negative) {
+            bits |= 0x8000000000000000L;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * The high 64 bits of the unsigned 128-bit product {@code x * y}.
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+        final long x0 = x & 0xFFFFFFFFL;
+        final long x1 = x >>> 32;
+        final long y0 = y & 0xFFFFFFFFL;
+        final long y1 = y >>> 32;
+        final long p01 = x0 * y1;
+        final long middle = x1 * y0 + ((x0 * y0) >>> 32)
+            + (p01 & 0xFFFFFFFFL);
+        return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+    private static long[] powersOfTen() {
+        final BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+        final BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        final BigInteger mask64 = BigInteger.ONE.shiftLeft(64)
+            .subtract(BigInteger.ONE);
+        final BigInteger five = BigInteger.valueOf(5);
+        long[] table = new long[2 * (MAX_EXP10 - MIN_EXP10 + 1)];
+        for (int q = MIN_EXP10; q <= MAX_EXP10; q++) {
+            BigInteger c;
+            if (q < 0) {
+                BigInteger power5 = five.pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5)
+                    .add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0) {
+                    c = c.shiftRight(1);
+                }
+            } else {
+                c = five.pow(q);
+                while (c.compareTo(two127) < 0) {
+                    c = c.shiftLeft(1);
+                }
+                while (c.compareTo(two128) >= 0) {
+                    c = c.shiftRight(1);
+                }
+            }
+            int index = 2 * (q - MIN_EXP10);
+            table[index] = c.shiftRight(64).longValue();
+            table[index + 1] = c.and(mask64).longValue();
+        }
+        return table;
+    }
+}
@@ -6,8 +6,16 @@ import java.util.*;
 
 final class DefaultListFactory implements CollectionBuilder.Factory {
     public CollectionBuilder builder() {
+        return builder(new ArrayList<Object>());
+    }
+
+    @Override
+    public CollectionBuilder builder(int expectedSize) {
+        return builder(new ArrayList<Object>(expectedSize));
+    }
+
+    private static CollectionBuilder builder(final ArrayList<Object> list) {
         return new CollectionBuilder() {
-            ArrayList<Object> list = new ArrayList<Object>();
             public void add(Object o) {
                 list.add(o);
             }
@@ -3,35 +3,109 @@ package us.bpsm.edn.parser;
 
 import us.bpsm.edn.EdnSyntaxException;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Builds maps of up to {@link #MAX_ARRAY_ENTRIES} entries as an
+ * {@link ArrayMap}, and larger ones as an unmodifiable HashMap.
+ */
 final class DefaultMapFactory implements CollectionBuilder.Factory {
+
+    /** The largest map that is built as an {@link ArrayMap}. */
+    static final int MAX_ARRAY_ENTRIES = 8;
+
+    private static final Object[] NO_OBJECTS = new Object[0];
+
+    private static final Map<Object,Object> EMPTY = new ArrayMap(NO_OBJECTS);
+
+    /**
+     * The entries for which {@link #builder()} first makes room. A
+     * larger map grows its array to {@link #MAX_ARRAY_ENTRIES} at once,
+     * so that it is reallocated at most twice.
+     */
+    private static final int SMALL_ENTRIES = 2;
+
+    /**
+     * The builder starts with an empty array, and grows it to
+     * {@link #SMALL_ENTRIES} and then to {@link #MAX_ARRAY_ENTRIES}.
+     */
     public CollectionBuilder builder() {
+        return builder(0);
+    }
+
+    @Override
+    public CollectionBuilder builder(final int expectedSize) {
         return new CollectionBuilder() {
             final Object none = new Object();
-            final Map<Object,Object> map = new HashMap<Object,Object>();
             Object key = none;
+            /** Keys and values, while there are few enough of them. */
+            Object[] kvs = expectedSize == 0 ? NO_OBJECTS
+              : expectedSize <= MAX_ARRAY_ENTRIES
+              ? new Object[2 * expectedSize] : null;
+            int n;
+            Map<Object,Object> map = kvs == null
+              ? new HashMap<Object,Object>(hashCapacity(expectedSize)) : null;
+
             public void add(Object o) {
                 if (key == none) {
                     key = o;
-                    if (map.containsKey(key)) {
+                    if (kvs != null ? ArrayMap.indexOfKey(kvs, n, key) >= 0
+                                    : map.containsKey(key)) {
                         throw new EdnSyntaxException(
                           "Map contains duplicate key '" + key + "'.");
                     }
                 } else {
-                    map.put(key, o);
+                    if (kvs != null && n == kvs.length) {
+                        grow();
+                    }
+                    if (kvs != null) {
+                        kvs[n++] = key;
+                        kvs[n++] = o;
+                    } else {
+                        map.put(key, o);
+                    }
                     key = none;
                 }
             }
+
+            private void grow() {
+                if (n < 2 * MAX_ARRAY_ENTRIES) {
+                    kvs = Arrays.copyOf(kvs, n == 0 ? 2 * SMALL_ENTRIES
+                      : 2 * MAX_ARRAY_ENTRIES);
+                    return;
+                }
+                map = new HashMap<Object,Object>(hashCapacity(2 * n));
+                for (int i = 0; i < n; i += 2) {
+                    map.put(kvs[i], kvs[i + 1]);
+                }
+                kvs = null;
+            }
+
             public Object build() {
                 if (key != none) {
                     throw new EdnSyntaxException(
                             "Every map must have an equal number of keys and values.");
                 }
-                return Collections.unmodifiableMap(map);
+                if (kvs == null) {
+                    return Collections.unmodifiableMap(map);
+                }
+                if (n == 0) {
+                    return EMPTY;
+                }
+                return new ArrayMap(n == kvs.length ? kvs
+                                                    : Arrays.copyOf(kvs, n));
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * The initial capacity at which a HashMap or HashSet with the default
+     * load factor holds {@code expectedSize} entries without rehashing.
+     */
+    static int hashCapacity(int expectedSize) {
+        return (int) Math.min(Integer.MAX_VALUE / 2, expectedSize / 3L * 4 + 4);
+    }
+}
@@ -0,0 +1,70 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.Named;
+import us.bpsm.edn.Symbol;
+
+/**
+ * The rules for namespaced maps, {@code #:ns{...}}, shared by
+ * {@link ParserImpl} and {@link PullParserImpl}.
+ */
+final class DefaultNamespace {
+
+    private DefaultNamespace() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Return the default namespace named by {@code nsObj}, which was
+     * read following {@code #:}, given that {@code next} was read after
+     * it.
+     *
+     * @throws EdnSyntaxException unless {@code nsObj} is a symbol without
+     *         a prefix and {@code next} begins a map.
+     */
+    static String name(Object nsObj, Object next) {
+        if (!(nsObj instanceof Symbol)) {
+            throw new EdnSyntaxException(
+              "Expected symbol following #:, but found: " + nsObj);
+        }
+        Symbol nsSym = (Symbol) nsObj;
+        if (nsSym.getPrefix().length() > 0) {
+            throw new EdnSyntaxException(
+              "Expected symbol following #: to be namespaceless, " +
+                "but found: " + nsSym);
+        }
+        String ns = nsSym.getName();
+        if (next != Token.BEGIN_MAP) {
+            throw new EdnSyntaxException(
+              "Expected #:" + ns + " to be followed by a map.");
+        }
+        return ns;
+    }
+
+    /**
+     * Return the key {@code o} of a map whose default namespace is
+     * {@code defaultNs}: a symbol or keyword without a prefix is given
+     * {@code defaultNs}, and one with the prefix {@code _} loses it.
+     * Any other key is returned as it is.
+     */
+    static Object apply(String defaultNs, Object o) {
+        if (!(o instanceof Symbol || o instanceof Keyword)) {
+            return o;
+        }
+        Named named = (Named) o;
+        String prefix = named.getPrefix();
+        String ns;
+        if ("".equals(prefix)) {
+            ns = defaultNs;
+        } else if ("_".equals(prefix)) {
+            ns = "";
+        } else {
+            return o;
+        }
+        return o instanceof Symbol ?
+          Symbol.newSymbol(ns, named.getName()) :
+          Keyword.newKeyword(ns, named.getName());
+    }
+}
@@ -3,23 +3,91 @@ package us.bpsm.edn.parser;
 
 import us.bpsm.edn.EdnSyntaxException;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Builds sets of up to {@link #MAX_ARRAY_ELEMENTS} elements as an
+ * {@link ArraySet}, and larger ones as an unmodifiable HashSet.
+ */
 final class DefaultSetFactory implements CollectionBuilder.Factory {
+
+    /** The largest set that is built as an {@link ArraySet}. */
+    static final int MAX_ARRAY_ELEMENTS = 8;
+
+    private static final Object[] NO_OBJECTS = new Object[0];
+
+    private static final Set<Object> EMPTY = new ArraySet(NO_OBJECTS);
+
+    /**
+     * The elements for which {@link #builder()} first makes room. See
+     * {@link DefaultMapFactory}.
+     */
+    private static final int SMALL_ELEMENTS = 2;
+
+    /**
+     * The builder starts with an empty array, and grows it to
+     * {@link #SMALL_ELEMENTS} and then to {@link #MAX_ARRAY_ELEMENTS}.
+     */
     public CollectionBuilder builder() {
+        return builder(0);
+    }
+
+    @Override
+    public CollectionBuilder builder(final int expectedSize) {
         return new CollectionBuilder() {
-            Set<Object> set = new HashSet<Object>();
+            /** The elements, while there are few enough of them. */
+            Object[] elements = expectedSize == 0 ? NO_OBJECTS
+              : expectedSize <= MAX_ARRAY_ELEMENTS
+              ? new Object[expectedSize] : null;
+            int n;
+            Set<Object> set = elements == null ? new HashSet<Object>(
+              DefaultMapFactory.hashCapacity(expectedSize)) : null;
+
             public void add(Object o) {
-                if (!set.add(o)) {
-                    throw new EdnSyntaxException(
-                      "Set contains duplicate element '" + o + "'.");
+                if (elements != null) {
+                    if (ArraySet.indexOf(elements, n, o) >= 0) {
+                        throw duplicate(o);
+                    }
+                    if (n == elements.length) {
+                        grow();
+                    }
+                }
+                if (elements != null) {
+                    elements[n++] = o;
+                } else if (!set.add(o)) {
+                    throw duplicate(o);
                 }
             }
+
+            private void grow() {
+                if (n < MAX_ARRAY_ELEMENTS) {
+                    elements = Arrays.copyOf(elements,
+                      n == 0 ? SMALL_ELEMENTS : MAX_ARRAY_ELEMENTS);
+                    return;
+                }
+                set = new HashSet<Object>(DefaultMapFactory.hashCapacity(2 * n));
+                set.addAll(Arrays.asList(elements));
+                elements = null;
+            }
+
             public Object build() {
-                return Collections.unmodifiableSet(set);
+                if (elements == null) {
+                    return Collections.unmodifiableSet(set);
+                }
+                if (n == 0) {
+                    return EMPTY;
+                }
+                return new ArraySet(n == elements.length ? elements
+                                      : Arrays.copyOf(elements, n));
             }
         };
     }
-}
\ No newline at end of file
+
+    private static EdnSyntaxException duplicate(Object o) {
+        return new EdnSyntaxException(
+          "Set contains duplicate element '" + o + "'.");
+    }
+}
@@ -6,8 +6,16 @@ import java.util.Collections;
 
 final class DefaultVectorFactory implements CollectionBuilder.Factory {
     public CollectionBuilder builder() {
+        return builder(new ArrayList<Object>());
+    }
+
+    @Override
+    public CollectionBuilder builder(int expectedSize) {
+        return builder(new ArrayList<Object>(expectedSize));
+    }
+
+    private static CollectionBuilder builder(final ArrayList<Object> list) {
         return new CollectionBuilder() {
-            ArrayList<Object> list = new ArrayList<Object>();
             public void add(Object o) {
                 list.add(o);
             }
@@ -16,4 +24,4 @@ final class DefaultVectorFactory implements CollectionBuilder.Factory {
             }
         };
     }
-}
\ No newline at end of file
+}
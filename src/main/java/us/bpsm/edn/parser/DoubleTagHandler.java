@@ -0,0 +1,34 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import us.bpsm.edn.Tag;
+
+/**
+ * A {@link TagHandler} for {@link Parser.Config#DOUBLE_TAG} which
+ * receives floating point literals as primitive doubles. When one is
+ * installed for {@code DOUBLE_TAG}, the parser calls
+ * {@link #transformDouble(double)} directly, so no {@link Double} is
+ * created unless the handler creates one.
+ */
+public interface DoubleTagHandler extends TagHandler {
+
+    /**
+     * Consume the floating point literal {@code value}, returning the
+     * value to replace it.
+     *
+     * @param value a floating point literal not marked with a trailing
+     *        'M'.
+     *
+     * @return a value to be used by the parser in place of
+     *         {@code value}.
+     */
+    Object transformDouble(double value);
+
+    /**
+     * Call {@link #transformDouble(double)} with the double value of
+     * {@code originalValue}, which must be a {@link Number}.
+     */
+    default Object transform(Tag tag, Object originalValue) {
+        return transformDouble(((Number) originalValue).doubleValue());
+    }
+}
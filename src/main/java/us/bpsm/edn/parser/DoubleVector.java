@@ -0,0 +1,76 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable vector of doubles, backed by a {@code double[]}. The
+ * factory returned by {@link Parsers#primitiveVectorFactory()} builds
+ * one for each vector literal whose elements are all {@link Double}s.
+ *
+ * <p>As a {@link java.util.List} it behaves like any other vector of
+ * {@code Double}s; {@link #getDouble(int)} and {@link #toDoubleArray()}
+ * give access to the elements without boxing.
+ */
+public final class DoubleVector extends AbstractList<Double>
+  implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final double[] values;
+
+    DoubleVector(double[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Double get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Return the element at {@code index}.
+     *
+     * @param index of the element, in {@code [0, size())}.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range.
+     */
+    public double getDouble(int index) {
+        return values[index];
+    }
+
+    /**
+     * Return a new array containing the elements of this vector.
+     *
+     * @return a new array, never null.
+     */
+    public double[] toDoubleArray() {
+        return values.clone();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (double v : values) {
+            long bits = Double.doubleToLongBits(v);
+            h = 31 * h + (int) (bits ^ (bits >>> 32));
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof DoubleVector) {
+            return Arrays.equals(values, ((DoubleVector) o).values);
+        }
+        return super.equals(o);
+    }
+}
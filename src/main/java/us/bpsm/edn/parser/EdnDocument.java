@@ -0,0 +1,353 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.util.Arrays;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Keyword;
+
+/**
+ * An EdnDocument is a structural index of a single edn value, which
+ * allows its parts to be found without building the value. Instances
+ * are constructed using
+ * {@link Parsers#newDocument(Parser.Config, Parseable)}.
+ *
+ * <p>Building a document skips over the value once, in the way
+ * {@code #_} skips a value, and records where each of its lists,
+ * vectors, sets and maps begins and ends, and where each element of
+ * these begins and ends. Every such part of the value is a
+ * <em>node</em>, identified by an {@code int}. The value itself is
+ * node {@link #root()}. Navigating from node to node with
+ * {@link #child(int, int)}, {@link #next(int)} and
+ * {@link #get(int, Object)} allocates nothing, except where noted. A
+ * node becomes a Java object only when asked for with
+ * {@link #value(int)}, at which point it is parsed by a Parser
+ * configured like this document.
+ *
+ * <pre>
+ * {@code EdnDocument d = Parsers.newDocument(cfg,
+ *   Parsers.newParseable("{:user {:id 7, :roles [:a :b]}}"));
+ * int roles = d.get(d.get(d.root(), Keyword.newKeyword("user")),
+ *   Keyword.newKeyword("roles"));
+ * d.count(roles)            => 2
+ * d.value(d.child(roles, 1)) => :b}
+ * </pre>
+ *
+ * <p>Tagged values, and namespaced maps ({@code #:ns{...}}), are
+ * single nodes of kind {@link Kind#VALUE}: they can only be used
+ * through {@link #value(int)} and {@link #text(int)}. Only the
+ * structure of the value is checked while building the document; a
+ * malformed atom is reported as an {@link EdnSyntaxException} when it
+ * is parsed by {@code value}, or compared with a key by {@code get}.
+ *
+ * <p>A document retains its input, which must not be modified.
+ * EdnDocuments are immutable and thread-safe.
+ */
+public final class EdnDocument {
+
+    /** The kinds of node. */
+    public enum Kind {
+        /** An edn list. */
+        LIST,
+        /** An edn vector. */
+        VECTOR,
+        /** An edn set. */
+        SET,
+        /** An edn map, whose elements are its keys and values in turn. */
+        MAP,
+        /** Any other value, including tagged values. */
+        VALUE
+    }
+
+    private final Parser parser;
+    private final IndexedParseable input;
+
+    /**
+     * One entry for each node, in the order in which they begin, and
+     * one entry for the closing bracket of each collection, following
+     * its elements. The high 32 bits of an entry are the index of the
+     * unit at which the node or closing bracket begins. The low 32 bits
+     * are the index of the unit following an atomic node, or the index
+     * of the entry for the closing bracket of a collection, or the
+     * index of the entry for the collection a closing bracket closes.
+     */
+    private final long[] tape;
+
+    private EdnDocument(Parser parser, IndexedParseable input,
+                        long[] tape) {
+        this.parser = parser;
+        this.input = input;
+        this.tape = tape;
+    }
+
+    /**
+     * Index the next value of {@code ip}, leaving it positioned after
+     * that value. Return null if there is none.
+     */
+    static EdnDocument read(Parser parser, ScannerImpl scanner,
+                            IndexedParseable ip) {
+        long[] tape = new long[16];
+        int n = 0;
+        int[] open = new int[8];
+        int depth = 0;
+        do {
+            ScannerImpl.skipWhitespaceAndComments(ip);
+            final int start = ip.pos;
+            if (start >= ip.limit) {
+                if (depth > 0) {
+                    throw new EdnSyntaxException(
+                      "Unexpected end of input in collection");
+                }
+                return null;
+            }
+            if (n == tape.length) {
+                tape = Arrays.copyOf(tape, n * 2);
+            }
+            int u = ip.unitAt(start);
+            int u2 = start + 1 < ip.limit ? ip.unitAt(start + 1) : -1;
+            if (u == '(' || u == '[' || u == '{' || u == '#' && u2 == '{') {
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                }
+                ip.pos = start + (u == '#' ? 2 : 1);
+                open[depth++] = n;
+                tape[n++] = (long) start << 32;
+            } else if (u == ')' || u == ']' || u == '}') {
+                if (depth == 0 || closer(ip, open[depth - 1], tape) != u) {
+                    throw new EdnSyntaxException(
+                      "Unexpected '" + (char) u + "'");
+                }
+                ip.pos = start + 1;
+                int c = open[--depth];
+                tape[c] |= n;
+                tape[n++] = (long) start << 32 | c;
+            } else if (u == '#' && u2 == '_') {
+                ip.pos = start + 2;
+                Object t = scanner.skipValue(ip);
+                if (t != null) {
+                    throw new EdnSyntaxException(
+                      "Expected a value following #_, but found " + t);
+                }
+            } else {
+                scanner.skipValue(ip);
+                tape[n++] = (long) start << 32 | ip.pos;
+            }
+        } while (depth > 0 || n == 0);
+        return new EdnDocument(parser, ip, Arrays.copyOf(tape, n));
+    }
+
+    /** The closing bracket of the collection at entry {@code c}. */
+    private static int closer(IndexedParseable ip, int c, long[] tape) {
+        switch (ip.unitAt((int) (tape[c] >>> 32))) {
+        case '(':
+            return ')';
+        case '[':
+            return ']';
+        default:
+            return '}';
+        }
+    }
+
+    /**
+     * Return the node of the value this document indexes.
+     *
+     * @return a node.
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * Return the kind of {@code node}.
+     *
+     * @param node a node of this document.
+     * @return a Kind, never null.
+     */
+    public Kind kind(int node) {
+        int start = start(node);
+        switch (input.unitAt(start)) {
+        case '(':
+            return Kind.LIST;
+        case '[':
+            return Kind.VECTOR;
+        case '{':
+            return Kind.MAP;
+        case '#':
+            if (start + 1 < input.limit && input.unitAt(start + 1) == '{') {
+                return Kind.SET;
+            }
+            return Kind.VALUE;
+        default:
+            return Kind.VALUE;
+        }
+    }
+
+    /**
+     * Return the number of elements of the collection {@code node}.
+     * The elements of a map are its keys and values, so this is twice
+     * the number of its entries. This takes time proportional to the
+     * number of elements, but doesn't examine them.
+     *
+     * @param node a node of this document.
+     * @return the number of elements, or 0 if {@code node} is not a
+     *         collection.
+     */
+    public int count(int node) {
+        int n = 0;
+        for (int e = child(node, 0); e >= 0; e = next(e)) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Return the {@code i}-th element of the collection {@code node},
+     * counting from 0. This takes time proportional to {@code i}.
+     *
+     * @param node a node of this document.
+     * @param i the index of the element.
+     * @return a node, or -1 if {@code node} is not a collection or has
+     *         no such element.
+     */
+    public int child(int node, int i) {
+        if (i < 0 || !isCollection(node)) {
+            return -1;
+        }
+        int e = node + 1;
+        while (!isCloser(e)) {
+            if (i-- == 0) {
+                return e;
+            }
+            e = after(e);
+        }
+        return -1;
+    }
+
+    /**
+     * Return the element following {@code node} in the collection
+     * containing it.
+     *
+     * @param node a node of this document.
+     * @return a node, or -1 if {@code node} is the last element of its
+     *         collection, or is the root.
+     */
+    public int next(int node) {
+        int e = after(node);
+        return e < tape.length && !isCloser(e) ? e : -1;
+    }
+
+    /**
+     * Return the value which the map {@code node} associates with
+     * {@code key}. Keys which are keywords, and strings without
+     * escapes, are compared with the input in place, at the cost of
+     * one String for a keyword's text. Other keys are compared with
+     * each key of the map in turn as parsed by {@link #value(int)}.
+     *
+     * @param node a node of this document.
+     * @param key the key to look up.
+     * @return a node, or -1 if {@code node} is not a map or does not
+     *         contain {@code key}.
+     */
+    public int get(int node, Object key) {
+        if (kind(node) != Kind.MAP) {
+            return -1;
+        }
+        String text = key instanceof Keyword ? key.toString() : null;
+        int k = node + 1;
+        while (!isCloser(k)) {
+            int v = after(k);
+            if (isCloser(v)) {
+                return -1;
+            }
+            if (keyMatches(k, key, text)) {
+                return v;
+            }
+            k = after(v);
+        }
+        return -1;
+    }
+
+    /**
+     * Return {@code node}, parsed as {@link Parser#nextValue(Parseable)}
+     * would parse it.
+     *
+     * @param node a node of this document.
+     * @return the value, which may be null.
+     */
+    public Object value(int node) {
+        return parser.nextValue(input.slice(start(node), end(node)));
+    }
+
+    /**
+     * Return the text of {@code node} as it appears in the input,
+     * including any comments and whitespace within it.
+     *
+     * @param node a node of this document.
+     * @return a String, never null.
+     */
+    public String text(int node) {
+        int start = start(node);
+        int end = end(node);
+        // Decode from a slice, as value() parses one: decoding may use
+        // per-instance scratch space, and input is shared.
+        return input.slice(start, end).text(start, end);
+    }
+
+    private int start(int node) {
+        return (int) (tape[node] >>> 32);
+    }
+
+    private int low(int entry) {
+        return (int) tape[entry];
+    }
+
+    private boolean isCollection(int node) {
+        return kind(node) != Kind.VALUE;
+    }
+
+    private boolean isCloser(int entry) {
+        int u = input.unitAt(start(entry));
+        return u == ')' || u == ']' || u == '}';
+    }
+
+    /** The entry following {@code node} and all of its elements. */
+    private int after(int node) {
+        return isCollection(node) ? low(node) + 1 : node + 1;
+    }
+
+    /** The index of the unit following {@code node}. */
+    private int end(int node) {
+        return isCollection(node) ? start(low(node)) + 1 : low(node);
+    }
+
+    private boolean keyMatches(int k, Object key, String keywordText) {
+        int start = start(k);
+        int end = end(k);
+        if (keywordText != null) {
+            return end - start == keywordText.length()
+              && unitsMatch(keywordText, start);
+        }
+        if (key instanceof String && input.unitAt(start) == '"') {
+            String s = (String) key;
+            boolean plain = true;
+            for (int i = start + 1; i < end - 1 && plain; i++) {
+                int u = input.unitAt(i);
+                plain = u != '\\' && u < 0x80;
+            }
+            if (plain) {
+                return end - start - 2 == s.length()
+                  && unitsMatch(s, start + 1);
+            }
+        }
+        return key == null ? value(k) == null : key.equals(value(k));
+    }
+
+    private boolean unitsMatch(String s, int from) {
+        for (int j = 0; j < s.length(); j++) {
+            if (s.charAt(j) != input.unitAt(from + j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
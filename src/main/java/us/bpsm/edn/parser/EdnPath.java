@@ -0,0 +1,143 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import us.bpsm.edn.EdnSyntaxException;
+
+/**
+ * An EdnPath selects a single value nested inside a larger edn value,
+ * like Clojure's {@code get-in}. Each key of the path is either a map
+ * key or, for vectors and lists, an integer index.
+ *
+ * <pre>
+ * {@code EdnPath p = EdnPath.compile("[:event :user/id]");
+ * p.select(parser, Parsers.newParseable("{:event {:user/id 7}, ...}"))
+ *   => 7}
+ * </pre>
+ *
+ * <p>When used with a Parser from {@link Parsers#newParser(Parser.Config)},
+ * only the selected value and the keys of the maps along the path are
+ * built. Everything else is skipped in the way {@code #_} skips a value,
+ * without building collections or calling tag handlers. Sets, namespaced
+ * maps and tagged values along the path are the exception: they are
+ * parsed in full and then searched.
+ *
+ * <p>EdnPaths are immutable and thread-safe.
+ */
+public final class EdnPath {
+
+    private final Object[] keys;
+
+    private EdnPath(Object[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Compile the path given as an edn vector of keys, for example
+     * {@code "[:items 0 :id]"}.
+     *
+     * @param path an edn vector; must not be null.
+     * @return an EdnPath, never null.
+     *
+     * @throws EdnSyntaxException if {@code path} is not valid edn.
+     * @throws IllegalArgumentException if {@code path} is not a vector.
+     */
+    public static EdnPath compile(String path) {
+        Object v = Parsers.newParser(Parsers.defaultConfiguration())
+          .nextValue(Parsers.newParseable(path));
+        if (!(v instanceof List && v instanceof RandomAccess)) {
+            throw new IllegalArgumentException(
+              "Expected an edn vector of keys, but found: " + path);
+        }
+        return new EdnPath(((List<?>) v).toArray());
+    }
+
+    /**
+     * Return a path made of the given keys.
+     *
+     * @param keys the keys, which may include null.
+     * @return an EdnPath, never null.
+     */
+    public static EdnPath of(Object... keys) {
+        return new EdnPath(keys.clone());
+    }
+
+    /**
+     * Read the next value from {@code pbr} and return the part of it
+     * selected by this path, or null if there is no such part.
+     *
+     * @param parser the parser to use, must not be null.
+     * @param pbr the input, must not be null.
+     * @return the selected value, null, or {@link Parser#END_OF_INPUT} if
+     *         {@code pbr} contains no further values.
+     */
+    public Object select(Parser parser, Parseable pbr) {
+        return select(parser, pbr, null);
+    }
+
+    /**
+     * Read the next value from {@code pbr} and return the part of it
+     * selected by this path, or {@code notFound} if there is no such
+     * part. {@code pbr} is left positioned after the value, whether or
+     * not the path was found in it.
+     *
+     * @param parser the parser to use, must not be null.
+     * @param pbr the input, must not be null.
+     * @param notFound the result when the path selects nothing.
+     * @return the selected value, {@code notFound}, or
+     *         {@link Parser#END_OF_INPUT} if {@code pbr} contains no
+     *         further values.
+     */
+    public Object select(Parser parser, Parseable pbr, Object notFound) {
+        if (parser instanceof ParserImpl) {
+            return ((ParserImpl) parser).select(pbr, keys, notFound);
+        }
+        Object v = parser.nextValue(pbr);
+        return v == Parser.END_OF_INPUT ? v : walk(v, keys, 0, notFound);
+    }
+
+    /**
+     * Follow {@code keys[i..]} through an already parsed value.
+     */
+    static Object walk(Object v, Object[] keys, int i, Object notFound) {
+        for (; i < keys.length; i++) {
+            Object k = keys[i];
+            if (v instanceof Map) {
+                Map<?, ?> m = (Map<?, ?>) v;
+                if (!m.containsKey(k)) {
+                    return notFound;
+                }
+                v = m.get(k);
+            } else if (v instanceof List && k instanceof Long) {
+                List<?> l = (List<?>) v;
+                long n = (Long) k;
+                if (n < 0 || n >= l.size()) {
+                    return notFound;
+                }
+                v = l.get((int) n);
+            } else {
+                return notFound;
+            }
+        }
+        return v;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EdnPath && Arrays.equals(keys, ((EdnPath) o).keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(keys);
+    }
+
+    @Override
+    public String toString() {
+        return "EdnPath" + Arrays.toString(keys);
+    }
+}
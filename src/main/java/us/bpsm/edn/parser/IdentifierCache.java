@@ -0,0 +1,124 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static us.bpsm.edn.util.CharClassify.symbolConstituent;
+
+import us.bpsm.edn.Named;
+
+/**
+ * A small direct-mapped cache of the identifiers (keywords, symbols or
+ * tags) a scanner has read from an {@link IndexedParseable}, indexed by
+ * a hash of the identifier's characters as they appear in the input. A
+ * hit returns the earlier instance without building a String, a Symbol
+ * or anything else, and a miss allocates nothing either.
+ *
+ * <p>Scanners are shared between threads, and so is this cache. The
+ * identifiers are immutable, so reading and replacing slots without
+ * synchronization is safe: a racing thread sees some identifier or
+ * null, and a lost update just costs a later miss. A candidate is always
+ * compared in full with the input. Only ASCII identifiers are cached,
+ * and only once they have been read successfully, so a hit never skips
+ * any validation the text would otherwise have received.
+ *
+ * @param <T> the kind of identifier cached.
+ */
+final class IdentifierCache<T extends Named> {
+
+    /** Must be a power of two. */
+    static final int SIZE = 512;
+    private static final int SHIFT = 32 - Integer.numberOfTrailingZeros(SIZE);
+
+    private final Object[] slots = new Object[SIZE];
+
+    /**
+     * Return the cached identifier whose text (without any leading ':'
+     * or '#') occupies the units from {@code start} to the end of the
+     * symbol constituents there, setting {@code ip.pos} past it. Return
+     * null, leaving {@code ip.pos} unchanged, if there is none.
+     */
+    T lookup(IndexedParseable ip, int start) {
+        final int end = end(ip, start);
+        int h = hash(ip, start, end);
+        if (end == start || h < 0) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        T t = (T) slots[index(h)];
+        if (t == null || !matches(t, ip, start, end)) {
+            return null;
+        }
+        ip.pos = end;
+        return t;
+    }
+
+    /**
+     * Remember {@code t}, which was read from the units
+     * {@code [start, end)} of {@code ip}.
+     */
+    void put(IndexedParseable ip, int start, int end, T t) {
+        int h = hash(ip, start, end);
+        if (h >= 0) {
+            slots[index(h)] = t;
+        }
+    }
+
+    /** The end of the run of symbol constituents beginning at start. */
+    private static int end(IndexedParseable ip, int start) {
+        final int limit = ip.limit;
+        int i = start;
+        while (i < limit && symbolConstituent((char) ip.unitAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * A non-negative hash of the units {@code [start, end)}, or -1 if
+     * any of them is not ASCII.
+     */
+    private static int hash(IndexedParseable ip, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            int u = ip.unitAt(i);
+            if (u >= 0x80) {
+                return -1;
+            }
+            h = 31 * h + u;
+        }
+        return h & Integer.MAX_VALUE;
+    }
+
+    /** Fibonacci hashing, which spreads similar names further apart. */
+    private static int index(int h) {
+        return (h * 0x9E3779B9) >>> SHIFT;
+    }
+
+    /** Does {@code [start, end)} spell {@code prefix/name}, or {@code name}? */
+    private static boolean matches(Named n, IndexedParseable ip,
+                                   int start, int end) {
+        String prefix = n.getPrefix();
+        String name = n.getName();
+        int i = start;
+        if (!prefix.isEmpty()) {
+            if (prefix.length() + 1 + name.length() != end - start
+                || !regionMatches(prefix, ip, i)
+                || ip.unitAt(i + prefix.length()) != '/') {
+                return false;
+            }
+            i += prefix.length() + 1;
+        } else if (name.length() != end - start) {
+            return false;
+        }
+        return regionMatches(name, ip, i);
+    }
+
+    private static boolean regionMatches(String s, IndexedParseable ip,
+                                         int from) {
+        for (int j = 0; j < s.length(); j++) {
+            if (s.charAt(j) != ip.unitAt(from + j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+/**
+ * A Parseable whose entire input is available in memory and can be
+ * addressed by index. {@link ScannerImpl} recognizes instances of this
+ * class and scans symbols, numbers, string literals and whitespace by
+ * index arithmetic rather than by calling {@link #read()} and
+ * {@link #unread(int)} once per character.
+ *
+ * <p>The input is a sequence of <em>units</em> between {@code pos}
+ * (inclusive) and {@code limit} (exclusive). All characters with
+ * syntactic meaning in edn are ASCII, and each ASCII character occupies
+ * exactly one unit, whose value is that character.
+ */
+abstract class IndexedParseable implements Parseable {
+
+    /** Index of the next unit to be read. */
+    int pos;
+
+    /** Index one past the last unit of input. */
+    final int limit;
+
+    /**
+     * Buffer reused by {@link ScannerImpl} to assemble string literals
+     * containing escapes. A Parseable is read by one thread at a time,
+     * so unlike the scanner, which may be shared, it can own one.
+     */
+    StringBuilder scratch;
+
+    IndexedParseable(int pos, int limit) {
+        this.pos = pos;
+        this.limit = limit;
+    }
+
+    /**
+     * Return the unit at index {@code i}, which must lie in
+     * {@code [0, limit)}. This does not change {@link #pos}.
+     *
+     * @param i index of the unit.
+     * @return the unit as a non-negative integer.
+     */
+    abstract int unitAt(int i);
+
+    /**
+     * Return the text found in the units {@code [from, to)}.
+     *
+     * @param from index of the first unit.
+     * @param to index one past the last unit.
+     * @return a String, never null.
+     */
+    abstract String text(int from, int to);
+
+    /**
+     * Append the text found in the units {@code [from, to)} to
+     * {@code b}.
+     *
+     * @param b the builder to append to.
+     * @param from index of the first unit.
+     * @param to index one past the last unit.
+     */
+    abstract void appendText(StringBuilder b, int from, int to);
+
+    /**
+     * Return a new IndexedParseable over the units {@code [from, to)} of
+     * the same input. The input itself is shared, not copied.
+     *
+     * @param from index of the first unit, which must begin a character.
+     * @param to index one past the last unit, which must end a character.
+     * @return a new IndexedParseable, never null.
+     */
+    abstract IndexedParseable slice(int from, int to);
+
+    public void unread(int ch) {
+        if (ch != END_OF_INPUT) {
+            pos--;
+        }
+    }
+
+    public void close() {
+    }
+}
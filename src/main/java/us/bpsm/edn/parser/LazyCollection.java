@@ -0,0 +1,205 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * The elements of a collection which {@link ParserImpl} has skipped
+ * over, to be parsed when first needed. See
+ * {@link Parser.Config#nestedCollectionsAreLazy()}.
+ *
+ * <p>Values read from a Parser may be shared between threads. Two
+ * threads first using the same collection at the same time may both
+ * parse it, which is harmless: the results are equal, and whichever is
+ * stored last is kept. The value so built is published through a
+ * volatile field before the input is dropped, so a thread finding the
+ * input gone also finds the value.
+ */
+final class LazyCollection {
+    private final ParserImpl parser;
+    private final CollectionBuilder.Factory factory;
+    private volatile IndexedParseable input;
+    private final int from;
+    private final int to;
+    private volatile Object value;
+
+    LazyCollection(ParserImpl parser, CollectionBuilder.Factory factory,
+                   IndexedParseable input, int from, int to) {
+        this.parser = parser;
+        this.factory = factory;
+        this.input = input;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Return the collection, parsing it on first use. The input is not
+     * retained once it has been parsed.
+     */
+    Object get() {
+        Object v = value;
+        if (v == null) {
+            IndexedParseable in = input;
+            if (in == null) {
+                // Another thread parsed it in the meantime.
+                return value;
+            }
+            v = parser.parseLazily(factory, Token.END_OF_INPUT,
+              in.slice(from, to));
+            value = v;
+            input = null;
+        }
+        return v;
+    }
+
+    static class LazyList extends AbstractList<Object>
+      implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final transient LazyCollection lazy;
+
+        LazyList(LazyCollection lazy) {
+            this.lazy = lazy;
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<Object> list() {
+            return (List<Object>) lazy.get();
+        }
+
+        @Override
+        public Object get(int index) {
+            return list().get(index);
+        }
+
+        @Override
+        public int size() {
+            return list().size();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return list().iterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return list().contains(o);
+        }
+
+        /**
+         * Serialize the list, rather than the input it was read from. Not
+         * private, so that it applies to LazyVector too.
+         */
+        final Object writeReplace() {
+            return list();
+        }
+    }
+
+    static final class LazyVector extends LazyList implements RandomAccess {
+        private static final long serialVersionUID = 1L;
+
+        LazyVector(LazyCollection lazy) {
+            super(lazy);
+        }
+    }
+
+    static final class LazySet extends AbstractSet<Object>
+      implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final transient LazyCollection lazy;
+
+        LazySet(LazyCollection lazy) {
+            this.lazy = lazy;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Set<Object> set() {
+            return (Set<Object>) lazy.get();
+        }
+
+        @Override
+        public int size() {
+            return set().size();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return set().iterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return set().contains(o);
+        }
+
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            return set().containsAll(c);
+        }
+
+        private Object writeReplace() {
+            return set();
+        }
+    }
+
+    static final class LazyMap extends AbstractMap<Object, Object>
+      implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final transient LazyCollection lazy;
+
+        LazyMap(LazyCollection lazy) {
+            this.lazy = lazy;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<Object, Object> map() {
+            return (Map<Object, Object>) lazy.get();
+        }
+
+        @Override
+        public Set<Map.Entry<Object, Object>> entrySet() {
+            return map().entrySet();
+        }
+
+        @Override
+        public Object get(Object key) {
+            return map().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map().size();
+        }
+
+        @Override
+        public Set<Object> keySet() {
+            return map().keySet();
+        }
+
+        @Override
+        public Collection<Object> values() {
+            return map().values();
+        }
+
+        private Object writeReplace() {
+            return map();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import us.bpsm.edn.Tag;
+
+/**
+ * A {@link TagHandler} for {@link Parser.Config#LONG_TAG} which receives
+ * integer literals as primitive longs. When one is installed for
+ * {@code LONG_TAG}, the parser calls {@link #transformLong(long)}
+ * directly, so no {@link Long} is created unless the handler creates
+ * one.
+ */
+public interface LongTagHandler extends TagHandler {
+
+    /**
+     * Consume the integer literal {@code value}, returning the value to
+     * replace it.
+     *
+     * @param value an integer literal in the range of a long and not
+     *        marked with a trailing 'N'.
+     *
+     * @return a value to be used by the parser in place of
+     *         {@code value}.
+     */
+    Object transformLong(long value);
+
+    /**
+     * Call {@link #transformLong(long)} with the long value of
+     * {@code originalValue}, which must be a {@link Number}.
+     */
+    default Object transform(Tag tag, Object originalValue) {
+        return transformLong(((Number) originalValue).longValue());
+    }
+}
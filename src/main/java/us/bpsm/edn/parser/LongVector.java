@@ -0,0 +1,75 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable vector of longs, backed by a {@code long[]}. The
+ * factory returned by {@link Parsers#primitiveVectorFactory()} builds
+ * one for each vector literal whose elements are all {@link Long}s.
+ *
+ * <p>As a {@link java.util.List} it behaves like any other vector of
+ * {@code Long}s; {@link #getLong(int)} and {@link #toLongArray()} give
+ * access to the elements without boxing.
+ */
+public final class LongVector extends AbstractList<Long>
+  implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] values;
+
+    LongVector(long[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Long get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Return the element at {@code index}.
+     *
+     * @param index of the element, in {@code [0, size())}.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range.
+     */
+    public long getLong(int index) {
+        return values[index];
+    }
+
+    /**
+     * Return a new array containing the elements of this vector.
+     *
+     * @return a new array, never null.
+     */
+    public long[] toLongArray() {
+        return values.clone();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (long v : values) {
+            h = 31 * h + (int) (v ^ (v >>> 32));
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LongVector) {
+            return Arrays.equals(values, ((LongVector) o).values);
+        }
+        return super.equals(o);
+    }
+}
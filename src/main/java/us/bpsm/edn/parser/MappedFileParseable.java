@@ -0,0 +1,118 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parses a UTF-8 encoded file by mapping it into memory.
+ *
+ * <p>A file which fits into a single mapping is parsed by a
+ * {@link Utf8Parseable} over that mapping, and so enjoys bulk scanning.
+ * Larger files are mapped one chunk at a time, as they are read. Each
+ * chunk ends on a character boundary, but tokens may still straddle two
+ * chunks, so chunked files are read a character at a time.
+ */
+final class MappedFileParseable implements Parseable {
+
+    /** The largest region a single MappedByteBuffer can address. */
+    static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long chunkSize;
+    /** File offset of the first byte not yet mapped. */
+    private long mapped;
+    private Utf8Parseable chunk;
+    private boolean closed = false;
+
+    private MappedFileParseable(FileChannel channel, long size,
+                                long chunkSize) throws IOException {
+        this.channel = channel;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunk = mapNextChunk();
+    }
+
+    /**
+     * Open {@code path} for parsing, mapping it in chunks of at most
+     * {@code chunkSize} bytes.
+     */
+    static Parseable open(Path path, long chunkSize) throws IOException {
+        if (chunkSize < 4 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException(
+                "chunkSize must lie in [4, " + MAX_CHUNK_SIZE + "]");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        boolean keepOpen = false;
+        try {
+            long size = channel.size();
+            if (size <= chunkSize) {
+                // A mapping remains valid after its channel is closed.
+                MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return Utf8Parseable.newInstance(buffer);
+            }
+            keepOpen = true;
+            return new MappedFileParseable(channel, size, chunkSize);
+        } finally {
+            if (!keepOpen) {
+                channel.close();
+            }
+        }
+    }
+
+    public int read() throws IOException {
+        if (closed) {
+            throw new IOException("Can not read from closed Parseable");
+        }
+        int ch = chunk.read();
+        while (ch == END_OF_INPUT && mapped < size) {
+            chunk = mapNextChunk();
+            ch = chunk.read();
+        }
+        return ch;
+    }
+
+    public void unread(int ch) {
+        chunk.unread(ch);
+    }
+
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    private Utf8Parseable mapNextChunk() throws IOException {
+        long start = mapped;
+        int length = (int) Math.min(chunkSize, size - start);
+        MappedByteBuffer buffer =
+            channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        if (start + length < size) {
+            length = characterBoundary(buffer, length);
+            ((Buffer) buffer).limit(length);
+        }
+        mapped = start + length;
+        return Utf8Parseable.newInstance(buffer);
+    }
+
+    /**
+     * Return the largest index {@code <= length} in {@code buffer} that
+     * does not split a UTF-8 encoded character.
+     */
+    private static int characterBoundary(MappedByteBuffer buffer,
+                                         int length) {
+        int lead = length - 1;
+        while (lead > 0 && length - lead < 4
+               && (buffer.get(lead) & 0xC0) == 0x80) {
+            lead--;
+        }
+        int b = buffer.get(lead) & 0xFF;
+        int n = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return lead + n <= length ? length : lead;
+    }
+}
@@ -2,6 +2,9 @@
 package us.bpsm.edn.parser;
 
 import static us.bpsm.edn.Tag.newTag;
+
+import java.util.concurrent.ForkJoinPool;
+
 import us.bpsm.edn.EdnIOException;
 import us.bpsm.edn.EdnSyntaxException;
 import us.bpsm.edn.Tag;
@@ -84,6 +87,12 @@ public interface Parser {
      *     uuid literal</a>.</li>
      *
      * </ul>
+     *
+     * <p>A value following {@code #_} is skipped without being built.
+     * Only its structure is checked: its brackets must match, and its
+     * string and character literals must be terminated. A malformed
+     * number or symbol inside a discarded value is not reported.
+     *
      * @param pbr parse the next value from this Parseable. Must not be null.
      *
      *
@@ -159,7 +168,8 @@ public interface Parser {
          * customize the representation of floating point
          * literals. The result of calling this handler with the
          * parsed {@link Double} will be used in the value returned by
-         * the parser.
+         * the parser. A {@link DoubleTagHandler} receives the literal as
+         * a primitive double instead.
          */
         public static final Tag DOUBLE_TAG = newTag(
                 "us.bpsm.edn-java", "Double");
@@ -187,7 +197,8 @@ public interface Parser {
          * customize the representation of long integer literals. The
          * result of calling this handler with the parsed {@link
          * Long} will be used in the value returned by the
-         * parser.
+         * parser. A {@link LongTagHandler} receives the literal as a
+         * primitive long instead.
          */
         public static final Tag LONG_TAG = newTag(
                 "us.bpsm.edn-java", "Long");
@@ -268,6 +279,126 @@ public interface Parser {
             return true;
         }
 
+        /**
+         * The pool used to parse large top-level collections in
+         * parallel, or null to parse everything on the calling thread.
+         * The default is null.
+         * <p>
+         * When a pool is given, and a top-level list, vector, set or map
+         * is read from a Parseable created from a String, an array, a
+         * {@link java.nio.ByteBuffer} or a file of up to 2 GiB, its
+         * elements are split into contiguous chunks which are parsed as
+         * tasks in this pool. The parsed elements are then added, in
+         * their original order, to a single {@link CollectionBuilder}
+         * from the configured factory. Small collections are always
+         * parsed on the calling thread.
+         * <p>
+         * TagHandlers and nested CollectionBuilder.Factories are called
+         * from the pool's threads, and must be thread-safe.
+         *
+         * @return a ForkJoinPool or null.
+         */
+        public default ForkJoinPool getParallelCollectionPool() {
+            return null;
+        }
+
+        /**
+         * When true, a top-level list, vector, set or map read from a
+         * Parseable created from a String, an array, a {@link
+         * java.nio.ByteBuffer} or a file of up to 2 GiB is first skipped
+         * over to count its elements. Its builder is then obtained from
+         * {@link CollectionBuilder.Factory#builder(int)}, so that it can
+         * allocate its storage once. The default is false.
+         * <p>
+         * Counting costs an extra pass over the collection's text, and
+         * only pays off for large collections. Nested collections are
+         * not counted. Collections parsed in parallel (see {@link
+         * #getParallelCollectionPool()}) are always presized, as their
+         * elements are counted anyway.
+         *
+         * @return true iff top-level collections should be presized.
+         */
+        public default boolean topLevelCollectionsArePresized() {
+            return false;
+        }
+
+        /**
+         * When true, each parser remembers the last few hundred
+         * symbols and tags it has read from a Parseable created from a
+         * String, an array, a {@link java.nio.ByteBuffer} or a file, and
+         * returns the same instance when the same characters occur
+         * again. Repeated symbols and tags then cost no allocation. The
+         * default is false.
+         * <p>
+         * The cache is bounded, so which instance an identifier is read
+         * as can't be relied upon; only keywords are guaranteed to be
+         * identical whenever they are equal. Keywords are always cached
+         * in this way, since they are interned regardless.
+         *
+         * @return true iff identifiers should be cached.
+         */
+        public default boolean identifiersAreCached() {
+            return false;
+        }
+
+        /**
+         * When true, only the outermost collection of each value read
+         * from a Parseable created from a String, an array, a {@link
+         * java.nio.ByteBuffer} or a file is built as it is read. The
+         * collections nested in it are only skipped over, and stand
+         * for themselves as a {@link java.util.List}, {@link
+         * java.util.Set} or {@link java.util.Map} which parses its
+         * part of the input the first time it is used. The default is
+         * false.
+         * <p>
+         * This pays off when only a few parts of large values are
+         * used: the cost of reading a value becomes proportional to
+         * the parts used rather than to its size. In return, the input
+         * is retained until all collections read from it have been
+         * used or collected, and must not be modified in the meantime;
+         * syntax errors within nested collections other than
+         * unbalanced brackets and unterminated literals are only
+         * reported, as an {@link us.bpsm.edn.EdnSyntaxException}, when
+         * that collection is first used; and the configured {@link
+         * CollectionBuilder.Factory}s must build Lists, Sets and Maps,
+         * as the defaults do. Collections parsed lazily are not
+         * presized or parsed in parallel.
+         *
+         * @return true iff nested collections should be parsed lazily.
+         */
+        public default boolean nestedCollectionsAreLazy() {
+            return false;
+        }
+
+        /**
+         * The number of distinct string literals each parser remembers
+         * in order to return one canonical String for all equal
+         * literals it reads, or 0 if it should return a fresh String
+         * for each literal, as it does by default.
+         * <p>
+         * This helps when the same short strings (status codes, names
+         * of regions, and the like) recur throughout large documents
+         * whose values are kept around: all occurrences share one
+         * String. Strings that recur often are kept in preference to
+         * those that occur once. Strings longer than {@link
+         * #maxCachedStringLength()} are never cached.
+         *
+         * @return the capacity of the string cache, or 0.
+         */
+        public default int stringCacheSize() {
+            return 0;
+        }
+
+        /**
+         * The length of the longest string literal cached. Only
+         * meaningful if {@link #stringCacheSize()} is positive.
+         *
+         * @return the length of the longest String cached.
+         */
+        public default int maxCachedStringLength() {
+            return 0;
+        }
+
         /**
          * This Builder is used to create a {@link Parser.Config}.
          * Fresh Builder instances are provided by
@@ -361,6 +492,83 @@ public interface Parser {
               boolean acceptUnicodeEscapes
             );
 
+            /**
+             * Parse large top-level collections in parallel using
+             * {@code pool}. By default, parsing is sequential.
+             * See {@link Config#getParallelCollectionPool()}.
+             *
+             * @param pool the pool to use, or null to parse sequentially.
+             *
+             * @return this Builder (for method chaining).
+             *
+             * @throws IllegalStateException if {@code build()} was
+             *         previously called on this Builder.
+             */
+            public Builder parallelizeTopLevelCollections(ForkJoinPool pool);
+
+            /**
+             * Count the elements of top-level collections before
+             * building them. By default, collections are not counted.
+             * See {@link Config#topLevelCollectionsArePresized()}.
+             *
+             * @param presize true iff top-level collections should be
+             *                presized.
+             *
+             * @return this Builder (for method chaining).
+             *
+             * @throws IllegalStateException if {@code build()} was
+             *         previously called on this Builder.
+             */
+            public Builder presizeTopLevelCollections(boolean presize);
+
+            /**
+             * Cache symbols and tags as they are read. By default,
+             * they are not cached. See
+             * {@link Config#identifiersAreCached()}.
+             *
+             * @param cache true iff identifiers should be cached.
+             *
+             * @return this Builder (for method chaining).
+             *
+             * @throws IllegalStateException if {@code build()} was
+             *         previously called on this Builder.
+             */
+            public Builder cacheIdentifiers(boolean cache);
+
+            /**
+             * Parse collections nested in the values read only when
+             * they are first used. By default, values are parsed
+             * completely. See {@link Config#nestedCollectionsAreLazy()}.
+             *
+             * @param lazy true iff nested collections should be parsed
+             *             lazily.
+             *
+             * @return this Builder (for method chaining).
+             *
+             * @throws IllegalStateException if {@code build()} was
+             *         previously called on this Builder.
+             */
+            public Builder lazyNestedCollections(boolean lazy);
+
+            /**
+             * Return one canonical String for all equal string literals
+             * of up to {@code maxLength} characters, remembering up to
+             * about {@code size} of them. By default, strings are not
+             * cached. See {@link Config#stringCacheSize()}.
+             *
+             * @param size the capacity of the cache, which is rounded
+             *             up to a power of two, or 0 to disable it.
+             * @param maxLength the length of the longest string cached.
+             *
+             * @return this Builder (for method chaining).
+             *
+             * @throws IllegalArgumentException if either argument is
+             *         negative.
+             * @throws IllegalStateException if {@code build()} was
+             *         previously called on this Builder.
+             */
+            public Builder cacheStrings(int size, int maxLength);
+
             /**
              * Build and return the {@link Config} described by the
              * sequence of calls made on this Builder. Calling
@@ -6,6 +6,11 @@ import static us.bpsm.edn.parser.Token.END_LIST;
 import static us.bpsm.edn.parser.Token.END_MAP_OR_SET;
 import static us.bpsm.edn.parser.Token.END_VECTOR;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import us.bpsm.edn.*;
 
 
@@ -16,6 +21,21 @@ class ParserImpl implements Parser {
         public String toString() { return "##discarded value##"; }
     };
 
+    /**
+     * Top-level input spanning fewer units than this is parsed on the
+     * calling thread, even when a parallel pool is configured.
+     */
+    static final int MIN_PARALLEL_UNITS = 1 << 16;
+
+    /** Chunks are never made smaller than this, in units. */
+    private static final int MIN_CHUNK_UNITS = 1 << 13;
+
+    /**
+     * A collection is split into about this many chunks per thread of
+     * the pool, so that uneven chunks still keep all threads busy.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
     private Config cfg;
     private Scanner scanner;
 
@@ -25,15 +45,158 @@ class ParserImpl implements Parser {
     }
 
     public Object nextValue(Parseable pbr) {
-        Object value = nextValue(pbr, false);
+        ForkJoinPool pool = cfg.getParallelCollectionPool();
+        Object value;
+        if (cfg.nestedCollectionsAreLazy()
+            && pbr instanceof IndexedParseable) {
+            value = nextValueLazily((IndexedParseable) pbr);
+        } else if (pool != null && pbr instanceof IndexedParseable) {
+            value = nextValueInParallel(pool, (IndexedParseable) pbr);
+        } else if (cfg.topLevelCollectionsArePresized()
+                   && pbr instanceof IndexedParseable) {
+            value = nextValuePresized((IndexedParseable) pbr);
+        } else {
+            value = nextValue(pbr, false);
+        }
         if (value instanceof Token && value != END_OF_INPUT) {
             throw new EdnSyntaxException("Unexpected "+ value);
         }
         return value;
     }
 
+    /**
+     * Consume the next value from {@code pbr} without building it.
+     * Collections are not constructed and tag handlers are not called.
+     *
+     * @return false if there was no next value because {@code pbr} is
+     *         at its end, else true.
+     */
+    boolean skipValue(Parseable pbr) {
+        Object value = nextValue(pbr, true);
+        if (value == END_OF_INPUT) {
+            return false;
+        }
+        if (value instanceof Token) {
+            throw new EdnSyntaxException("Unexpected "+ value);
+        }
+        return true;
+    }
+
+    /**
+     * Read the next value from {@code pbr}, building only the part of it
+     * found by following {@code keys}, and the keys of maps along the way.
+     *
+     * @return the selected value, {@code notFound}, or
+     *         {@link #END_OF_INPUT}.
+     * @see EdnPath
+     */
+    Object select(Parseable pbr, Object[] keys, Object notFound) {
+        Object value = select(scanner.nextToken(pbr), pbr, keys, 0, notFound);
+        if (value instanceof Token && value != END_OF_INPUT) {
+            throw new EdnSyntaxException("Unexpected "+ value);
+        }
+        return value;
+    }
+
+    /**
+     * Select {@code keys[i..]} from the value beginning with token
+     * {@code curr}. Like {@link #nextValue(Parseable, boolean)}, this
+     * returns a Token in place of a value when {@code curr} turns out to
+     * end a collection or the input.
+     */
+    private Object select(Object curr, Parseable pbr, Object[] keys, int i,
+                          Object notFound) {
+        while (curr == Token.DISCARD) {
+            nextValue(pbr, true);
+            curr = scanner.nextToken(pbr);
+        }
+        if (i == keys.length) {
+            return nextValue(curr, pbr, false);
+        }
+        if (curr == Token.BEGIN_MAP) {
+            return selectInMap(pbr, keys, i, notFound);
+        } else if (curr == Token.BEGIN_VECTOR) {
+            return selectInSequence(END_VECTOR, pbr, keys, i, notFound);
+        } else if (curr == Token.BEGIN_LIST) {
+            return selectInSequence(END_LIST, pbr, keys, i, notFound);
+        }
+        Object value = nextValue(curr, pbr, false);
+        if (value instanceof Token) {
+            return value;
+        }
+        return EdnPath.walk(value, keys, i, notFound);
+    }
+
+    private Object selectInMap(Parseable pbr, Object[] keys, int i,
+                               Object notFound) {
+        Object result = notFound;
+        boolean found = false;
+        for (Object k = nextValue(pbr, false);
+             k != END_MAP_OR_SET;
+             k = nextValue(pbr, false)) {
+            if (k instanceof Token) {
+                throw new EdnSyntaxException("Expected " + END_MAP_OR_SET +
+                                             ", but found " + k);
+            }
+            Object v;
+            if (!found && (keys[i] == null ? k == null : keys[i].equals(k))) {
+                v = select(scanner.nextToken(pbr), pbr, keys, i + 1,
+                           notFound);
+                result = v;
+                found = true;
+            } else {
+                v = nextValue(pbr, true);
+            }
+            if (v instanceof Token) {
+                throw new EdnSyntaxException(v == END_MAP_OR_SET ?
+                  "Every map must have an equal number of keys and values." :
+                  "Expected a map value, but found " + v);
+            }
+        }
+        return result;
+    }
+
+    private Object selectInSequence(Token end, Parseable pbr, Object[] keys,
+                                    int i, Object notFound) {
+        final long index = keys[i] instanceof Long ? (Long) keys[i] : -1;
+        Object result = notFound;
+        for (long n = 0; ; n++) {
+            Object v;
+            if (n == index) {
+                v = select(scanner.nextToken(pbr), pbr, keys, i + 1,
+                           notFound);
+                if (!(v instanceof Token)) {
+                    result = v;
+                }
+            } else {
+                v = nextValue(pbr, true);
+            }
+            if (v == end) {
+                return result;
+            }
+            if (v instanceof Token) {
+                throw new EdnSyntaxException("Expected " + end +
+                                             ", but found " + v);
+            }
+        }
+    }
+
+    /**
+     * Return the next value of {@code pbr}, or, when it begins with the
+     * end of a collection or of the input, the corresponding Token. When
+     * {@code discard} is true, the value itself is not needed: it is
+     * skipped by the scanner without being tokenized where possible, and
+     * an arbitrary non-Token is returned in its place.
+     */
     private Object nextValue(Parseable pbr, boolean discard) {
-        Object curr = scanner.nextToken(pbr);
+        if (discard && scanner instanceof ScannerImpl) {
+            Object t = ((ScannerImpl) scanner).skipValue(pbr);
+            return t != null ? t : DISCARDED_VALUE;
+        }
+        return nextValue(scanner.nextToken(pbr), pbr, discard);
+    }
+
+    private Object nextValue(Object curr, Parseable pbr, boolean discard) {
         if (curr instanceof Token) {
             switch ((Token) curr) {
             case BEGIN_LIST:
@@ -49,12 +212,9 @@ class ParserImpl implements Parser {
                 return parseIntoCollection(cfg.getMapFactory(),
                                            END_MAP_OR_SET, pbr, discard);
             case DEFAULT_NAMESPACE_FOLLOWS: {
-                final String ns = parseNamespaceName(pbr, discard);
-                Object t = scanner.nextToken(pbr);
-                if (t != Token.BEGIN_MAP) {
-                    throw new EdnSyntaxException(
-                      "Expected #:" + ns + " to be followed by a map.");
-                }
+                Object nsObj = nextValue(pbr, discard);
+                String ns = DefaultNamespace.name(nsObj,
+                  scanner.nextToken(pbr));
                 return parseIntoCollection(new NamespacedMapFactory(ns),
                   END_MAP_OR_SET, pbr, discard);
             }
@@ -78,21 +238,6 @@ class ParserImpl implements Parser {
         }
     }
 
-    private String parseNamespaceName(Parseable pbr, boolean discard) {
-        final Object nsObj = nextValue(pbr, discard);
-        if (!(nsObj instanceof Symbol)) {
-            throw new EdnSyntaxException(
-              "Expected symbol following #:, but found: " + nsObj);
-        }
-        final Symbol nsSym = (Symbol) nsObj;
-        if (nsSym.getPrefix().length() > 0) {
-            throw new EdnSyntaxException(
-              "Expected symbol following #: to be namespaceless, " +
-                "but found: " + nsSym);
-        }
-        return nsSym.getName();
-    }
-
     private Object nextValue(Tag t, Parseable pbr, boolean discard) {
         Object v = nextValue(pbr, discard);
         if (discard) {
@@ -120,6 +265,271 @@ class ParserImpl implements Parser {
         return !discard ? b.build() : null;
     }
 
+    /**
+     * Return the next token of {@code ip}, first skipping any values
+     * marked by {@code #_}, so that a value following them is still
+     * parsed in the way the caller has chosen.
+     */
+    private Object nextTokenAfterDiscards(IndexedParseable ip) {
+        Object curr = scanner.nextToken(ip);
+        while (curr == Token.DISCARD) {
+            nextValue(ip, true);
+            curr = scanner.nextToken(ip);
+        }
+        return curr;
+    }
+
+    private Object nextValuePresized(IndexedParseable ip) {
+        Object curr = nextTokenAfterDiscards(ip);
+        if (curr == Token.BEGIN_LIST) {
+            return parsePresized(cfg.getListFactory(), 1, END_LIST, ip);
+        } else if (curr == Token.BEGIN_VECTOR) {
+            return parsePresized(cfg.getVectorFactory(), 1, END_VECTOR, ip);
+        } else if (curr == Token.BEGIN_SET) {
+            return parsePresized(cfg.getSetFactory(), 1, END_MAP_OR_SET, ip);
+        } else if (curr == Token.BEGIN_MAP) {
+            return parsePresized(cfg.getMapFactory(), 2, END_MAP_OR_SET, ip);
+        } else {
+            return nextValue(curr, ip, false);
+        }
+    }
+
+    /**
+     * Parse the elements of the collection whose opening bracket has
+     * just been read from {@code ip}, leaving {@code ip} positioned after
+     * the closing bracket. The elements are first skipped over to count
+     * them, and then parsed from a slice of the input into a builder
+     * sized for {@code count / stride} elements.
+     */
+    private Object parsePresized(CollectionBuilder.Factory f, int stride,
+                                 Token end, IndexedParseable ip) {
+        final int start = ip.pos;
+        int elementEnd = ip.pos;
+        int n = 0;
+        for (Object o = nextValue(ip, true); o != end; o = nextValue(ip, true)) {
+            if (o instanceof Token) {
+                throw new EdnSyntaxException("Expected " + end +
+                                             ", but found " + o);
+            }
+            elementEnd = ip.pos;
+            n++;
+        }
+        IndexedParseable elements = ip.slice(start, elementEnd);
+        CollectionBuilder b = f.builder(n / stride);
+        for (Object o = nextValue(elements, false);
+             o != END_OF_INPUT;
+             o = nextValue(elements, false)) {
+            if (o instanceof Token) {
+                throw new EdnSyntaxException("Unexpected " + o);
+            }
+            b.add(o);
+        }
+        return b.build();
+    }
+
+    /**
+     * Read the next value of {@code ip}, building its outermost
+     * collection as usual, but the collections nested in it as lazy
+     * proxies which are only parsed when used.
+     */
+    private Object nextValueLazily(IndexedParseable ip) {
+        Object curr = nextTokenAfterDiscards(ip);
+        if (curr == Token.BEGIN_LIST) {
+            return parseLazily(cfg.getListFactory(), END_LIST, ip);
+        } else if (curr == Token.BEGIN_VECTOR) {
+            return parseLazily(cfg.getVectorFactory(), END_VECTOR, ip);
+        } else if (curr == Token.BEGIN_SET) {
+            return parseLazily(cfg.getSetFactory(), END_MAP_OR_SET, ip);
+        } else if (curr == Token.BEGIN_MAP) {
+            return parseLazily(cfg.getMapFactory(), END_MAP_OR_SET, ip);
+        } else {
+            return nextValue(curr, ip, false);
+        }
+    }
+
+    /**
+     * Parse the elements of the collection whose opening bracket has
+     * just been read from {@code ip} into a builder obtained from
+     * {@code f}, leaving {@code ip} positioned after {@code end}. Each
+     * element which is itself a list, vector, set or map is skipped over
+     * and added as a lazy proxy for the elements so skipped. All other
+     * elements, including tagged collections, are built as they are read.
+     */
+    Object parseLazily(CollectionBuilder.Factory f, Token end,
+                       IndexedParseable ip) {
+        CollectionBuilder b = f.builder();
+        for (Object o = nextElementLazily(ip);
+             o != end;
+             o = nextElementLazily(ip)) {
+            if (o instanceof Token) {
+                throw new EdnSyntaxException("Expected " + end +
+                                             ", but found " + o);
+            }
+            b.add(o);
+        }
+        return b.build();
+    }
+
+    private Object nextElementLazily(IndexedParseable ip) {
+        Object curr = nextTokenAfterDiscards(ip);
+        if (curr == Token.BEGIN_LIST) {
+            return new LazyCollection.LazyList(
+              lazily(cfg.getListFactory(), END_LIST, ip));
+        } else if (curr == Token.BEGIN_VECTOR) {
+            return new LazyCollection.LazyVector(
+              lazily(cfg.getVectorFactory(), END_VECTOR, ip));
+        } else if (curr == Token.BEGIN_SET) {
+            return new LazyCollection.LazySet(
+              lazily(cfg.getSetFactory(), END_MAP_OR_SET, ip));
+        } else if (curr == Token.BEGIN_MAP) {
+            return new LazyCollection.LazyMap(
+              lazily(cfg.getMapFactory(), END_MAP_OR_SET, ip));
+        } else {
+            return nextValue(curr, ip, false);
+        }
+    }
+
+    /**
+     * Skip over the elements of the collection whose opening bracket
+     * has just been read from {@code ip}, and return what is needed to
+     * parse them later.
+     */
+    private LazyCollection lazily(CollectionBuilder.Factory f, Token end,
+                                  IndexedParseable ip) {
+        final int start = ip.pos;
+        int elementEnd = ip.pos;
+        for (Object o = nextValue(ip, true); o != end; o = nextValue(ip, true)) {
+            if (o instanceof Token) {
+                throw new EdnSyntaxException("Expected " + end +
+                                             ", but found " + o);
+            }
+            elementEnd = ip.pos;
+        }
+        return new LazyCollection(this, f, ip, start, elementEnd);
+    }
+
+    private Object nextValueInParallel(ForkJoinPool pool,
+                                       IndexedParseable ip) {
+        if (ip.limit - ip.pos < MIN_PARALLEL_UNITS) {
+            return cfg.topLevelCollectionsArePresized()
+              ? nextValuePresized(ip) : nextValue(ip, false);
+        }
+        Object curr = nextTokenAfterDiscards(ip);
+        if (curr == Token.BEGIN_LIST) {
+            return parseInParallel(pool, cfg.getListFactory(), 1,
+                                   END_LIST, ip);
+        } else if (curr == Token.BEGIN_VECTOR) {
+            return parseInParallel(pool, cfg.getVectorFactory(), 1,
+                                   END_VECTOR, ip);
+        } else if (curr == Token.BEGIN_SET) {
+            return parseInParallel(pool, cfg.getSetFactory(), 1,
+                                   END_MAP_OR_SET, ip);
+        } else if (curr == Token.BEGIN_MAP) {
+            return parseInParallel(pool, cfg.getMapFactory(), 2,
+                                   END_MAP_OR_SET, ip);
+        } else {
+            return nextValue(curr, ip, false);
+        }
+    }
+
+    /**
+     * Parse the elements of the collection whose opening bracket has
+     * just been read from {@code ip}, leaving {@code ip} positioned after
+     * the closing bracket.
+     *
+     * <p>The elements are first skipped over on this thread to find
+     * chunk boundaries. A chunk always ends after a multiple of
+     * {@code stride} elements, so that a map's keys stay in the same
+     * chunk as their values. Each chunk is handed to {@code pool} as
+     * soon as its end has been found. The chunks' elements are then
+     * added in order to a single builder obtained from {@code f}, sized
+     * for the number of elements found while looking for chunks.
+     */
+    private Object parseInParallel(ForkJoinPool pool,
+                                   CollectionBuilder.Factory f, int stride,
+                                   Token end, IndexedParseable ip) {
+        final int chunkUnits = Math.max(MIN_CHUNK_UNITS,
+          (ip.limit - ip.pos) / (CHUNKS_PER_THREAD * pool.getParallelism()));
+        List<ChunkTask> chunks = new ArrayList<ChunkTask>();
+        int n = 0;
+        try {
+            int chunkStart = ip.pos;
+            int elementEnd = ip.pos;
+            for (Object o = nextValue(ip, true);
+                 o != end;
+                 o = nextValue(ip, true)) {
+                if (o instanceof Token) {
+                    throw new EdnSyntaxException("Expected " + end +
+                                                 ", but found " + o);
+                }
+                elementEnd = ip.pos;
+                n++;
+                if (n % stride == 0 && elementEnd - chunkStart >= chunkUnits) {
+                    chunks.add(submit(pool, ip.slice(chunkStart, elementEnd)));
+                    chunkStart = elementEnd;
+                }
+            }
+            if (elementEnd > chunkStart) {
+                chunks.add(submit(pool, ip.slice(chunkStart, elementEnd)));
+            }
+            CollectionBuilder b = f.builder(n / stride);
+            for (ChunkTask chunk : chunks) {
+                chunk.join();
+                if (chunk.failure != null) {
+                    throw chunk.failure;
+                }
+                for (Object o : chunk.values) {
+                    b.add(o);
+                }
+            }
+            return b.build();
+        } finally {
+            // Chunks which are still waiting are no longer wanted if
+            // skipping or any chunk failed. Completed chunks ignore this.
+            for (ChunkTask chunk : chunks) {
+                chunk.cancel(false);
+            }
+        }
+    }
+
+    private ChunkTask submit(ForkJoinPool pool, IndexedParseable slice) {
+        ChunkTask chunk = new ChunkTask(slice);
+        pool.execute(chunk);
+        return chunk;
+    }
+
+    /**
+     * Parses every value in a slice of the input. Failures are kept as
+     * they were thrown rather than left to {@link #join()}, which may
+     * wrap them.
+     */
+    @SuppressWarnings("serial")
+    private final class ChunkTask extends RecursiveAction {
+        private final IndexedParseable slice;
+        final List<Object> values = new ArrayList<Object>();
+        RuntimeException failure;
+
+        ChunkTask(IndexedParseable slice) {
+            this.slice = slice;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (Object o = nextValue(slice, false);
+                     o != END_OF_INPUT;
+                     o = nextValue(slice, false)) {
+                    if (o instanceof Token) {
+                        throw new EdnSyntaxException("Unexpected " + o);
+                    }
+                    values.add(o);
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+    }
+
     private class NamespacedMapFactory implements CollectionBuilder.Factory {
         private final String defaultNs;
 
@@ -129,18 +539,27 @@ class ParserImpl implements Parser {
 
         @Override
         public CollectionBuilder builder() {
-            return new NamespacedMapBuilder();
+            return new NamespacedMapBuilder(cfg.getMapFactory().builder());
+        }
+
+        @Override
+        public CollectionBuilder builder(int expectedSize) {
+            return new NamespacedMapBuilder(
+              cfg.getMapFactory().builder(expectedSize));
         }
 
         private class NamespacedMapBuilder implements CollectionBuilder {
-            private final CollectionBuilder cfgBuilder =
-              cfg.getMapFactory().builder();
+            private final CollectionBuilder cfgBuilder;
             boolean key = true;
 
+            NamespacedMapBuilder(CollectionBuilder cfgBuilder) {
+                this.cfgBuilder = cfgBuilder;
+            }
+
             @Override
             public void add(Object o) {
                 if (key) {
-                    o = maybeApplyDefaultNamespace(o);
+                    o = DefaultNamespace.apply(defaultNs, o);
                 }
                 key = !key;
                 cfgBuilder.add(o);
@@ -150,32 +569,6 @@ class ParserImpl implements Parser {
             public Object build() {
                 return cfgBuilder.build();
             }
-
-            private Object maybeApplyDefaultNamespace(final Object o) {
-                if (!(o instanceof Symbol || o instanceof Keyword)) {
-                    return o;
-                }
-
-                final Named named = (Named) o;
-
-                final String prefix = named.getPrefix();
-                final String ns;
-                if ("".equals(prefix)) {
-                    ns = defaultNs;
-                } else if ("_".equals(prefix)) {
-                    ns = "";
-                } else {
-                    return o;
-                }
-
-                final String name = named.getName();
-                if (o instanceof Symbol) {
-                    return Symbol.newSymbol(ns, name);
-                } else {
-                    assert o instanceof Keyword;
-                    return Keyword.newKeyword(ns, name);
-                }
-            }
         }
     }
 }
@@ -10,10 +10,16 @@ import static us.bpsm.edn.parser.Parser.Config.LONG_TAG;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import us.bpsm.edn.EdnIOException;
 import us.bpsm.edn.Tag;
 import us.bpsm.edn.parser.CollectionBuilder.Factory;
 import us.bpsm.edn.parser.Parser.Config;
@@ -40,7 +46,11 @@ import us.bpsm.edn.parser.Parser.Config.Builder;
  *     {@link #newParser(Parser.Config)} to create a {@link Parser}.</li>
  *
  * <li>Create one or more {@link Parseable}s using
- *     {@link #newParseable(CharSequence)} or
+ *     {@link #newParseable(CharSequence)},
+ *     {@link #newParseable(char[], int, int)},
+ *     {@link #newParseable(byte[], int, int)},
+ *     {@link #newParseable(ByteBuffer)},
+ *     {@link #newParseable(Path)} or
  *     {@link #newParseable(Readable)}.</li>
  *
  * <li>Use {@link Parser#nextValue(Parseable)} to get
@@ -62,6 +72,9 @@ public class Parsers {
     static final CollectionBuilder.Factory DEFAULT_MAP_FACTORY =
             new DefaultMapFactory();
 
+    static final CollectionBuilder.Factory PRIMITIVE_VECTOR_FACTORY =
+            new PrimitiveVectorFactory();
+
     static final TagHandler INSTANT_TO_DATE = new InstantToDate();
 
     static final TagHandler UUID_HANDLER = new UuidHandler();
@@ -72,6 +85,26 @@ public class Parsers {
         }
     };
 
+    static final TagHandler LONG_IDENTITY = new LongTagHandler() {
+        public Object transformLong(long value) {
+            return SmallNumbers.valueOf(value);
+        }
+        @Override
+        public Object transform(Tag tag, Object value) {
+            return value;
+        }
+    };
+
+    static final TagHandler DOUBLE_IDENTITY = new DoubleTagHandler() {
+        public Object transformDouble(double value) {
+            return SmallNumbers.valueOf(value);
+        }
+        @Override
+        public Object transform(Tag tag, Object value) {
+            return value;
+        }
+    };
+
     private Parsers() {
         throw new UnsupportedOperationException();
     }
@@ -86,6 +119,87 @@ public class Parsers {
         return new ParserImpl(cfg, new ScannerImpl(cfg));
     }
 
+    /**
+     * Return a {@link PullParser} reading events from {@code pbr}.
+     * Only the scanner-level settings of {@code cfg} apply: the tag
+     * handlers for numbers and whether unicode escapes are accepted in
+     * string literals. Collection factories and other tag handlers are
+     * not used, since a PullParser builds no values.
+     *
+     * @param cfg The configuration of the scanner. Must not be null.
+     * @param pbr the input, must not be null.
+     * @return a PullParser, never null.
+     */
+    public static PullParser newPullParser(Parser.Config cfg, Parseable pbr) {
+        return new PullParserImpl(scanner(cfg), pbr);
+    }
+
+    /**
+     * Return an {@link EdnDocument} indexing the next value of
+     * {@code pbr}, and leave {@code pbr} positioned after that value.
+     * The parts of the document are parsed on demand by a Parser
+     * configured by {@code cfg}.
+     *
+     * @param cfg The configuration of the Parser. Must not be null.
+     * @param pbr the input, which must have been created from a
+     *        {@link String}, an array, a {@link ByteBuffer} or a file
+     *        of up to 2 GiB.
+     * @return an EdnDocument, or null if {@code pbr} has no next value.
+     *
+     * @throws IllegalArgumentException if {@code pbr} is of another
+     *         kind.
+     * @throws us.bpsm.edn.EdnSyntaxException if the brackets of the
+     *         value don't match, or its string or character literals
+     *         are not terminated.
+     */
+    public static EdnDocument newDocument(Parser.Config cfg, Parseable pbr) {
+        if (!(pbr instanceof IndexedParseable)) {
+            throw new IllegalArgumentException(
+              "EdnDocument requires a Parseable created from a String,"
+                + " an array, a ByteBuffer or a file.");
+        }
+        ScannerImpl scanner = scanner(cfg);
+        return EdnDocument.read(new ParserImpl(cfg, scanner), scanner,
+          (IndexedParseable) pbr);
+    }
+
+    /**
+     * Return a sequential {@link Stream} of the values that {@code parser}
+     * parses from {@code pbr}, in order, ending with the last value
+     * before {@link Parser#END_OF_INPUT}. A value of {@code nil} appears
+     * in the stream as {@code null}.
+     *
+     * <p>When {@code pbr} was created from a {@link String}, an array or
+     * a {@link ByteBuffer}, or maps a file of up to 2 GiB, the stream
+     * can be split at the boundaries between top-level values, so a
+     * {@linkplain Stream#parallel() parallel} stream parses different
+     * parts of the input concurrently. Other Parseables are read
+     * sequentially, even by a parallel stream.
+     *
+     * <p>Closing the stream closes {@code pbr}. Any {@link
+     * us.bpsm.edn.EdnException} thrown by the parser propagates out of
+     * the stream's terminal operation.
+     *
+     * @param parser the parser to use. Parsers are thread-safe, so the
+     *        same parser serves all parts of a parallel stream. Must not
+     *        be null.
+     * @param pbr the input, must not be null.
+     *
+     * @return a Stream, never null.
+     */
+    public static Stream<Object> stream(Parser parser, final Parseable pbr) {
+        return StreamSupport.stream(new ValueSpliterator(parser, pbr), false)
+            .onClose(new Runnable() {
+                public void run() {
+                    try {
+                        pbr.close();
+                    } catch (IOException e) {
+                        throw new EdnIOException(e);
+                    }
+                }
+            });
+    }
+
     static final int BUFFER_SIZE = 4096;
 
     static boolean readIntoBuffer(CharBuffer b, Readable r) throws IOException {
@@ -105,6 +219,11 @@ public class Parsers {
      * Create a new {@link Parseable} wrapping the given {@link
      * CharSequence}.
      *
+     * <p>When {@code cs} is a {@link String}, the resulting Parseable is
+     * scanned in bulk, which is considerably faster than reading it
+     * character by character. Other CharSequences are read through
+     * {@link CharSequence#charAt(int)}.
+     *
      * <p>The {@link java.io.Closeable#close()} method of the resulting
      * Parseable is a no-op.
      *
@@ -113,6 +232,9 @@ public class Parsers {
      * @return a Parseable, never null.
      */
     public static Parseable newParseable(final CharSequence cs) {
+        if (cs instanceof String) {
+            return new StringParseable((String) cs);
+        }
         return new Parseable() {
             int i = 0;
 
@@ -120,19 +242,142 @@ public class Parsers {
             }
 
             public int read() throws IOException {
-                try {
-                    return cs.charAt(i++);
-                } catch (IndexOutOfBoundsException suppressed) {
-                    return Parseable.END_OF_INPUT;
-                }
+                return i < cs.length() ? cs.charAt(i++) : END_OF_INPUT;
             }
 
             public void unread(int ch) throws IOException {
-                i--;
+                if (ch != END_OF_INPUT) {
+                    i--;
+                }
             }
         };
     }
 
+    /**
+     * Create a new {@link Parseable} wrapping the given array of
+     * characters. This is equivalent to
+     * {@code newParseable(chars, 0, chars.length)}.
+     *
+     * @param chars must not be null.
+     *
+     * @return a Parseable, never null.
+     */
+    public static Parseable newParseable(char[] chars) {
+        return newParseable(chars, 0, chars.length);
+    }
+
+    /**
+     * Create a new {@link Parseable} wrapping {@code length} characters
+     * of {@code chars} starting at {@code offset}. The resulting
+     * Parseable is scanned in bulk, directly from the array.
+     *
+     * <p>The array is not copied. It must not be modified until parsing
+     * is complete. The {@link java.io.Closeable#close()} method of the
+     * resulting Parseable is a no-op.
+     *
+     * @param chars must not be null.
+     * @param offset index of the first character to parse.
+     * @param length number of characters to parse.
+     *
+     * @return a Parseable, never null.
+     *
+     * @throws IndexOutOfBoundsException if {@code offset} and
+     *         {@code length} do not describe a range within
+     *         {@code chars}.
+     */
+    public static Parseable newParseable(char[] chars, int offset,
+                                         int length) {
+        return new CharArrayParseable(chars, offset, length);
+    }
+
+    /**
+     * Create a new {@link Parseable} reading UTF-8 encoded edn from the
+     * given array. This is equivalent to
+     * {@code newParseable(bytes, 0, bytes.length)}.
+     *
+     * @param bytes must not be null.
+     *
+     * @return a Parseable, never null.
+     */
+    public static Parseable newParseable(byte[] bytes) {
+        return newParseable(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Create a new {@link Parseable} reading UTF-8 encoded edn from
+     * {@code length} bytes of {@code bytes} starting at {@code offset}.
+     *
+     * <p>The bytes are scanned directly, without first decoding them
+     * into characters. Only the contents of string literals and other
+     * non-ASCII text are decoded. Malformed UTF-8 is replaced by
+     * U+FFFD.
+     *
+     * <p>The array is not copied. It must not be modified until parsing
+     * is complete. The {@link java.io.Closeable#close()} method of the
+     * resulting Parseable is a no-op.
+     *
+     * @param bytes must not be null.
+     * @param offset index of the first byte to parse.
+     * @param length number of bytes to parse.
+     *
+     * @return a Parseable, never null.
+     *
+     * @throws IndexOutOfBoundsException if {@code offset} and
+     *         {@code length} do not describe a range within
+     *         {@code bytes}.
+     */
+    public static Parseable newParseable(byte[] bytes, int offset,
+                                         int length) {
+        return Utf8Parseable.newInstance(bytes, offset, length);
+    }
+
+    /**
+     * Create a new {@link Parseable} reading UTF-8 encoded edn from the
+     * bytes between the position and the limit of {@code bytes}, which
+     * may be a direct buffer.
+     *
+     * <p>The bytes are scanned directly, without first decoding them
+     * into characters. Only the contents of string literals and other
+     * non-ASCII text are decoded. Malformed UTF-8 is replaced by
+     * U+FFFD.
+     *
+     * <p>The position of {@code bytes} is not modified, and its contents
+     * must not be modified until parsing is complete. The {@link
+     * java.io.Closeable#close()} method of the resulting Parseable is a
+     * no-op.
+     *
+     * @param bytes must not be null.
+     *
+     * @return a Parseable, never null.
+     */
+    public static Parseable newParseable(ByteBuffer bytes) {
+        return Utf8Parseable.newInstance(bytes);
+    }
+
+    /**
+     * Create a new {@link Parseable} reading the UTF-8 encoded file at
+     * {@code path} by mapping it into memory rather than reading it
+     * through a {@link java.io.Reader}.
+     *
+     * <p>Files of up to 2 GiB are mapped whole and scanned in bulk.
+     * Larger files are mapped in chunks as parsing proceeds and read a
+     * character at a time. The file must not be modified while it is
+     * being parsed. Malformed UTF-8 is replaced by U+FFFD.
+     *
+     * <p>Close the resulting Parseable when done with it. Mapped memory
+     * is released once the Parseable is no longer reachable.
+     *
+     * @param path the file to parse, must not be null.
+     *
+     * @return a Parseable, never null.
+     *
+     * @throws IOException if the file can not be opened or mapped.
+     */
+    public static Parseable newParseable(Path path) throws IOException {
+        return MappedFileParseable.open(
+            path, MappedFileParseable.MAX_CHUNK_SIZE);
+    }
+
     /**
      * Create a new {@link Parseable} wrapping the given {@link Readable}.
      *
@@ -197,6 +442,12 @@ public class Parsers {
         return new Builder() {
             boolean used = false;
             boolean acceptUnicodeEscapes = true;
+            ForkJoinPool parallelCollectionPool = null;
+            boolean presizeTopLevelCollections = false;
+            boolean cacheIdentifiers = false;
+            boolean lazyNestedCollections = false;
+            int stringCacheSize = 0;
+            int maxCachedStringLength = 0;
             CollectionBuilder.Factory listFactory = DEFAULT_LIST_FACTORY;
             CollectionBuilder.Factory vectorFactory = DEFAULT_VECTOR_FACTORY;
             CollectionBuilder.Factory setFactory = DEFAULT_SET_FACTORY;
@@ -240,10 +491,45 @@ public class Parsers {
                 return this;
             }
 
+            public Builder parallelizeTopLevelCollections(ForkJoinPool pool) {
+                checkState();
+                this.parallelCollectionPool = pool;
+                return this;
+            }
+
+            public Builder presizeTopLevelCollections(boolean presize) {
+                checkState();
+                this.presizeTopLevelCollections = presize;
+                return this;
+            }
+
+            public Builder cacheIdentifiers(boolean cache) {
+                checkState();
+                this.cacheIdentifiers = cache;
+                return this;
+            }
+
+            public Builder lazyNestedCollections(boolean lazy) {
+                checkState();
+                this.lazyNestedCollections = lazy;
+                return this;
+            }
+
+            public Builder cacheStrings(int size, int maxLength) {
+                checkState();
+                if (size < 0 || maxLength < 0) {
+                    throw new IllegalArgumentException(
+                            "size and maxLength must not be negative");
+                }
+                this.stringCacheSize = size;
+                this.maxCachedStringLength = maxLength;
+                return this;
+            }
+
             public Config build() {
                 checkState();
                 used = true;
-                return new Config() {
+                return new BuiltConfig() {
                     public Factory getListFactory() {
                         return listFactory;
                     }
@@ -268,6 +554,36 @@ public class Parsers {
                     public boolean unicodeEscapesInStringLiteralsAreAccepted() {
                         return acceptUnicodeEscapes;
                     }
+
+                    @Override
+                    public ForkJoinPool getParallelCollectionPool() {
+                        return parallelCollectionPool;
+                    }
+
+                    @Override
+                    public boolean topLevelCollectionsArePresized() {
+                        return presizeTopLevelCollections;
+                    }
+
+                    @Override
+                    public boolean identifiersAreCached() {
+                        return cacheIdentifiers;
+                    }
+
+                    @Override
+                    public boolean nestedCollectionsAreLazy() {
+                        return lazyNestedCollections;
+                    }
+
+                    @Override
+                    public int stringCacheSize() {
+                        return stringCacheSize;
+                    }
+
+                    @Override
+                    public int maxCachedStringLength() {
+                        return maxCachedStringLength;
+                    }
                 };
             }
 
@@ -285,9 +601,9 @@ public class Parsers {
         m.put(EDN_UUID, UUID_HANDLER);
         m.put(EDN_INSTANT, INSTANT_TO_DATE);
         m.put(BIG_DECIMAL_TAG, IDENTITY);
-        m.put(DOUBLE_TAG, IDENTITY);
+        m.put(DOUBLE_TAG, DOUBLE_IDENTITY);
         m.put(BIG_INTEGER_TAG, IDENTITY);
-        m.put(LONG_TAG, IDENTITY);
+        m.put(LONG_TAG, LONG_IDENTITY);
         return m;
     }
 
@@ -303,4 +619,52 @@ public class Parsers {
 
     static Config DEFAULT_CONFIGURATION = newParserConfigBuilder().build();
 
+    /**
+     * A Config built by {@link #newParserConfigBuilder()}. Such a Config
+     * is immutable, so it can provide one scanner to all the PullParsers
+     * and EdnDocuments created with it. Like a Parser's scanner, this is
+     * shared between threads, and its identifier and string caches then
+     * hit across inputs rather than being rebuilt for each one.
+     */
+    private abstract static class BuiltConfig implements Config {
+        private volatile ScannerImpl scanner;
+
+        final ScannerImpl scanner() {
+            ScannerImpl s = scanner;
+            if (s == null) {
+                // A race merely creates a scanner that is used once.
+                scanner = s = new ScannerImpl(this);
+            }
+            return s;
+        }
+    }
+
+    /**
+     * Return a scanner for {@code cfg}: the one it shares, if it was
+     * built by a Builder from {@link #newParserConfigBuilder()}, and
+     * otherwise a new one.
+     */
+    static ScannerImpl scanner(Config cfg) {
+        return cfg instanceof BuiltConfig
+          ? ((BuiltConfig) cfg).scanner() : new ScannerImpl(cfg);
+    }
+
+    /**
+     * Return a {@link CollectionBuilder.Factory} for vectors which stores
+     * vectors of only longs in a {@link LongVector} and vectors of only
+     * doubles in a {@link DoubleVector}, which take about a quarter of
+     * the memory of a list of boxed numbers. Any other vector, including
+     * one mixing longs and doubles, is built as by the default factory.
+     *
+     * <p>Install it with {@link
+     * Parser.Config.Builder#setVectorFactory(CollectionBuilder.Factory)}.
+     * It relies on the default handlers for {@link
+     * Parser.Config#LONG_TAG} and {@link Parser.Config#DOUBLE_TAG}, or
+     * others which produce {@link Long}s and {@link Double}s.
+     *
+     * @return a CollectionBuilder.Factory, never null.
+     */
+    public static CollectionBuilder.Factory primitiveVectorFactory() {
+        return PRIMITIVE_VECTOR_FACTORY;
+    }
 }
@@ -0,0 +1,96 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds a {@link LongVector} or {@link DoubleVector} when every element
+ * of a vector is a Long, or every element is a Double. Elements are
+ * collected into a primitive array until the first element that doesn't
+ * fit, at which point the builder promotes what it has to an ArrayList
+ * and carries on like {@link DefaultVectorFactory}.
+ */
+final class PrimitiveVectorFactory implements CollectionBuilder.Factory {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    public CollectionBuilder builder() {
+        return builder(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public CollectionBuilder builder(final int expectedSize) {
+        return new CollectionBuilder() {
+            long[] longs;
+            double[] doubles;
+            List<Object> objects;
+            int size;
+
+            public void add(Object o) {
+                if (objects == null) {
+                    if (o instanceof Long && doubles == null) {
+                        addLong((Long) o);
+                        return;
+                    }
+                    if (o instanceof Double && longs == null) {
+                        addDouble((Double) o);
+                        return;
+                    }
+                    promote();
+                }
+                objects.add(o);
+            }
+
+            private void addLong(long v) {
+                if (longs == null) {
+                    longs = new long[Math.max(1, expectedSize)];
+                } else if (size == longs.length) {
+                    longs = Arrays.copyOf(longs, size * 2);
+                }
+                longs[size++] = v;
+            }
+
+            private void addDouble(double v) {
+                if (doubles == null) {
+                    doubles = new double[Math.max(1, expectedSize)];
+                } else if (size == doubles.length) {
+                    doubles = Arrays.copyOf(doubles, size * 2);
+                }
+                doubles[size++] = v;
+            }
+
+            private void promote() {
+                objects = new ArrayList<Object>(
+                  Math.max(expectedSize, size * 2));
+                for (int i = 0; i < size; i++) {
+                    if (longs != null) {
+                        objects.add(SmallNumbers.valueOf(longs[i]));
+                    } else {
+                        objects.add(SmallNumbers.valueOf(doubles[i]));
+                    }
+                }
+                longs = null;
+                doubles = null;
+            }
+
+            public Object build() {
+                if (objects != null) {
+                    return Collections.unmodifiableList(objects);
+                }
+                if (longs != null) {
+                    return new LongVector(
+                      size == longs.length ? longs : Arrays.copyOf(longs, size));
+                }
+                if (doubles != null) {
+                    return new DoubleVector(
+                      size == doubles.length ? doubles
+                                             : Arrays.copyOf(doubles, size));
+                }
+                return Collections.emptyList();
+            }
+        };
+    }
+}
@@ -0,0 +1,195 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import us.bpsm.edn.EdnIOException;
+import us.bpsm.edn.EdnSyntaxException;
+
+/**
+ * A PullParser reads edn from a single {@link Parseable} as a sequence
+ * of {@linkplain Event events}, without building any collections.
+ * Instances are constructed using
+ * {@link Parsers#newPullParser(Parser.Config, Parseable)}.
+ *
+ * <p>The input {@code {:a [1 2], :b #inst "2012"}} produces these
+ * events:
+ *
+ * <pre>
+ * START_MAP
+ *   KEY          :a
+ *   START_VECTOR
+ *     VALUE      1
+ *     VALUE      2
+ *   END_VECTOR
+ *   KEY          :b
+ *   TAG          #inst
+ *   VALUE        "2012"
+ * END_MAP
+ * END_OF_INPUT
+ * </pre>
+ *
+ * <p>Atomic values are reported as they are returned by
+ * {@link Scanner#nextToken(Parseable)}. Tag handlers configured for
+ * tags other than the numeric tags the scanner applies itself are not
+ * called: a tagged value is reported as a {@link Event#TAG TAG} event
+ * followed by the events of the value. Values following {@code #_} are
+ * skipped, and the keys of namespaced maps ({@code #:ns{...}}) are
+ * reported with the default namespace already applied.
+ *
+ * <p>A PullParser holds the state of its Parseable and must not be
+ * shared between threads.
+ *
+ * @see Parser
+ */
+public interface PullParser {
+
+    /**
+     * The kinds of event reported by {@link PullParser#next()}.
+     */
+    public enum Event {
+
+        /** A '(', which begins a list. */
+        START_LIST,
+
+        /** A ')', which ends a list. */
+        END_LIST,
+
+        /** A '[', which begins a vector. */
+        START_VECTOR,
+
+        /** A ']', which ends a vector. */
+        END_VECTOR,
+
+        /** A '#{', which begins a set. */
+        START_SET,
+
+        /** A '}', which ends a set. */
+        END_SET,
+
+        /** A '{' or '#:ns{', which begins a map. */
+        START_MAP,
+
+        /** A '}', which ends a map. */
+        END_MAP,
+
+        /** An atomic value in the key position of a map. */
+        KEY,
+
+        /**
+         * An atomic value anywhere other than the key position of a
+         * map, including {@code nil}.
+         */
+        VALUE,
+
+        /**
+         * A tag, which applies to the value whose events follow.
+         * {@link PullParser#value()} returns the {@link us.bpsm.edn.Tag}.
+         */
+        TAG,
+
+        /** The input has been fully consumed. */
+        END_OF_INPUT;
+    }
+
+    /**
+     * Advance to the next event. Once {@link Event#END_OF_INPUT} has been
+     * returned, every further call returns it again.
+     *
+     * @return the next event, never null.
+     *
+     * @throws EdnIOException
+     *             if the underlying Parseable throws an IOException.
+     * @throws EdnSyntaxException
+     *             if the contents of the underlying Parseable violate
+     *             the syntax of edn.
+     */
+    public Event next();
+
+    /**
+     * The event most recently returned by {@link #next()}.
+     *
+     * @return an Event, or null if {@code next()} has not been called.
+     */
+    public Event event();
+
+    /**
+     * The number of collections enclosing the current position. After
+     * a {@code START_*} event this includes the collection just begun;
+     * after an {@code END_*} event it no longer includes the collection
+     * just ended.
+     *
+     * @return a non-negative depth.
+     */
+    public int depth();
+
+    /**
+     * The value of the current {@link Event#KEY KEY}, {@link Event#VALUE
+     * VALUE} or {@link Event#TAG TAG} event. This is the same object
+     * {@link Parser#nextValue(Parseable)} would have produced for an
+     * atomic value; {@code nil} is {@code null}.
+     *
+     * @return the current value, possibly null.
+     *
+     * @throws IllegalStateException if the current event is not a
+     *         {@code KEY}, {@code VALUE} or {@code TAG}.
+     */
+    public Object value();
+
+    /**
+     * The current value as a long, converted as by
+     * {@link Number#longValue()}.
+     *
+     * @return the current value as a long.
+     *
+     * @throws IllegalStateException if the current value is not a
+     *         {@link Number}.
+     */
+    public long longValue();
+
+    /**
+     * The current value as a double, converted as by
+     * {@link Number#doubleValue()}.
+     *
+     * @return the current value as a double.
+     *
+     * @throws IllegalStateException if the current value is not a
+     *         {@link Number}.
+     */
+    public double doubleValue();
+
+    /**
+     * The current value as a boolean.
+     *
+     * @return the current value as a boolean.
+     *
+     * @throws IllegalStateException if the current value is not a
+     *         {@link Boolean}.
+     */
+    public boolean booleanValue();
+
+    /**
+     * The current value as a String.
+     *
+     * @return the contents of the current string literal, never null.
+     *
+     * @throws IllegalStateException if the current value is not a
+     *         {@link String}.
+     */
+    public String stringValue();
+
+    /**
+     * If the current event begins a collection, skip everything up to
+     * and including its end, making the corresponding {@code END_*} the
+     * current event. Otherwise, do nothing. The skipped content is only
+     * checked for balanced brackets, tags and {@code #_} being followed
+     * by a value, not for the rest of edn's syntax.
+     *
+     * @return the current event after skipping, never null.
+     *
+     * @throws EdnIOException
+     *             if the underlying Parseable throws an IOException.
+     * @throws EdnSyntaxException
+     *             if the skipped content does not form a well-nested
+     *             collection.
+     */
+    public Event skipChildren();
+}
@@ -0,0 +1,241 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static us.bpsm.edn.parser.Token.END_LIST;
+import static us.bpsm.edn.parser.Token.END_MAP_OR_SET;
+import static us.bpsm.edn.parser.Token.END_VECTOR;
+
+import java.util.Arrays;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Tag;
+
+/**
+ * Turns the tokens of a {@link ScannerImpl} into {@link PullParser.Event}s.
+ * The only state kept per enclosing collection is which event ends it,
+ * whether a map expects a key next, and a namespaced map's default
+ * namespace.
+ */
+final class PullParserImpl implements PullParser {
+
+    private static final int INITIAL_DEPTH = 16;
+
+    private final ScannerImpl scanner;
+    private final Parseable pbr;
+
+    private Event event;
+    private Object value;
+
+    /** True between a TAG event and the start of the tagged value. */
+    private boolean tagged;
+
+    private int depth;
+    private Event[] ends = new Event[INITIAL_DEPTH];
+    private boolean[] keyNext = new boolean[INITIAL_DEPTH];
+    private String[] defaultNs = new String[INITIAL_DEPTH];
+
+    PullParserImpl(ScannerImpl scanner, Parseable pbr) {
+        if (scanner == null || pbr == null) {
+            throw new NullPointerException();
+        }
+        this.scanner = scanner;
+        this.pbr = pbr;
+    }
+
+    public Event next() {
+        if (event == Event.END_OF_INPUT) {
+            return event;
+        }
+        value = null;
+        Object t = scanner.nextToken(pbr);
+        while (t == Token.DISCARD) {
+            Object skipped = scanner.skipValue(pbr);
+            if (skipped != null) {
+                throw new EdnSyntaxException(
+                  "Expected a value following #_, but found " + skipped);
+            }
+            t = scanner.nextToken(pbr);
+        }
+        if (t instanceof Token) {
+            switch ((Token) t) {
+            case BEGIN_LIST:
+                return begin(Event.START_LIST, Event.END_LIST, null);
+            case BEGIN_VECTOR:
+                return begin(Event.START_VECTOR, Event.END_VECTOR, null);
+            case BEGIN_SET:
+                return begin(Event.START_SET, Event.END_SET, null);
+            case BEGIN_MAP:
+                return begin(Event.START_MAP, Event.END_MAP, null);
+            case DEFAULT_NAMESPACE_FOLLOWS:
+                return begin(Event.START_MAP, Event.END_MAP,
+                             parseNamespaceName());
+            case END_LIST:
+            case END_VECTOR:
+            case END_MAP_OR_SET:
+                return end((Token) t);
+            case END_OF_INPUT:
+                if (depth > 0 || tagged) {
+                    throw new EdnSyntaxException("Expected " +
+                      (tagged ? "a value following a tag"
+                              : endToken(ends[depth - 1])) +
+                      ", but found END_OF_INPUT");
+                }
+                return event = Event.END_OF_INPUT;
+            case NIL:
+                return atom(null);
+            default:
+                throw new EdnSyntaxException("Unrecognized Token: " + t);
+            }
+        } else if (t instanceof Tag) {
+            tagged = true;
+            value = t;
+            return event = Event.TAG;
+        } else {
+            return atom(t);
+        }
+    }
+
+    public Event event() {
+        return event;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public Object value() {
+        if (event != Event.KEY && event != Event.VALUE && event != Event.TAG) {
+            throw new IllegalStateException("No value at " + event);
+        }
+        return value;
+    }
+
+    public long longValue() {
+        Object v = value();
+        if (!(v instanceof Number)) {
+            throw new IllegalStateException("Not a number: " + v);
+        }
+        return ((Number) v).longValue();
+    }
+
+    public double doubleValue() {
+        Object v = value();
+        if (!(v instanceof Number)) {
+            throw new IllegalStateException("Not a number: " + v);
+        }
+        return ((Number) v).doubleValue();
+    }
+
+    public boolean booleanValue() {
+        Object v = value();
+        if (!(v instanceof Boolean)) {
+            throw new IllegalStateException("Not a boolean: " + v);
+        }
+        return ((Boolean) v).booleanValue();
+    }
+
+    public String stringValue() {
+        Object v = value();
+        if (!(v instanceof String)) {
+            throw new IllegalStateException("Not a string: " + v);
+        }
+        return (String) v;
+    }
+
+    public Event skipChildren() {
+        if (event != Event.START_LIST && event != Event.START_VECTOR
+            && event != Event.START_SET && event != Event.START_MAP) {
+            return event;
+        }
+        Token end = endToken(ends[depth - 1]);
+        skipUntil(end);
+        depth--;
+        defaultNs[depth] = null;
+        event = ends[depth];
+        valueCompleted();
+        return event;
+    }
+
+    private Event begin(Event start, Event end, String ns) {
+        if (depth == ends.length) {
+            ends = Arrays.copyOf(ends, depth * 2);
+            keyNext = Arrays.copyOf(keyNext, depth * 2);
+            defaultNs = Arrays.copyOf(defaultNs, depth * 2);
+        }
+        ends[depth] = end;
+        keyNext[depth] = end == Event.END_MAP;
+        defaultNs[depth] = ns;
+        depth++;
+        tagged = false;
+        return event = start;
+    }
+
+    private Event end(Token t) {
+        if (depth == 0 || endToken(ends[depth - 1]) != t || tagged) {
+            throw new EdnSyntaxException("Expected " +
+              (tagged ? "a value following a tag" :
+                depth == 0 ? "a value" : endToken(ends[depth - 1])) +
+              ", but found " + t);
+        }
+        depth--;
+        if (ends[depth] == Event.END_MAP && !keyNext[depth]) {
+            throw new EdnSyntaxException(
+              "Every map must have an equal number of keys and values.");
+        }
+        defaultNs[depth] = null;
+        event = ends[depth];
+        valueCompleted();
+        return event;
+    }
+
+    private Event atom(Object v) {
+        tagged = false;
+        if (depth > 0 && ends[depth - 1] == Event.END_MAP
+            && keyNext[depth - 1]) {
+            String ns = defaultNs[depth - 1];
+            value = ns != null ? DefaultNamespace.apply(ns, v) : v;
+            event = Event.KEY;
+        } else {
+            value = v;
+            event = Event.VALUE;
+        }
+        valueCompleted();
+        return event;
+    }
+
+    /** Note that the value in the current position is complete. */
+    private void valueCompleted() {
+        if (depth > 0 && ends[depth - 1] == Event.END_MAP) {
+            keyNext[depth - 1] = !keyNext[depth - 1];
+        }
+    }
+
+    private String parseNamespaceName() {
+        Object nsObj = scanner.nextToken(pbr);
+        return DefaultNamespace.name(nsObj, scanner.nextToken(pbr));
+    }
+
+    private void skipUntil(Token end) {
+        for (;;) {
+            Object t = scanner.skipValue(pbr);
+            if (t == end) {
+                return;
+            }
+            if (t != null) {
+                throw new EdnSyntaxException("Expected " + end +
+                                             ", but found " + t);
+            }
+        }
+    }
+
+    private static Token endToken(Event end) {
+        switch (end) {
+        case END_LIST:
+            return END_LIST;
+        case END_VECTOR:
+            return END_VECTOR;
+        default:
+            return END_MAP_OR_SET;
+        }
+    }
+}
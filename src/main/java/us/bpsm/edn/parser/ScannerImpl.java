@@ -17,6 +17,7 @@ import us.bpsm.edn.EdnSyntaxException;
 import us.bpsm.edn.EdnIOException;
 import us.bpsm.edn.Keyword;
 import us.bpsm.edn.Symbol;
+import us.bpsm.edn.Tag;
 import us.bpsm.edn.util.CharClassify;
 
 
@@ -33,8 +34,28 @@ class ScannerImpl implements Scanner {
     private final TagHandler bigDecimalHandler;
     private final TagHandler bigIntegerHandler;
     private final TagHandler doubleHandler;
+
+    /** {@link #longHandler}, if it accepts primitives; otherwise null. */
+    private final LongTagHandler primitiveLongHandler;
+
+    /** {@link #doubleHandler}, if it accepts primitives; otherwise null. */
+    private final DoubleTagHandler primitiveDoubleHandler;
     private final boolean unicodeEscapesInStringLiteralsAreAccepted;
 
+    /** Keywords recently read from IndexedParseables. */
+    private final IdentifierCache<Keyword> keywordCache =
+      new IdentifierCache<Keyword>();
+
+    /**
+     * Symbols and tags recently read from IndexedParseables, or null if
+     * they are not to be cached.
+     */
+    private final IdentifierCache<Symbol> symbolCache;
+    private final IdentifierCache<Tag> tagCache;
+
+    /** Canonical string literals, or null if strings are not cached. */
+    private final StringCache stringCache;
+
     /**
      * Scanner may throw an IOException during construction, in which case
      * an attempt will be made to close Reader cleanly.
@@ -49,8 +70,19 @@ class ScannerImpl implements Scanner {
         this.bigIntegerHandler = cfg.getTagHandler(BIG_INTEGER_TAG);
         this.doubleHandler = cfg.getTagHandler(DOUBLE_TAG);
         this.bigDecimalHandler = cfg.getTagHandler(BIG_DECIMAL_TAG);
+        this.primitiveLongHandler = longHandler instanceof LongTagHandler ?
+          (LongTagHandler) longHandler : null;
+        this.primitiveDoubleHandler =
+          doubleHandler instanceof DoubleTagHandler ?
+            (DoubleTagHandler) doubleHandler : null;
         this.unicodeEscapesInStringLiteralsAreAccepted =
           cfg.unicodeEscapesInStringLiteralsAreAccepted();
+        boolean cache = cfg.identifiersAreCached();
+        this.symbolCache = cache ? new IdentifierCache<Symbol>() : null;
+        this.tagCache = cache ? new IdentifierCache<Tag>() : null;
+        this.stringCache = cfg.stringCacheSize() > 0 ?
+          new StringCache(cfg.stringCacheSize(), cfg.maxCachedStringLength())
+          : null;
     }
 
     /* (non-Javadoc)
@@ -183,6 +215,200 @@ class ScannerImpl implements Scanner {
         }
     }
 
+    /**
+     * Skip over the next value of {@code pbr} without building it or
+     * any of its parts. Only the structure of the value is checked:
+     * brackets must match, tags and namespace prefixes must be followed
+     * by a value, and string and character literals must be terminated.
+     * The contents of atoms, and the escapes in string literals, are not
+     * examined.
+     *
+     * @return null if a value was skipped, otherwise the Token found in
+     *         its place: {@link Token#END_OF_INPUT} or the end of a
+     *         collection.
+     */
+    Object skipValue(Parseable pbr) {
+        try {
+            return skip(pbr);
+        } catch (IOException e) {
+            throw new EdnIOException(e);
+        }
+    }
+
+    private Object skip(Parseable pbr) throws IOException {
+        for (;;) {
+            skipWhitespaceAndComments(pbr);
+            int curr = pbr.read();
+            switch (curr) {
+            case END:
+                return Token.END_OF_INPUT;
+            case ')':
+                return Token.END_LIST;
+            case ']':
+                return Token.END_VECTOR;
+            case '}':
+                return Token.END_MAP_OR_SET;
+            case '(':
+                skipElements(Token.END_LIST, pbr);
+                return null;
+            case '[':
+                skipElements(Token.END_VECTOR, pbr);
+                return null;
+            case '{':
+                skipElements(Token.END_MAP_OR_SET, pbr);
+                return null;
+            case '"':
+                skipStringLiteral(pbr);
+                return null;
+            case '\\':
+                skipCharacterLiteral(pbr);
+                return null;
+            case '#':
+                curr = pbr.read();
+                if (curr == '{') {
+                    skipElements(Token.END_MAP_OR_SET, pbr);
+                    return null;
+                } else if (curr == '_') {
+                    // As in ParserImpl, '#_' discards whatever follows.
+                    skip(pbr);
+                    continue;
+                } else if (curr == END) {
+                    throw new EdnSyntaxException(
+                      "Unexpected end of input following '#'");
+                }
+                // A tag, or the namespace of a namespaced map.
+                skipAtom(curr == ':' ? pbr.read() : curr, pbr);
+                Object t = skip(pbr);
+                if (t != null) {
+                    throw new EdnSyntaxException(
+                      "Expected a value following '#', but found " + t);
+                }
+                return null;
+            default:
+                if (curr >= 0x80 || !(symbolStart((char) curr)
+                    || isDigit((char) curr) || curr == ':')) {
+                    throw new EdnSyntaxException(
+                      String.format("Unexpected character '%c', \\"+"u%04x",
+                        (char)curr, curr));
+                }
+                skipAtom(curr, pbr);
+                return null;
+            }
+        }
+    }
+
+    private void skipElements(Token end, Parseable pbr) throws IOException {
+        for (;;) {
+            Object t = skip(pbr);
+            if (t == end) {
+                return;
+            }
+            if (t != null) {
+                throw new EdnSyntaxException("Expected " + end +
+                                             ", but found " + t);
+            }
+        }
+    }
+
+    /**
+     * Skip the rest of a symbol, keyword, number, 'nil', 'true' or
+     * 'false' whose first character, {@code curr}, has already been
+     * read.
+     */
+    private static void skipAtom(int curr, Parseable pbr) throws IOException {
+        final boolean sign = curr == '+' || curr == '-';
+        if (curr < 0x80 && pbr instanceof IndexedParseable) {
+            IndexedParseable ip = (IndexedParseable) pbr;
+            final int limit = ip.limit;
+            int i = ip.pos;
+            final boolean number = isDigit((char) curr)
+              || sign && i < limit && isDigitUnit(ip.unitAt(i));
+            while (i < limit && continuesAtom(ip.unitAt(i), number)) {
+                i++;
+            }
+            ip.pos = i;
+            return;
+        }
+        if (curr == END || !continuesAtom(curr, false)) {
+            unread(pbr, curr);
+            return;
+        }
+        int next = pbr.read();
+        final boolean number = curr < 0x80 && isDigit((char) curr)
+          || sign && isDigitUnit(next);
+        while (next != END && continuesAtom(next, number)) {
+            next = pbr.read();
+        }
+        unread(pbr, next);
+    }
+
+    private static boolean isDigitUnit(int u) {
+        return u >= '0' && u <= '9';
+    }
+
+    /**
+     * Characters which may continue an atom. This is deliberately
+     * generous: anything outside of ASCII is allowed so that the bytes
+     * of UTF-8 can be skipped one at a time, and '#' is allowed because
+     * it may appear in symbols and keywords. It ends a number, though,
+     * as it does in {@link #readNumber}, so that {@code 1#{2}} is two
+     * values.
+     */
+    private static boolean continuesAtom(int u, boolean number) {
+        if (u >= 0x80) {
+            return true;
+        }
+        return u == '#' ? !number : !separatesTokens((char) u);
+    }
+
+    private static void skipStringLiteral(Parseable pbr) throws IOException {
+        if (pbr instanceof IndexedParseable) {
+            IndexedParseable ip = (IndexedParseable) pbr;
+            final int limit = ip.limit;
+            int i = ip.pos;
+            for (;;) {
+                if (i >= limit) {
+                    ip.pos = limit;
+                    throw new EdnSyntaxException(
+                            "Unexpected end of input in string literal");
+                }
+                int u = ip.unitAt(i);
+                if (u == '"') {
+                    ip.pos = i + 1;
+                    return;
+                }
+                i += u == '\\' ? 2 : 1;
+            }
+        }
+        int curr;
+        while ((curr = pbr.read()) != '"') {
+            if (curr == '\\') {
+                curr = pbr.read();
+            }
+            if (curr == END) {
+                throw new EdnSyntaxException(
+                        "Unexpected end of input in string literal");
+            }
+        }
+    }
+
+    private static void skipCharacterLiteral(Parseable pbr)
+            throws IOException {
+        int curr = pbr.read();
+        if (curr == END) {
+            throw new EdnSyntaxException(
+                    "Unexpected end of input following '\'");
+        } else if (isWhitespace((char)curr) && curr != ',') {
+            throw new EdnSyntaxException(
+                    "A backslash introducing character literal must not be "+
+                    "immediately followed by whitespace.");
+        }
+        do {
+            curr = pbr.read();
+        } while (curr != END && !separatesTokens((char)curr));
+        unread(pbr, curr);
+    }
+
     private Object readHashDispatched(Parseable pbr) throws IOException {
         int peek = pbr.read();
         switch(peek) {
@@ -195,6 +421,17 @@ class ScannerImpl implements Scanner {
         case ':':
             return Token.DEFAULT_NAMESPACE_FOLLOWS;
         default:
+            if (tagCache != null && peek < 0x80
+                && pbr instanceof IndexedParseable) {
+                IndexedParseable ip = (IndexedParseable) pbr;
+                int start = ip.pos - 1;
+                Tag t = tagCache.lookup(ip, start);
+                if (t == null) {
+                    t = newTag(readSymbol(peek, pbr));
+                    tagCache.put(ip, start, ip.pos, t);
+                }
+                return t;
+            }
             return newTag(readSymbol(peek, pbr));
         }
     }
@@ -238,6 +475,10 @@ class ScannerImpl implements Scanner {
     }
 
     private void skipWhitespaceAndComments(Parseable pbr) throws IOException {
+        if (pbr instanceof IndexedParseable) {
+            skipWhitespaceAndComments((IndexedParseable) pbr);
+            return;
+        }
         for (;;) {
             skipWhitespace(pbr);
             int curr = pbr.read();
@@ -249,6 +490,25 @@ class ScannerImpl implements Scanner {
         }
     }
 
+    static void skipWhitespaceAndComments(IndexedParseable ip) {
+        final int limit = ip.limit;
+        int i = ip.pos;
+        while (i < limit) {
+            int u = ip.unitAt(i);
+            if (u == ';') {
+                do {
+                    i++;
+                } while (i < limit
+                         && (u = ip.unitAt(i)) != '\n' && u != '\r');
+            } else if (isWhitespace((char) u)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        ip.pos = i;
+    }
+
     private void skipWhitespace(Parseable pbr) throws IOException {
         int curr;
         do {
@@ -339,7 +599,10 @@ class ScannerImpl implements Scanner {
     }
 
     private String readStringLiteral(Parseable pbr) throws IOException {
-        StringBuffer b = new StringBuffer();
+        if (pbr instanceof IndexedParseable) {
+            return readStringLiteral((IndexedParseable) pbr);
+        }
+        StringBuilder b = new StringBuilder();
         for (;;) {
             int curr = pbr.read();
             switch (curr) {
@@ -347,66 +610,9 @@ class ScannerImpl implements Scanner {
                 throw new EdnSyntaxException(
                         "Unexpected end of input in string literal");
             case '"':
-                return b.toString();
+                return canonical(b.toString());
             case '\\':
-                curr = pbr.read();
-                switch (curr) {
-                case END:
-                    throw new EdnSyntaxException(
-                            "Unexpected end of input in string literal");
-                case 'b':
-                    b.append('\b');
-                    break;
-                case 't':
-                    b.append('\t');
-                    break;
-                case 'n':
-                    b.append('\n');
-                    break;
-                case 'f':
-                    b.append('\f');
-                    break;
-                case 'r':
-                    b.append('\r');
-                    break;
-                case '"':
-                    b.append('"');
-                    break;
-                case '\'':
-                    b.append('\'');
-                    break;
-                case '\\':
-                    b.append('\\');
-                    break;
-                case 'u':
-                    if (!unicodeEscapesInStringLiteralsAreAccepted) {
-                        throw new EdnSyntaxException(
-                          "Unsupported '" + ((char) curr)
-                            + "' escape in string. "
-                            + "(Unicode escapes disabled by Parser.Config)"
-                        );
-                    }
-                    /*
-                    2020-05-01 Support for reading unicode escapes within
-                    string literals is an extension to EDN. It is not part of
-                    the spec described here: https://github.com/edn-format/edn
-                    */
-                    int v = 0;
-                    for (int i = 0; i < 4; i++) {
-                        curr = pbr.read();
-                        int d = Character.digit(curr, 16);
-                        if (d == -1) {
-                            throw new EdnSyntaxException(
-                              "Invalid \\u Unicode escape in string.");
-                        }
-                        v = v * 16 + d;
-                    }
-                    b.append((char)v);
-                    break;
-                default:
-                    throw new EdnSyntaxException("Unsupported '"+ ((char)curr)
-                            +"' escape in string");
-                }
+                b.append(readEscapedChar(pbr));
                 break;
             default:
                 b.append((char)curr);
@@ -414,20 +620,149 @@ class ScannerImpl implements Scanner {
         }
     }
 
+    /**
+     * Scan ahead to the closing quote. Escape-free literals, which are
+     * by far the most common, become a String in a single copy. Literals
+     * containing escapes are assembled in the parseable's scratch buffer,
+     * which is reused from one such literal to the next.
+     */
+    private String readStringLiteral(IndexedParseable ip) throws IOException {
+        final int limit = ip.limit;
+        StringBuilder b = null;
+        int start = ip.pos;
+        int i = start;
+        for (;;) {
+            if (i >= limit) {
+                ip.pos = i;
+                throw new EdnSyntaxException(
+                        "Unexpected end of input in string literal");
+            }
+            int u = ip.unitAt(i);
+            if (u == '"') {
+                ip.pos = i + 1;
+                if (b == null) {
+                    return stringCache == null ? ip.text(start, i)
+                      : stringCache.text(ip, start, i);
+                }
+                ip.appendText(b, start, i);
+                return canonical(b.toString());
+            } else if (u == '\\') {
+                if (b == null) {
+                    b = ip.scratch;
+                    if (b == null) {
+                        b = ip.scratch = new StringBuilder(i - start + 16);
+                    } else {
+                        b.setLength(0);
+                    }
+                }
+                ip.appendText(b, start, i);
+                ip.pos = i + 1;
+                b.append(readEscapedChar(ip));
+                start = i = ip.pos;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private String canonical(String s) {
+        return stringCache == null ? s : stringCache.canonical(s);
+    }
+
+    /**
+     * Read the remainder of an escape sequence in a string literal, the
+     * leading backslash having already been consumed.
+     */
+    private char readEscapedChar(Parseable pbr) throws IOException {
+        int curr = pbr.read();
+        switch (curr) {
+        case END:
+            throw new EdnSyntaxException(
+                    "Unexpected end of input in string literal");
+        case 'b':
+            return '\b';
+        case 't':
+            return '\t';
+        case 'n':
+            return '\n';
+        case 'f':
+            return '\f';
+        case 'r':
+            return '\r';
+        case '"':
+            return '"';
+        case '\'':
+            return '\'';
+        case '\\':
+            return '\\';
+        case 'u':
+            if (!unicodeEscapesInStringLiteralsAreAccepted) {
+                throw new EdnSyntaxException(
+                  "Unsupported '" + ((char) curr)
+                    + "' escape in string. "
+                    + "(Unicode escapes disabled by Parser.Config)"
+                );
+            }
+            /*
+            2020-05-01 Support for reading unicode escapes within
+            string literals is an extension to EDN. It is not part of
+            the spec described here: https://github.com/edn-format/edn
+            */
+            int v = 0;
+            for (int i = 0; i < 4; i++) {
+                curr = pbr.read();
+                int d = Character.digit(curr, 16);
+                if (d == -1) {
+                    throw new EdnSyntaxException(
+                      "Invalid \\u Unicode escape in string.");
+                }
+                v = v * 16 + d;
+            }
+            return (char)v;
+        default:
+            throw new EdnSyntaxException("Unsupported '"+ ((char)curr)
+                    +"' escape in string");
+        }
+    }
+
     private Object readNumber(int curr, Parseable pbr) throws IOException {
         assert curr != END && CharClassify.startsNumber((char)curr);
-        StringBuffer digits = new StringBuffer();
+        if (pbr instanceof IndexedParseable) {
+            return readNumber(curr, (IndexedParseable) pbr);
+        }
+        // The digits are accumulated into n, and only written out as
+        // text once they overflow a long, or the literal turns out not
+        // to be a plain integer.
+        StringBuilder digits = null;
+        final boolean negative = (curr == '-');
+        long n = 0;
+        int count = 0;
 
-        if (curr != '+') {
-            digits.append((char)curr);
+        if (isDigit((char)curr)) {
+            n = accumulate(n, curr - '0', negative);
+            count++;
         }
         curr = pbr.read();
         while (curr != END && isDigit((char)curr)) {
-            digits.append((char)curr);
+            if (digits == null) {
+                long m = accumulate(n, curr - '0', negative);
+                if (m <= 0) {
+                    n = m;
+                    count++;
+                } else {
+                    digits = digitText(negative, n, count);
+                    digits.append((char)curr);
+                }
+            } else {
+                digits.append((char)curr);
+            }
             curr = pbr.read();
         }
 
         if (curr == '.' || curr == 'e' || curr == 'E' || curr == 'M') {
+            if (digits == null) {
+                digits = digitText(negative, n, count);
+            }
             if (curr == '.') {
                 do {
                     digits.append((char)curr);
@@ -442,7 +777,15 @@ class ScannerImpl implements Scanner {
                     throw new EdnSyntaxException(
                             "Unexpected end of input in numeric literal");
                 }
-                if (!(curr == '-' || curr == '+' || isDigit((char)curr))) {
+                if (curr == '-' || curr == '+') {
+                    digits.append((char)curr);
+                    curr = pbr.read();
+                    if (curr == END) {
+                        throw new EdnSyntaxException(
+                                "Unexpected end of input in numeric literal");
+                    }
+                }
+                if (!isDigit((char)curr)) {
                     throw new EdnSyntaxException(
                             "Not a number: '"+ digits + ((char)curr) +"'.");
                 }
@@ -462,38 +805,296 @@ class ScannerImpl implements Scanner {
                         "Not a number: '"+ digits + ((char)curr) +"'.");
             }
             unread(pbr, curr);
-
-            if (decimal) {
-                BigDecimal d = new BigDecimal(digits.toString());
-                return bigDecimalHandler.transform(BIG_DECIMAL_TAG, d);
-            } else {
-                double d = Double.parseDouble(digits.toString());
-                return doubleHandler.transform(DOUBLE_TAG, d);
-            }
+            return floatingPoint(digits.toString(), decimal);
         } else {
             final boolean bigint = (curr == 'N');
             if (bigint) {
                 curr = pbr.read();
             }
 
+            if (digits == null
+                && (bigint || curr != END && !separatesTokens((char)curr))) {
+                digits = digitText(negative, n, count);
+            }
             if (curr != END && !separatesTokens((char)curr)) {
                 throw new EdnSyntaxException(
                         "Not a number: '"+ digits + ((char)curr) +"'.");
             }
             unread(pbr, curr);
+            if (digits != null) {
+                return integer(digits.toString(), bigint);
+            }
+            return longValue(negative ? n : -n);
+        }
+    }
+
+    /**
+     * Return the text of an integer literal of {@code count} digits
+     * whose value, negated as by {@link #accumulate}, is {@code n}.
+     * Leading zeros are restored, so the text is as it was read.
+     */
+    private static StringBuilder digitText(boolean negative, long n,
+                                           int count) {
+        StringBuilder b = new StringBuilder(count + 16);
+        if (negative) {
+            b.append('-');
+        }
+        // n <= 0, so its decimal form is '-' followed by the magnitude;
+        // this holds even for Long.MIN_VALUE.
+        String magnitude = n == 0 ? "" : Long.toString(n).substring(1);
+        for (int i = magnitude.length(); i < count; i++) {
+            b.append('0');
+        }
+        return b.append(magnitude);
+    }
 
-            final BigInteger n = new BigInteger(digits.toString());
+    /**
+     * Read a number by finding the end of each run of digits by index,
+     * rather than character by character. This accepts exactly the same
+     * syntax as the character at a time reader above.
+     */
+    private Object readNumber(int curr, IndexedParseable ip) {
+        final int start = curr == '+' ? ip.pos : ip.pos - 1;
+        int i = skipDigits(ip, ip.pos);
+        int u = unitAt(ip, i);
+
+        if (u == '.' || u == 'e' || u == 'E' || u == 'M') {
+            if (u == '.') {
+                i = skipDigits(ip, i + 1);
+                u = unitAt(ip, i);
+            }
+
+            if (u == 'e' || u == 'E') {
+                u = unitAt(ip, ++i);
+                if (u == END) {
+                    ip.pos = i;
+                    throw new EdnSyntaxException(
+                            "Unexpected end of input in numeric literal");
+                }
+                if (u == '-' || u == '+') {
+                    u = unitAt(ip, ++i);
+                    if (u == END) {
+                        ip.pos = i;
+                        throw new EdnSyntaxException(
+                                "Unexpected end of input in numeric literal");
+                    }
+                }
+                if (!isDigit((char)u)) {
+                    throw notANumber(ip, start, i, u);
+                }
+                i = skipDigits(ip, i + 1);
+                u = unitAt(ip, i);
+            }
+
+            final int end = i;
+            final boolean decimal = (u == 'M');
+            if (decimal) {
+                u = unitAt(ip, ++i);
+            }
+
+            if (u != END && !separatesTokens((char)u)) {
+                throw notANumber(ip, start, end, u);
+            }
+            ip.pos = i;
+            if (decimal) {
+                return floatingPoint(ip.text(start, end), true);
+            }
+            return doubleValue(parseDouble(ip, start, end));
+        } else {
+            final int end = i;
+            final boolean bigint = (u == 'N');
+            if (bigint) {
+                u = unitAt(ip, ++i);
+            }
+
+            if (u != END && !separatesTokens((char)u)) {
+                throw notANumber(ip, start, end, u);
+            }
+            ip.pos = i;
+            return integer(ip, start, end, bigint);
+        }
+    }
+
+    /**
+     * Return the integer whose optional '-' and digits occupy the units
+     * {@code [start, end)} of {@code ip}. A BigInteger is only created
+     * for a literal marked with 'N', or one too large for a long.
+     */
+    private Object integer(IndexedParseable ip, int start, int end,
+                           boolean bigint) {
+        if (!bigint) {
+            final boolean negative = ip.unitAt(start) == '-';
+            long n = 0;
+            for (int i = negative ? start + 1 : start; i < end; i++) {
+                n = accumulate(n, ip.unitAt(i) - '0', negative);
+            }
+            if (n <= 0) {
+                return longValue(negative ? n : -n);
+            }
+        }
+        return integer(ip.text(start, end), bigint);
+    }
 
-            if (bigint || MIN_LONG.compareTo(n) > 0 || n.compareTo(MAX_LONG) > 0) {
-                return bigIntegerHandler.transform(BIG_INTEGER_TAG, n);
+    /**
+     * Append decimal digit {@code d} to {@code n}, which holds the
+     * digits read so far <em>negated</em>, so that Long.MIN_VALUE can be
+     * accumulated without overflowing. Returns 1, which is never a valid
+     * accumulator, once the value no longer fits in a long; 1 is then
+     * returned for all further digits.
+     */
+    private static long accumulate(long n, int d, boolean negative) {
+        if (n > 0 || n < MIN_LONG_DIV_10) {
+            return 1;
+        }
+        n *= 10;
+        if (n < (negative ? Long.MIN_VALUE : -Long.MAX_VALUE) + d) {
+            return 1;
+        }
+        return n - d;
+    }
+
+    private static int unitAt(IndexedParseable ip, int i) {
+        return i < ip.limit ? ip.unitAt(i) : END;
+    }
+
+    private static int skipDigits(IndexedParseable ip, int i) {
+        final int limit = ip.limit;
+        while (i < limit && isDigit((char) ip.unitAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static EdnSyntaxException notANumber(IndexedParseable ip,
+                                                 int start, int end, int u) {
+        return new EdnSyntaxException(
+                "Not a number: '"+ ip.text(start, end) + ((char)u) +"'.");
+    }
+
+    private Object floatingPoint(String digits, boolean decimal) {
+        if (decimal) {
+            BigDecimal d = new BigDecimal(digits);
+            return bigDecimalHandler.transform(BIG_DECIMAL_TAG, d);
+        } else {
+            return doubleValue(parseDouble(new StringParseable(digits), 0,
+                                           digits.length()));
+        }
+    }
+
+    private Object doubleValue(double d) {
+        if (primitiveDoubleHandler != null) {
+            return primitiveDoubleHandler.transformDouble(d);
+        }
+        return doubleHandler.transform(DOUBLE_TAG, d);
+    }
+
+    private Object longValue(long n) {
+        if (primitiveLongHandler != null) {
+            return primitiveLongHandler.transformLong(n);
+        }
+        return longHandler.transform(LONG_TAG, n);
+    }
+
+    /**
+     * Convert the floating point literal in the units {@code [start, end)}
+     * of {@code ip} to a double, reading its digits by index. Literals
+     * with more significant digits than fit in a long, and the rare
+     * values {@link DecimalToDouble} can't decide, are left to
+     * {@link Double#parseDouble(String)}.
+     */
+    private static double parseDouble(IndexedParseable ip, int start,
+                                      int end) {
+        int i = start;
+        final boolean negative = ip.unitAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long w = 0;
+        int digits = 0;
+        int q = 0;
+        boolean truncated = false;
+        int u = END;
+        for (; i < end && isDigit((char) (u = ip.unitAt(i))); i++) {
+            if (digits < DecimalToDouble.MAX_DIGITS) {
+                if (w != 0 || u != '0') {
+                    w = w * 10 + (u - '0');
+                    digits++;
+                }
             } else {
-                return longHandler.transform(LONG_TAG, n.longValue());
+                q++;
+                truncated |= u != '0';
+            }
+        }
+        if (u == '.') {
+            for (i++; i < end && isDigit((char) (u = ip.unitAt(i))); i++) {
+                if (digits < DecimalToDouble.MAX_DIGITS) {
+                    if (w != 0 || u != '0') {
+                        w = w * 10 + (u - '0');
+                        digits++;
+                    }
+                    q--;
+                } else {
+                    truncated |= u != '0';
+                }
             }
         }
+        if (u == 'e' || u == 'E') {
+            u = ++i < end ? ip.unitAt(i) : END;
+            final boolean negativeExponent = u == '-';
+            if (u == '-' || u == '+') {
+                i++;
+            }
+            if (i == end) {
+                throw new EdnSyntaxException(
+                        "Not a number: '"+ ip.text(start, end) +"'.");
+            }
+            int e = 0;
+            for (; i < end; i++) {
+                u = ip.unitAt(i);
+                if (!isDigit((char) u)) {
+                    throw new EdnSyntaxException(
+                            "Not a number: '"+ ip.text(start, end) +"'.");
+                }
+                if (e < 100000) {
+                    e = e * 10 + (u - '0');
+                }
+            }
+            q += negativeExponent ? -e : e;
+        }
+        if (!truncated) {
+            double d = DecimalToDouble.toDouble(negative, w, q);
+            if (d == d) {
+                return d;
+            }
+        }
+        return Double.parseDouble(ip.text(start, end));
+    }
+
+    private Object integer(String digits, boolean bigint) {
+        final BigInteger n = new BigInteger(digits);
+
+        if (bigint || MIN_LONG.compareTo(n) > 0 || n.compareTo(MAX_LONG) > 0) {
+            return bigIntegerHandler.transform(BIG_INTEGER_TAG, n);
+        } else {
+            return longValue(n.longValue());
+        }
     }
 
     private Keyword readKeyword(Parseable pbr) throws IOException {
-        Symbol sym = readSymbol(pbr);
+        if (pbr instanceof IndexedParseable) {
+            IndexedParseable ip = (IndexedParseable) pbr;
+            Keyword k = keywordCache.lookup(ip, ip.pos);
+            if (k == null) {
+                int start = ip.pos;
+                k = newKeyword(readSymbol(pbr));
+                keywordCache.put(ip, start, ip.pos, k);
+            }
+            return k;
+        }
+        return newKeyword(readSymbol(pbr));
+    }
+
+    private static Keyword newKeyword(Symbol sym) {
         if (SLASH_SYMBOL.equals(sym)) {
             throw new EdnSyntaxException("':/' is not a valid keyword.");
         }
@@ -509,6 +1110,9 @@ class ScannerImpl implements Scanner {
             throw new EdnSyntaxException(
                     "Unexpected end of input while reading an identifier");
         }
+        if (curr < 0x80 && pbr instanceof IndexedParseable) {
+            return readSymbol(curr, (IndexedParseable) pbr);
+        }
         StringBuilder b = new StringBuilder();
         int n = 0;
         int p = Integer.MIN_VALUE;
@@ -526,7 +1130,44 @@ class ScannerImpl implements Scanner {
         return makeSymbol(b, n, p);
     }
 
-    private Symbol makeSymbol(StringBuilder b, int slashCount, int slashPos) {
+    /**
+     * Read a symbol whose first character, {@code curr}, has just been
+     * read from {@code ip}, finding its end by index.
+     */
+    private Symbol readSymbol(int curr, IndexedParseable ip) {
+        final int start = ip.pos - 1;
+        if (symbolCache != null) {
+            Symbol cached = symbolCache.lookup(ip, start);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final int limit = ip.limit;
+        int n = 0;
+        int p = Integer.MIN_VALUE;
+        int i = start;
+        do {
+            if (curr == '/') {
+                n += 1;
+                p = i - start;
+            }
+            if (++i == limit) {
+                break;
+            }
+            curr = ip.unitAt(i);
+        } while (symbolConstituent((char)curr));
+        ip.pos = i;
+
+        String s = ip.text(start, i);
+        validateUseOfSlash(s, n, p);
+        Symbol sym = makeSymbol(s, n, p);
+        if (symbolCache != null) {
+            symbolCache.put(ip, start, i, sym);
+        }
+        return sym;
+    }
+
+    private Symbol makeSymbol(CharSequence b, int slashCount, int slashPos) {
         if (slashCount == 0) {
             return newSymbol(b.toString());
         } else if (slashCount == 1) {
@@ -534,11 +1175,12 @@ class ScannerImpl implements Scanner {
                 assert b.length() == 1 && b.charAt(0) == '/';
                 return newSymbol(b.toString());
             } else {
-                return newSymbol(b.substring(0, slashPos), b.substring(slashPos+1));
+                return newSymbol(b.subSequence(0, slashPos).toString(),
+                        b.subSequence(slashPos+1, b.length()).toString());
             }
         } else {
             assert slashCount == 2 && slashPos == b.length() - 1 && b.charAt(b.length() - 2) == '/';
-            return newSymbol(b.substring(0, slashPos - 1), "/");
+            return newSymbol(b.subSequence(0, slashPos - 1).toString(), "/");
         }
     }
 
@@ -565,6 +1207,7 @@ class ScannerImpl implements Scanner {
         }
     }
 
+    private static final long MIN_LONG_DIV_10 = Long.MIN_VALUE / 10;
     private static final BigInteger MIN_LONG = BigInteger.valueOf(Long.MIN_VALUE);
     private static final BigInteger MAX_LONG = BigInteger.valueOf(Long.MAX_VALUE);
 
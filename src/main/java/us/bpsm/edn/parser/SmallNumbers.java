@@ -0,0 +1,40 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+/**
+ * Shared boxes for the small integral numbers which dominate typical
+ * edn: counts, indices, enumerations, flags. {@link Long#valueOf(long)}
+ * only caches {@code [-128, 127]} and {@link Double#valueOf(double)}
+ * caches nothing.
+ */
+final class SmallNumbers {
+
+    static final int MIN = -128;
+    static final int MAX = 1023;
+
+    private static final Long[] LONGS = new Long[MAX - MIN + 1];
+    private static final Double[] DOUBLES = new Double[MAX - MIN + 1];
+    static {
+        for (int i = MIN; i <= MAX; i++) {
+            LONGS[i - MIN] = Long.valueOf(i);
+            DOUBLES[i - MIN] = Double.valueOf(i);
+        }
+    }
+
+    private SmallNumbers() {
+        throw new UnsupportedOperationException();
+    }
+
+    static Long valueOf(long n) {
+        return MIN <= n && n <= MAX ? LONGS[(int) n - MIN] : Long.valueOf(n);
+    }
+
+    static Double valueOf(double d) {
+        int i = (int) d;
+        if (i == d && MIN <= i && i <= MAX
+            && (i != 0 || Double.doubleToRawLongBits(d) == 0)) {
+            return DOUBLES[i - MIN];
+        }
+        return Double.valueOf(d);
+    }
+}
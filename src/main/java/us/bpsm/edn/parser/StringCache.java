@@ -0,0 +1,141 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+/**
+ * A bounded table of the short string literals a scanner has read,
+ * so that a string repeated throughout a document is returned as one
+ * canonical String rather than as many equal copies. An escape-free
+ * ASCII literal in an {@link IndexedParseable} is looked up by its
+ * units, so a hit allocates nothing at all.
+ *
+ * <p>The table is two-way set associative. Each slot has a reference
+ * bit, set whenever the slot is hit; when a set is full, a string
+ * replaces the first entry in it whose bit is clear, clearing the bits
+ * of those it passes over. This is the clock algorithm with a clock per
+ * set: strings that keep recurring stay, and one-off strings are
+ * evicted first.
+ *
+ * <p>Scanners are shared between threads, and so is this table.
+ * Strings are immutable, so reading and replacing slots without
+ * synchronization is safe: a racing thread sees some String or null,
+ * and a lost update costs a later miss or a duplicate, never a wrong
+ * result. Reference bits are only ever a hint. A candidate is always
+ * compared in full with the text it is to stand for.
+ */
+final class StringCache {
+
+    private final String[] slots;
+    private final boolean[] referenced;
+    private final int shift;
+    private final int mask;
+    private final int maxLength;
+
+    /** The largest number of strings held. */
+    static final int MAX_SIZE = 1 << 30;
+
+    /**
+     * @param size the number of strings to hold, rounded up to a power
+     *        of two no smaller than 2, and no larger than
+     *        {@link #MAX_SIZE}.
+     * @param maxLength strings longer than this are never cached.
+     */
+    StringCache(int size, int maxLength) {
+        int n = size <= 2 ? 2 : size >= MAX_SIZE ? MAX_SIZE
+          : Integer.highestOneBit(size - 1) << 1;
+        this.slots = new String[n];
+        this.referenced = new boolean[n];
+        this.shift = 32 - Integer.numberOfTrailingZeros(n);
+        this.mask = n - 2;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Return the text of the units {@code [start, end)} of {@code ip},
+     * which contain no escapes, as a canonical String where possible.
+     */
+    String text(IndexedParseable ip, int start, int end) {
+        if (end - start > maxLength) {
+            return ip.text(start, end);
+        }
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            int u = ip.unitAt(i);
+            if (u >= 0x80) {
+                return canonical(ip.text(start, end));
+            }
+            h = 31 * h + u;
+        }
+        // h is now the hashCode() of the String we're looking for.
+        int set = index(h);
+        for (int slot = set; slot <= set + 1; slot++) {
+            String s = slots[slot];
+            if (s != null && s.length() == end - start && s.hashCode() == h
+                && regionMatches(s, ip, start)) {
+                touch(slot);
+                return s;
+            }
+        }
+        String s = ip.text(start, end);
+        add(set, s);
+        return s;
+    }
+
+    /** Return the canonical String equal to {@code s}, where possible. */
+    String canonical(String s) {
+        if (s.length() > maxLength) {
+            return s;
+        }
+        int set = index(s.hashCode());
+        for (int slot = set; slot <= set + 1; slot++) {
+            String c = slots[slot];
+            if (s.equals(c)) {
+                touch(slot);
+                return c;
+            }
+        }
+        add(set, s);
+        return s;
+    }
+
+    /**
+     * Fibonacci hashing: the top bits of the product choose the set, and
+     * the low bit is cleared to give the set's first slot.
+     */
+    int index(int h) {
+        return (h * 0x9E3779B9 >>> shift) & mask;
+    }
+
+    private void touch(int slot) {
+        if (!referenced[slot]) {
+            referenced[slot] = true;
+        }
+    }
+
+    private void add(int set, String s) {
+        int victim = set;
+        if (slots[set] != null) {
+            if (slots[set + 1] == null) {
+                victim = set + 1;
+            } else if (referenced[set]) {
+                referenced[set] = false;
+                if (referenced[set + 1]) {
+                    referenced[set + 1] = false;
+                } else {
+                    victim = set + 1;
+                }
+            }
+        }
+        slots[victim] = s;
+        referenced[victim] = false;
+    }
+
+    private static boolean regionMatches(String s, IndexedParseable ip,
+                                         int from) {
+        for (int j = 0; j < s.length(); j++) {
+            if (s.charAt(j) != ip.unitAt(from + j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+/**
+ * An {@link IndexedParseable} reading from a {@link String}.
+ */
+final class StringParseable extends IndexedParseable {
+    private final String s;
+
+    StringParseable(String s) {
+        this(s, 0, s.length());
+    }
+
+    private StringParseable(String s, int from, int to) {
+        super(from, to);
+        this.s = s;
+    }
+
+    IndexedParseable slice(int from, int to) {
+        return new StringParseable(s, from, to);
+    }
+
+    public int read() {
+        return pos < limit ? s.charAt(pos++) : END_OF_INPUT;
+    }
+
+    int unitAt(int i) {
+        return s.charAt(i);
+    }
+
+    String text(int from, int to) {
+        return s.substring(from, to);
+    }
+
+    void appendText(StringBuilder b, int from, int to) {
+        b.append(s, from, to);
+    }
+}
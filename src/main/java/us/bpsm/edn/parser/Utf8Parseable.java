@@ -0,0 +1,157 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An {@link IndexedParseable} reading UTF-8 encoded bytes from a
+ * {@link ByteBuffer}, which may be direct. The units seen by the scanner
+ * are the bytes themselves, so ASCII tokens are scanned without any
+ * decoding. Only string literals, character literals and other
+ * non-ASCII text are decoded, and only when they are read.
+ *
+ * <p>Malformed input is replaced by U+FFFD, as an
+ * {@link java.io.InputStreamReader} would.
+ */
+final class Utf8Parseable extends IndexedParseable {
+    private static final char REPLACEMENT = '�';
+
+    private final ByteBuffer buffer;
+    /** The buffer's backing array, when accessible; else null. */
+    private final byte[] array;
+
+    /** Low surrogate still to be returned by read(), or 0. */
+    private char pendingLow;
+    /** Value of pos before the most recent read(). */
+    private int unreadPos;
+    /** Value of pendingLow before the most recent read(). */
+    private char unreadLow;
+    /** Scratch space for decoding from a buffer without an array. */
+    private byte[] decodeBuffer;
+    /** A view of buffer used to copy bytes into decodeBuffer in bulk. */
+    private ByteBuffer view;
+
+    private Utf8Parseable(ByteBuffer buffer, byte[] array, int pos,
+                          int limit) {
+        super(pos, limit);
+        this.buffer = buffer;
+        this.array = array;
+    }
+
+    /**
+     * The bytes between the buffer's position and limit. The buffer's
+     * position is not modified.
+     */
+    static Utf8Parseable newInstance(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return new Utf8Parseable(null, buffer.array(),
+                offset + buffer.position(), offset + buffer.limit());
+        }
+        return new Utf8Parseable(buffer, null, buffer.position(),
+                                 buffer.limit());
+    }
+
+    static Utf8Parseable newInstance(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new IndexOutOfBoundsException(
+                "offset " + offset + " and length " + length +
+                " do not lie within an array of length " + bytes.length);
+        }
+        return new Utf8Parseable(null, bytes, offset, offset + length);
+    }
+
+    IndexedParseable slice(int from, int to) {
+        return new Utf8Parseable(buffer, array, from, to);
+    }
+
+    int unitAt(int i) {
+        return (array != null ? array[i] : buffer.get(i)) & 0xFF;
+    }
+
+    public int read() {
+        unreadPos = pos;
+        unreadLow = pendingLow;
+        if (pendingLow != 0) {
+            char c = pendingLow;
+            pendingLow = 0;
+            return c;
+        }
+        if (pos >= limit) {
+            return END_OF_INPUT;
+        }
+        int b = unitAt(pos);
+        if (b < 0x80) {
+            pos++;
+            return b;
+        }
+        return readMultiByte(b);
+    }
+
+    public void unread(int ch) {
+        if (ch != END_OF_INPUT) {
+            pos = unreadPos;
+            pendingLow = unreadLow;
+        }
+    }
+
+    private int readMultiByte(int b) {
+        int n;
+        int cp;
+        if (0xC2 <= b && b <= 0xDF) {
+            n = 1;
+            cp = b & 0x1F;
+        } else if (0xE0 <= b && b <= 0xEF) {
+            n = 2;
+            cp = b & 0x0F;
+        } else if (0xF0 <= b && b <= 0xF4) {
+            n = 3;
+            cp = b & 0x07;
+        } else {
+            pos++;
+            return REPLACEMENT;
+        }
+        for (int k = 1; k <= n; k++) {
+            int c = pos + k < limit ? unitAt(pos + k) : -1;
+            if ((c & 0xC0) != 0x80) {
+                pos += k;
+                return REPLACEMENT;
+            }
+            cp = (cp << 6) | (c & 0x3F);
+        }
+        pos += n + 1;
+        if ((n == 2 && (cp < 0x800 || Character.isSurrogate((char) cp)))
+            || (n == 3 && (cp < 0x10000 || cp > Character.MAX_CODE_POINT))) {
+            return REPLACEMENT;
+        }
+        if (n == 3) {
+            pendingLow = Character.lowSurrogate(cp);
+            return Character.highSurrogate(cp);
+        }
+        return cp;
+    }
+
+    String text(int from, int to) {
+        assert pendingLow == 0;
+        if (array != null) {
+            return new String(array, from, to - from, StandardCharsets.UTF_8);
+        }
+        int n = to - from;
+        if (decodeBuffer == null || decodeBuffer.length < n) {
+            decodeBuffer = new byte[Math.max(n, 64)];
+            view = buffer.duplicate();
+        }
+        // Buffer's methods, because ByteBuffer's covariant overrides
+        // do not exist on Java 8.
+        ((Buffer) view).limit(to);
+        ((Buffer) view).position(from);
+        view.get(decodeBuffer, 0, n);
+        return new String(decodeBuffer, 0, n, StandardCharsets.UTF_8);
+    }
+
+    void appendText(StringBuilder b, int from, int to) {
+        b.append(text(from, to));
+    }
+}
@@ -0,0 +1,106 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import us.bpsm.edn.EdnException;
+
+/**
+ * A Spliterator over the top-level values of a {@link Parseable}.
+ *
+ * <p>Only an {@link IndexedParseable} can be split. Splitting skips
+ * whole values from the start of the remaining input until it has passed
+ * the middle, and hands the values skipped over to a new Spliterator
+ * reading a slice of the same input. The remainder continues to be read
+ * by this Spliterator. Skipping does not build collections or call tag
+ * handlers, so it is considerably cheaper than parsing.
+ */
+final class ValueSpliterator implements Spliterator<Object> {
+
+    /**
+     * Inputs with fewer units than this remaining are not worth
+     * splitting.
+     */
+    static final int MIN_SPLIT_UNITS = 1 << 14;
+
+    private final Parser parser;
+    private final Parseable pbr;
+
+    ValueSpliterator(Parser parser, Parseable pbr) {
+        if (parser == null || pbr == null) {
+            throw new NullPointerException();
+        }
+        this.parser = parser;
+        this.pbr = pbr;
+    }
+
+    public boolean tryAdvance(Consumer<? super Object> action) {
+        Object value = parser.nextValue(pbr);
+        if (value == Parser.END_OF_INPUT) {
+            return false;
+        }
+        action.accept(value);
+        return true;
+    }
+
+    public void forEachRemaining(Consumer<? super Object> action) {
+        Object value;
+        while ((value = parser.nextValue(pbr)) != Parser.END_OF_INPUT) {
+            action.accept(value);
+        }
+    }
+
+    public Spliterator<Object> trySplit() {
+        if (!(pbr instanceof IndexedParseable)) {
+            return null;
+        }
+        IndexedParseable ip = (IndexedParseable) pbr;
+        final int start = ip.pos;
+        final int limit = ip.limit;
+        if (limit - start < MIN_SPLIT_UNITS) {
+            return null;
+        }
+        final int middle = start + (limit - start) / 2;
+        IndexedParseable scout = ip.slice(start, limit);
+        try {
+            while (scout.pos < middle) {
+                if (!skipValue(scout)) {
+                    return null;
+                }
+            }
+        } catch (EdnException e) {
+            // Leave the error to be reported in order, by tryAdvance.
+            return null;
+        }
+        final int boundary = scout.pos;
+        if (boundary >= limit) {
+            return null;
+        }
+        ip.pos = boundary;
+        return new ValueSpliterator(parser, ip.slice(start, boundary));
+    }
+
+    private boolean skipValue(Parseable p) {
+        if (parser instanceof ParserImpl) {
+            return ((ParserImpl) parser).skipValue(p);
+        }
+        return parser.nextValue(p) != Parser.END_OF_INPUT;
+    }
+
+    /**
+     * The number of units remaining for an {@link IndexedParseable},
+     * which bounds the number of values remaining; otherwise unknown.
+     */
+    public long estimateSize() {
+        if (pbr instanceof IndexedParseable) {
+            IndexedParseable ip = (IndexedParseable) pbr;
+            return ip.limit - ip.pos;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public int characteristics() {
+        return ORDERED;
+    }
+}
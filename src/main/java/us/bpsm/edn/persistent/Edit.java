@@ -0,0 +1,22 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.persistent;
+
+/**
+ * Identifies the transient collection that owns a node. A transient may
+ * modify the nodes it owns in place, as long as it hasn't been made
+ * persistent. Nodes compare their owner by identity.
+ */
+final class Edit {
+    private boolean active = true;
+
+    void ensureActive() {
+        if (!active) {
+            throw new IllegalStateException(
+              "Transient used after persistent() call");
+        }
+    }
+
+    void deactivate() {
+        active = false;
+    }
+}
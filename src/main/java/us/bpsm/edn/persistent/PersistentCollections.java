@@ -0,0 +1,136 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.persistent;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.parser.CollectionBuilder;
+import us.bpsm.edn.parser.Parser;
+
+/**
+ * Factories that make a {@link Parser} build persistent collections.
+ * Install them with
+ * {@link Parser.Config.Builder#setVectorFactory(CollectionBuilder.Factory)},
+ * {@link Parser.Config.Builder#setSetFactory(CollectionBuilder.Factory)}
+ * and {@link Parser.Config.Builder#setMapFactory(CollectionBuilder.Factory)}:
+ *
+ * <pre>
+ * {@code Parser.Config cfg = Parsers.newParserConfigBuilder()
+ *     .setVectorFactory(PersistentCollections.vectorFactory())
+ *     .setSetFactory(PersistentCollections.setFactory())
+ *     .setMapFactory(PersistentCollections.mapFactory())
+ *     .build();}
+ * </pre>
+ *
+ * <p>Each collection is built in place by a transient, and only then
+ * frozen, so parsing costs no more than building a HashMap or
+ * ArrayList. Versions derived from a parsed collection with
+ * {@code assoc}, {@code cons} and friends share all but O(log32 n) of
+ * its nodes.
+ */
+public class PersistentCollections {
+
+    private static final CollectionBuilder.Factory VECTOR_FACTORY =
+      new CollectionBuilder.Factory() {
+        public CollectionBuilder builder() {
+            return new CollectionBuilder() {
+                final PersistentVector.Transient<Object> v =
+                  new PersistentVector.Transient<Object>();
+
+                public void add(Object o) {
+                    v.conj(o);
+                }
+
+                public Object build() {
+                    return v.persistent();
+                }
+            };
+        }
+    };
+
+    private static final CollectionBuilder.Factory SET_FACTORY =
+      new CollectionBuilder.Factory() {
+        public CollectionBuilder builder() {
+            return new CollectionBuilder() {
+                final PersistentHashSet.Transient<Object> s =
+                  new PersistentHashSet.Transient<Object>();
+
+                public void add(Object o) {
+                    if (!s.conj(o)) {
+                        throw new EdnSyntaxException(
+                          "Set contains duplicate element '" + o + "'.");
+                    }
+                }
+
+                public Object build() {
+                    return s.persistent();
+                }
+            };
+        }
+    };
+
+    private static final CollectionBuilder.Factory MAP_FACTORY =
+      new CollectionBuilder.Factory() {
+        public CollectionBuilder builder() {
+            return new CollectionBuilder() {
+                final Object none = new Object();
+                final PersistentHashMap.Transient<Object, Object> m =
+                  new PersistentHashMap.Transient<Object, Object>();
+                Object key = none;
+
+                public void add(Object o) {
+                    if (key == none) {
+                        key = o;
+                        if (m.containsKey(key)) {
+                            throw new EdnSyntaxException(
+                              "Map contains duplicate key '" + key + "'.");
+                        }
+                    } else {
+                        m.assoc(key, o);
+                        key = none;
+                    }
+                }
+
+                public Object build() {
+                    if (key != none) {
+                        throw new EdnSyntaxException(
+                          "Every map must have an equal number of keys and values.");
+                    }
+                    return m.persistent();
+                }
+            };
+        }
+    };
+
+    private PersistentCollections() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Return a factory which builds each edn vector as a
+     * {@link PersistentVector}.
+     *
+     * @return a CollectionBuilder.Factory, never null.
+     */
+    public static CollectionBuilder.Factory vectorFactory() {
+        return VECTOR_FACTORY;
+    }
+
+    /**
+     * Return a factory which builds each edn set as a
+     * {@link PersistentHashSet}.
+     *
+     * @return a CollectionBuilder.Factory, never null.
+     */
+    public static CollectionBuilder.Factory setFactory() {
+        return SET_FACTORY;
+    }
+
+    /**
+     * Return a factory which builds each edn map as a
+     * {@link PersistentHashMap}.
+     *
+     * @return a CollectionBuilder.Factory, never null.
+     */
+    public static CollectionBuilder.Factory mapFactory() {
+        return MAP_FACTORY;
+    }
+}
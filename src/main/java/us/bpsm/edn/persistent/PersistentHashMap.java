@@ -0,0 +1,594 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.persistent;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable hash map which shares structure with the maps derived
+ * from it. It is a hash array mapped trie (HAMT): each level of the trie
+ * consumes five bits of a key's hash code, and each node keeps only the
+ * entries and children actually present, indexed by a bitmap.
+ * {@link #get(Object)}, {@link #assoc(Object, Object)} and
+ * {@link #without(Object)} take O(log32 n) steps.
+ *
+ * <p>As a {@link java.util.Map} it is unmodifiable. Keys and values may
+ * be null.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V>
+  implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final PersistentHashMap<Object, Object> EMPTY =
+      new PersistentHashMap<Object, Object>(0, null, false, null);
+
+    private final int count;
+    private final Node root;
+    private final boolean hasNull;
+    private final V nullValue;
+
+    private PersistentHashMap(int count, Node root, boolean hasNull,
+                              V nullValue) {
+        this.count = count;
+        this.root = root;
+        this.hasNull = hasNull;
+        this.nullValue = nullValue;
+    }
+
+    /**
+     * Return the empty map.
+     *
+     * @param <K> the type of the keys.
+     * @param <V> the type of the values.
+     * @return the empty map, never null.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object v = find(key);
+        return v != NOT_FOUND ? (V) v : null;
+    }
+
+    private Object find(Object key) {
+        if (key == null) {
+            return hasNull ? nullValue : NOT_FOUND;
+        }
+        return root != null ? root.find(0, key.hashCode(), key, NOT_FOUND)
+                            : NOT_FOUND;
+    }
+
+    /**
+     * Return a map in which {@code key} maps to {@code val}.
+     *
+     * @param key the key; may be null.
+     * @param val the value; may be null.
+     * @return a new map, or this map if {@code key} already maps to
+     *         {@code val}.
+     */
+    public PersistentHashMap<K, V> assoc(K key, V val) {
+        if (key == null) {
+            if (hasNull && val == nullValue) {
+                return this;
+            }
+            return new PersistentHashMap<K, V>(hasNull ? count : count + 1,
+                                               root, true, val);
+        }
+        boolean[] addedLeaf = new boolean[1];
+        Node newRoot = (root != null ? root : BitmapIndexedNode.EMPTY)
+          .assoc(null, 0, key.hashCode(), key, val, addedLeaf);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<K, V>(addedLeaf[0] ? count + 1 : count,
+                                           newRoot, hasNull, nullValue);
+    }
+
+    /**
+     * Return a map without {@code key}.
+     *
+     * @param key the key to remove; may be null.
+     * @return a new map, or this map if it doesn't contain {@code key}.
+     */
+    public PersistentHashMap<K, V> without(Object key) {
+        if (key == null) {
+            return hasNull
+              ? new PersistentHashMap<K, V>(count - 1, root, false, null)
+              : this;
+        }
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.without(0, key.hashCode(), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<K, V>(count - 1, newRoot, hasNull,
+                                           nullValue);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                final Iterator<Object[]> nodes = new NodeIterator(root);
+                return new Iterator<Map.Entry<K, V>>() {
+                    boolean nullPending = hasNull;
+
+                    public boolean hasNext() {
+                        return nullPending || nodes.hasNext();
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry<K, V> next() {
+                        if (nullPending) {
+                            nullPending = false;
+                            return new SimpleImmutableEntry<K, V>(
+                              null, nullValue);
+                        }
+                        Object[] kv = nodes.next();
+                        return new SimpleImmutableEntry<K, V>(
+                          (K) kv[0], (V) kv[1]);
+                    }
+                };
+            }
+        };
+    }
+
+    /** Keys of the map, without creating entries. */
+    Iterator<Object> keyIterator() {
+        final Iterator<Object[]> nodes = new NodeIterator(root);
+        return new Iterator<Object>() {
+            boolean nullPending = hasNull;
+
+            public boolean hasNext() {
+                return nullPending || nodes.hasNext();
+            }
+
+            public Object next() {
+                if (nullPending) {
+                    nullPending = false;
+                    return null;
+                }
+                return nodes.next()[0];
+            }
+        };
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Builds a map by adding to it in place. Once {@link #persistent()}
+     * has been called, the Transient can't be used any more.
+     */
+    static final class Transient<K, V> {
+        private final Edit edit = new Edit();
+        private final boolean[] addedLeaf = new boolean[1];
+        private int count;
+        private Node root;
+        private boolean hasNull;
+        private V nullValue;
+
+        boolean containsKey(Object key) {
+            edit.ensureActive();
+            if (key == null) {
+                return hasNull;
+            }
+            return root != null &&
+              root.find(0, key.hashCode(), key, NOT_FOUND) != NOT_FOUND;
+        }
+
+        void assoc(K key, V val) {
+            edit.ensureActive();
+            if (key == null) {
+                if (!hasNull) {
+                    count++;
+                }
+                hasNull = true;
+                nullValue = val;
+                return;
+            }
+            addedLeaf[0] = false;
+            root = (root != null ? root : BitmapIndexedNode.EMPTY)
+              .assoc(edit, 0, key.hashCode(), key, val, addedLeaf);
+            if (addedLeaf[0]) {
+                count++;
+            }
+        }
+
+        int size() {
+            return count;
+        }
+
+        PersistentHashMap<K, V> persistent() {
+            edit.ensureActive();
+            edit.deactivate();
+            if (count == 0) {
+                return empty();
+            }
+            return new PersistentHashMap<K, V>(count, root, hasNull,
+                                               nullValue);
+        }
+    }
+
+    abstract static class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        transient final Edit edit;
+
+        Node(Edit edit) {
+            this.edit = edit;
+        }
+
+        abstract Object find(int shift, int hash, Object key,
+                             Object notFound);
+
+        /**
+         * Return a node in which {@code key} maps to {@code val}. When
+         * {@code edit} owns this node, it is modified in place. Sets
+         * {@code addedLeaf[0]} if {@code key} was not present before.
+         */
+        abstract Node assoc(Edit edit, int shift, int hash, Object key,
+                            Object val, boolean[] addedLeaf);
+
+        /**
+         * Return a node without {@code key}, or null if that leaves
+         * nothing.
+         */
+        abstract Node without(int shift, int hash, Object key);
+
+        /**
+         * Keys at even indices, values at odd ones. A null key means the
+         * slot's value is a child Node, and a null key followed by a
+         * null value is unused space.
+         */
+        abstract Object[] array();
+
+        boolean editableBy(Edit edit) {
+            return edit != null && this.edit == edit;
+        }
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 0x1f);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == b || a.equals(b);
+    }
+
+    private static Node createNode(Edit edit, int shift, Object key1,
+                                   Object val1, int key2hash, Object key2,
+                                   Object val2) {
+        int key1hash = key1.hashCode();
+        if (key1hash == key2hash) {
+            return new CollisionNode(edit, key1hash, 2,
+              new Object[] { key1, val1, key2, val2 });
+        }
+        boolean[] addedLeaf = new boolean[1];
+        return BitmapIndexedNode.EMPTY
+          .assoc(edit, shift, key1hash, key1, val1, addedLeaf)
+          .assoc(edit, shift, key2hash, key2, val2, addedLeaf);
+    }
+
+    static final class BitmapIndexedNode extends Node {
+        private static final long serialVersionUID = 1L;
+
+        static final BitmapIndexedNode EMPTY =
+          new BitmapIndexedNode(null, 0, new Object[0]);
+
+        int bitmap;
+        Object[] array;
+
+        BitmapIndexedNode(Edit edit, int bitmap, Object[] array) {
+            super(edit);
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key, Object notFound) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return notFound;
+            }
+            int idx = 2 * index(bit);
+            Object k = array[idx];
+            Object v = array[idx + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + 5, hash, key, notFound);
+            }
+            return equal(key, k) ? v : notFound;
+        }
+
+        private BitmapIndexedNode ensureEditable(Edit edit) {
+            if (editableBy(edit)) {
+                return this;
+            }
+            return new BitmapIndexedNode(edit, bitmap, array.clone());
+        }
+
+        private Node set(Edit edit, int i, Object a) {
+            BitmapIndexedNode e = ensureEditable(edit);
+            e.array[i] = a;
+            return e;
+        }
+
+        @Override
+        Node assoc(Edit edit, int shift, int hash, Object key, Object val,
+                   boolean[] addedLeaf) {
+            int bit = bitpos(hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object k = array[2 * idx];
+                Object v = array[2 * idx + 1];
+                if (k == null) {
+                    Node n = ((Node) v).assoc(edit, shift + 5, hash, key, val,
+                                              addedLeaf);
+                    return n == v ? this : set(edit, 2 * idx + 1, n);
+                }
+                if (equal(key, k)) {
+                    return v == val ? this : set(edit, 2 * idx + 1, val);
+                }
+                addedLeaf[0] = true;
+                Node child = createNode(edit, shift + 5, k, v, hash, key, val);
+                BitmapIndexedNode e = ensureEditable(edit);
+                e.array[2 * idx] = null;
+                e.array[2 * idx + 1] = child;
+                return e;
+            }
+            addedLeaf[0] = true;
+            int n = Integer.bitCount(bitmap);
+            if (editableBy(edit) && 2 * n < array.length) {
+                System.arraycopy(array, 2 * idx, array, 2 * (idx + 1),
+                                 2 * (n - idx));
+                array[2 * idx] = key;
+                array[2 * idx + 1] = val;
+                bitmap |= bit;
+                return this;
+            }
+            // A node being built in place gets room to grow.
+            Object[] newArray = new Object[2 * (edit != null ? n + 4 : n + 1)];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            newArray[2 * idx] = key;
+            newArray[2 * idx + 1] = val;
+            System.arraycopy(array, 2 * idx, newArray, 2 * (idx + 1),
+                             2 * (n - idx));
+            if (editableBy(edit)) {
+                array = newArray;
+                bitmap |= bit;
+                return this;
+            }
+            return new BitmapIndexedNode(edit, bitmap | bit, newArray);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                Node n = ((Node) v).without(shift + 5, hash, key);
+                if (n == v) {
+                    return this;
+                }
+                if (n != null) {
+                    return set(null, 2 * idx + 1, n);
+                }
+            } else if (!equal(key, k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            int n = Integer.bitCount(bitmap);
+            Object[] newArray = new Object[2 * (n - 1)];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            System.arraycopy(array, 2 * (idx + 1), newArray, 2 * idx,
+                             2 * (n - idx - 1));
+            return new BitmapIndexedNode(null, bitmap ^ bit, newArray);
+        }
+    }
+
+    static final class CollisionNode extends Node {
+        private static final long serialVersionUID = 1L;
+
+        final int hash;
+        int count;
+        Object[] array;
+
+        CollisionNode(Edit edit, int hash, int count, Object[] array) {
+            super(edit);
+            this.hash = hash;
+            this.count = count;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < 2 * count; i += 2) {
+                if (equal(key, array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key, Object notFound) {
+            int idx = indexOf(key);
+            return idx >= 0 ? array[idx + 1] : notFound;
+        }
+
+        @Override
+        Node assoc(Edit edit, int shift, int hash, Object key, Object val,
+                   boolean[] addedLeaf) {
+            if (hash != this.hash) {
+                return new BitmapIndexedNode(edit, bitpos(this.hash, shift),
+                                             new Object[] { null, this })
+                  .assoc(edit, shift, hash, key, val, addedLeaf);
+            }
+            int idx = indexOf(key);
+            if (idx >= 0) {
+                if (array[idx + 1] == val) {
+                    return this;
+                }
+                CollisionNode e = editableBy(edit) ? this
+                  : new CollisionNode(edit, hash, count, array.clone());
+                e.array[idx + 1] = val;
+                return e;
+            }
+            addedLeaf[0] = true;
+            Object[] newArray = array.length > 2 * count && editableBy(edit)
+              ? array : Arrays.copyOf(array, 2 * (count + 1));
+            newArray[2 * count] = key;
+            newArray[2 * count + 1] = val;
+            if (editableBy(edit)) {
+                array = newArray;
+                count++;
+                return this;
+            }
+            return new CollisionNode(edit, hash, count + 1, newArray);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int idx = indexOf(key);
+            if (idx < 0) {
+                return this;
+            }
+            if (count == 1) {
+                return null;
+            }
+            Object[] newArray = new Object[2 * (count - 1)];
+            System.arraycopy(array, 0, newArray, 0, idx);
+            System.arraycopy(array, idx + 2, newArray, idx,
+                             2 * count - idx - 2);
+            return new CollisionNode(null, hash, count - 1, newArray);
+        }
+    }
+
+    /**
+     * Iterates over the entries of a trie, depth first, yielding each as
+     * an array whose first two elements are key and value.
+     */
+    private static final class NodeIterator implements Iterator<Object[]> {
+        /** Deep enough for 32 bits of hash plus one CollisionNode. */
+        private final Object[][] arrays = new Object[8][];
+        private final int[] positions = new int[8];
+        private final Object[] entry = new Object[2];
+        private int depth;
+        private boolean ready;
+
+        NodeIterator(Node root) {
+            if (root != null) {
+                arrays[0] = root.array();
+            } else {
+                depth = -1;
+            }
+        }
+
+        public boolean hasNext() {
+            if (ready) {
+                return true;
+            }
+            while (depth >= 0) {
+                Object[] a = arrays[depth];
+                int i = positions[depth];
+                if (i >= a.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth] = i + 2;
+                Object k = a[i];
+                Object v = a[i + 1];
+                if (k != null) {
+                    entry[0] = k;
+                    entry[1] = v;
+                    return ready = true;
+                }
+                if (v != null) {
+                    depth++;
+                    arrays[depth] = ((Node) v).array();
+                    positions[depth] = 0;
+                }
+            }
+            return false;
+        }
+
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.persistent;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * An immutable hash set which shares structure with the sets derived
+ * from it. It is a {@link PersistentHashMap} from each element to
+ * itself, so {@link #contains(Object)}, {@link #cons(Object)} and
+ * {@link #disj(Object)} take O(log32 n) steps.
+ *
+ * <p>As a {@link java.util.Set} it is unmodifiable. It may contain null.
+ *
+ * @param <E> the type of the elements.
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E>
+  implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final PersistentHashSet<Object> EMPTY =
+      new PersistentHashSet<Object>(PersistentHashMap.empty());
+
+    private final PersistentHashMap<Object, Object> impl;
+
+    private PersistentHashSet(PersistentHashMap<Object, Object> impl) {
+        this.impl = impl;
+    }
+
+    /**
+     * Return the empty set.
+     *
+     * @param <E> the type of the elements.
+     * @return the empty set, never null.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentHashSet<E> empty() {
+        return (PersistentHashSet<E>) EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return impl.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return impl.containsKey(o);
+    }
+
+    /**
+     * Return a set which also contains {@code e}.
+     *
+     * @param e the element to add; may be null.
+     * @return a new set, or this set if it already contains {@code e}.
+     */
+    public PersistentHashSet<E> cons(E e) {
+        if (impl.containsKey(e)) {
+            return this;
+        }
+        return new PersistentHashSet<E>(impl.assoc(e, e));
+    }
+
+    /**
+     * Return a set without {@code o}.
+     *
+     * @param o the element to remove; may be null.
+     * @return a new set, or this set if it doesn't contain {@code o}.
+     */
+    public PersistentHashSet<E> disj(Object o) {
+        PersistentHashMap<Object, Object> m = impl.without(o);
+        return m == impl ? this : new PersistentHashSet<E>(m);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        return (Iterator<E>) impl.keyIterator();
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Builds a set by adding to it in place. Once {@link #persistent()}
+     * has been called, the Transient can't be used any more.
+     */
+    static final class Transient<E> {
+        private final PersistentHashMap.Transient<Object, Object> impl =
+          new PersistentHashMap.Transient<Object, Object>();
+
+        /**
+         * Add {@code e}, returning false if it was already present.
+         */
+        boolean conj(E e) {
+            int before = impl.size();
+            impl.assoc(e, e);
+            return impl.size() > before;
+        }
+
+        PersistentHashSet<E> persistent() {
+            PersistentHashMap<Object, Object> m = impl.persistent();
+            return m.isEmpty() ? PersistentHashSet.<E>empty()
+                               : new PersistentHashSet<E>(m);
+        }
+    }
+}
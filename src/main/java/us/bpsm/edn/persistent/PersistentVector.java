@@ -0,0 +1,323 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.persistent;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * An immutable vector which shares structure with the vectors derived
+ * from it. Elements are kept in a trie of 32-element arrays, with the
+ * last (up to) 32 elements in a separate tail. {@link #get(int)} and
+ * {@link #assocN(int, Object)} take O(log32 n) steps, while
+ * {@link #cons(Object)} and {@link #pop()} are usually O(1).
+ *
+ * <p>This is the same design as Clojure's vectors. As a
+ * {@link java.util.List} it is unmodifiable, and implements
+ * {@link RandomAccess}, so it prints as an edn vector.
+ *
+ * @param <E> the type of the elements.
+ */
+public final class PersistentVector<E> extends AbstractList<E>
+  implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    static final class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        transient final Edit edit;
+        final Object[] array;
+
+        Node(Edit edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        Node(Edit edit) {
+            this(edit, new Object[WIDTH]);
+        }
+    }
+
+    private static final Node EMPTY_NODE = new Node(null);
+
+    private static final PersistentVector<Object> EMPTY =
+      new PersistentVector<Object>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int cnt;
+    private final int shift;
+    private final Node root;
+    private final Object[] tail;
+
+    private PersistentVector(int cnt, int shift, Node root, Object[] tail) {
+        this.cnt = cnt;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Return the empty vector.
+     *
+     * @param <E> the type of the elements.
+     * @return the empty vector, never null.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return cnt;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int i) {
+        return (E) arrayFor(i)[i & MASK];
+    }
+
+    /**
+     * Return a vector with {@code val} added at the end.
+     *
+     * @param val the element to add; may be null.
+     * @return a new vector, never null.
+     */
+    public PersistentVector<E> cons(E val) {
+        if (cnt - tailoff(cnt) < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = val;
+            return new PersistentVector<E>(cnt + 1, shift, root, newTail);
+        }
+        Node tailNode = new Node(null, tail);
+        int newShift = shift;
+        Node newRoot;
+        if ((cnt >>> BITS) > (1 << shift)) {
+            newRoot = new Node(null);
+            newRoot.array[0] = root;
+            newRoot.array[1] = newPath(null, shift, tailNode);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(null, cnt, shift, root, tailNode);
+        }
+        return new PersistentVector<E>(cnt + 1, newShift, newRoot,
+                                       new Object[] { val });
+    }
+
+    /**
+     * Return a vector with {@code val} in place of the element at
+     * {@code i}, or added at the end if {@code i == size()}.
+     *
+     * @param i the index, in {@code [0, size()]}.
+     * @param val the new element; may be null.
+     * @return a new vector, never null.
+     * @throws IndexOutOfBoundsException if {@code i} is out of range.
+     */
+    public PersistentVector<E> assocN(int i, E val) {
+        if (i == cnt) {
+            return cons(val);
+        }
+        if (i < 0 || i > cnt) {
+            throw new IndexOutOfBoundsException(
+              "Index: " + i + ", Size: " + cnt);
+        }
+        if (i >= tailoff(cnt)) {
+            Object[] newTail = tail.clone();
+            newTail[i & MASK] = val;
+            return new PersistentVector<E>(cnt, shift, root, newTail);
+        }
+        return new PersistentVector<E>(cnt, shift,
+                                       doAssoc(shift, root, i, val), tail);
+    }
+
+    /**
+     * Return a vector without the last element.
+     *
+     * @return a new vector, never null.
+     * @throws IllegalStateException if this vector is empty.
+     */
+    public PersistentVector<E> pop() {
+        if (cnt == 0) {
+            throw new IllegalStateException("Can't pop empty vector");
+        }
+        if (cnt == 1) {
+            return empty();
+        }
+        if (cnt - tailoff(cnt) > 1) {
+            return new PersistentVector<E>(cnt - 1, shift, root,
+                                           Arrays.copyOf(tail, tail.length - 1));
+        }
+        Object[] newTail = arrayFor(cnt - 2);
+        Node newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot.array[1] == null) {
+            newRoot = (Node) newRoot.array[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<E>(cnt - 1, newShift, newRoot, newTail);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int i = 0;
+            int base = 0;
+            Object[] array = cnt > 0 ? arrayFor(0) : null;
+
+            public boolean hasNext() {
+                return i < cnt;
+            }
+
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (i >= cnt) {
+                    throw new NoSuchElementException();
+                }
+                if (i - base == WIDTH) {
+                    array = arrayFor(i);
+                    base = i;
+                }
+                return (E) array[i++ - base];
+            }
+        };
+    }
+
+    private static int tailoff(int cnt) {
+        return cnt < WIDTH ? 0 : ((cnt - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int i) {
+        if (i < 0 || i >= cnt) {
+            throw new IndexOutOfBoundsException(
+              "Index: " + i + ", Size: " + cnt);
+        }
+        if (i >= tailoff(cnt)) {
+            return tail;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(i >>> level) & MASK];
+        }
+        return node.array;
+    }
+
+    private static Node editable(Edit edit, Node node) {
+        if (edit != null && node.edit == edit) {
+            return node;
+        }
+        return new Node(edit, node.array.clone());
+    }
+
+    private static Node newPath(Edit edit, int level, Node node) {
+        if (level == 0) {
+            return node;
+        }
+        Node ret = new Node(edit);
+        ret.array[0] = newPath(edit, level - BITS, node);
+        return ret;
+    }
+
+    private static Node pushTail(Edit edit, int cnt, int level, Node parent,
+                                 Node tailNode) {
+        int subidx = ((cnt - 1) >>> level) & MASK;
+        Node ret = editable(edit, parent);
+        Node toInsert;
+        if (level == BITS) {
+            toInsert = tailNode;
+        } else {
+            Node child = (Node) parent.array[subidx];
+            toInsert = child != null
+              ? pushTail(edit, cnt, level - BITS, child, tailNode)
+              : newPath(edit, level - BITS, tailNode);
+        }
+        ret.array[subidx] = toInsert;
+        return ret;
+    }
+
+    private static Node doAssoc(int level, Node node, int i, Object val) {
+        Node ret = new Node(null, node.array.clone());
+        if (level == 0) {
+            ret.array[i & MASK] = val;
+        } else {
+            int subidx = (i >>> level) & MASK;
+            ret.array[subidx] =
+              doAssoc(level - BITS, (Node) node.array[subidx], i, val);
+        }
+        return ret;
+    }
+
+    private Node popTail(int level, Node node) {
+        int subidx = ((cnt - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Node newChild = popTail(level - BITS, (Node) node.array[subidx]);
+            if (newChild == null && subidx == 0) {
+                return null;
+            }
+            Node ret = new Node(null, node.array.clone());
+            ret.array[subidx] = newChild;
+            return ret;
+        } else if (subidx == 0) {
+            return null;
+        } else {
+            Node ret = new Node(null, node.array.clone());
+            ret.array[subidx] = null;
+            return ret;
+        }
+    }
+
+    /**
+     * Builds a vector by appending to it in place. Once
+     * {@link #persistent()} has been called, the Transient can't be
+     * used any more.
+     */
+    static final class Transient<E> {
+        private final Edit edit = new Edit();
+        private int cnt = 0;
+        private int shift = BITS;
+        private Node root = EMPTY_NODE;
+        private Object[] tail = new Object[WIDTH];
+
+        void conj(E val) {
+            edit.ensureActive();
+            if (cnt - tailoff(cnt) < WIDTH) {
+                tail[cnt & MASK] = val;
+                cnt++;
+                return;
+            }
+            Node tailNode = new Node(edit, tail);
+            tail = new Object[WIDTH];
+            tail[0] = val;
+            if ((cnt >>> BITS) > (1 << shift)) {
+                Node newRoot = new Node(edit);
+                newRoot.array[0] = root;
+                newRoot.array[1] = newPath(edit, shift, tailNode);
+                root = newRoot;
+                shift += BITS;
+            } else {
+                root = pushTail(edit, cnt, shift, root, tailNode);
+            }
+            cnt++;
+        }
+
+        PersistentVector<E> persistent() {
+            edit.ensureActive();
+            edit.deactivate();
+            if (cnt == 0) {
+                return empty();
+            }
+            return new PersistentVector<E>(cnt, shift, root,
+              Arrays.copyOf(tail, cnt - tailoff(cnt)));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * This package provides persistent collections, which share structure
+ * between a collection and the versions derived from it, and
+ * CollectionBuilder factories that parse edn into them.
+ *
+ * <p>The entry point is {@link us.bpsm.edn.persistent.PersistentCollections}.
+ */
+package us.bpsm.edn.persistent;
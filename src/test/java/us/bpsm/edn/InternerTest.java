@@ -0,0 +1,97 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class InternerTest {
+
+    @Test
+    public void internsFirstValue() {
+        Interner<String, Object> interner = new Interner<String, Object>();
+        Object first = new Object();
+        assertNull(interner.get("k"));
+        assertSame(first, interner.intern("k", first));
+        assertSame(first, interner.intern("k", new Object()));
+        assertSame(first, interner.get("k"));
+        assertSame(Keyword.newKeyword("a", "b"),
+                   Keyword.newKeyword(Symbol.newSymbol("a", "b")));
+    }
+
+    @Test
+    public void factoryIsCalledOnlyOnAMiss() {
+        Interner<String, Object> interner = new Interner<String, Object>();
+        final int[] calls = { 0 };
+        Interner.Factory<String, Object> factory =
+          new Interner.Factory<String, Object>() {
+            public Object create(String key) {
+                calls[0]++;
+                return new Object();
+            }
+        };
+        Object first = interner.intern("k", factory);
+        assertSame(first, interner.intern("k", factory));
+        assertSame(first, interner.get("k"));
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    public void concurrentInternsAgree() throws Exception {
+        final Interner<Integer, Object> interner =
+          new Interner<Integer, Object>();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object[]>> results = new ArrayList<Future<Object[]>>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(new Callable<Object[]>() {
+                    public Object[] call() {
+                        Object[] seen = new Object[10000];
+                        for (int i = 0; i < seen.length; i++) {
+                            seen[i] = interner.intern(i, new Object());
+                        }
+                        return seen;
+                    }
+                }));
+            }
+            Object[] expected = results.get(0).get();
+            for (Future<Object[]> f : results) {
+                Object[] seen = f.get();
+                for (int i = 0; i < seen.length; i++) {
+                    assertSame(expected[i], seen[i]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void collectedValuesAreRemoved() throws Exception {
+        Interner<Integer, Object> interner = new Interner<Integer, Object>();
+        Object kept = new Object();
+        interner.intern(-1, kept);
+        for (int i = 0; i < 10000; i++) {
+            interner.intern(i, new Object());
+        }
+        for (int attempt = 0; attempt < 50 && interner.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            // interning a new value drains the queue
+            interner.intern(20000 + attempt, kept);
+        }
+        assertTrue("size " + interner.size(), interner.size() < 100);
+        assertSame(kept, interner.get(-1));
+        assertEquals(kept, interner.intern(-1, new Object()));
+    }
+}
@@ -0,0 +1,187 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.parser.Parsers;
+import us.bpsm.edn.printer.Printer;
+import us.bpsm.edn.printer.Printers;
+import us.bpsm.edn.protocols.Protocol;
+
+public class EdnCodecTest {
+
+    enum Kind { SMALL, LARGE }
+
+    @EdnRecord
+    static class Item {
+        long id;
+        int count;
+        short small;
+        double price;
+        boolean active;
+        String name;
+        Kind kind;
+        List<Item> children;
+        transient Object ignored;
+    }
+
+    @EdnRecord
+    static class Special extends Item {
+        char mark;
+    }
+
+    /** Item without a codec, to be bound by reflection. */
+    static class PlainItem {
+        long id;
+        int count;
+        short small;
+        double price;
+        boolean active;
+        String name;
+        Kind kind;
+        List<Item> children;
+        transient Object ignored;
+    }
+
+    private static final EdnMapper MAPPER = EdnMapper.newMapper();
+
+    private static <T> T read(String input, Class<T> type) {
+        return MAPPER.readValue(Parsers.newParseable(input), type);
+    }
+
+    @Test
+    public void codecsAreGenerated() {
+        assertTrue(MAPPER.codec(Item.class) instanceof EdnCodecTest_ItemEdnCodec);
+        assertSame(MAPPER.codec(Item.class), MAPPER.printFn(Item.class));
+        assertNotNull(MAPPER.codec(Special.class));
+        assertNull(MAPPER.codec(EdnCodecTest.class));
+    }
+
+    @Test
+    public void readsAndPrints() {
+        Special s = read("{:id 1 :count 2 :small 3 :price 4.5 :active true"
+          + " :name \"n\" :kind :LARGE :mark \\x :other [1 #foo {}]"
+          + " :children [{:id 2 :price 1} nil]}", Special.class);
+        assertEquals(1L, s.id);
+        assertEquals(2, s.count);
+        assertEquals(3, s.small);
+        assertEquals(4.5, s.price, 0);
+        assertTrue(s.active);
+        assertEquals("n", s.name);
+        assertSame(Kind.LARGE, s.kind);
+        assertEquals('x', s.mark);
+        assertEquals(2, s.children.size());
+        assertEquals(2L, s.children.get(0).id);
+        assertEquals(1.0, s.children.get(0).price, 0);
+        assertNull(s.children.get(1));
+
+        String printed = Printers.printString(MAPPER.registerPrinters(
+          Printers.defaultProtocolBuilder(), Item.class, Special.class)
+            .build(), s);
+        assertEquals("{:mark\\x :id 1 :count 2 :small 3 :price 4.5"
+          + " :active true :name\"n\":kind :LARGE :children[{:id 2 :count 0"
+          + " :small 0 :price 1.0 :active false :name nil :kind nil"
+          + " :children nil}nil]}", printed);
+        assertEquals(printed, Printers.printString(MAPPER.registerPrinters(
+          Printers.defaultProtocolBuilder(), Item.class, Special.class)
+            .build(), read(printed, Special.class)));
+    }
+
+    @Test
+    public void printsWithTheProtocolAsReflectionDoes() {
+        Printer.Fn<Number> suffixed = new Printer.Fn<Number>() {
+            @Override
+            public void eval(Number self, Printer printer) {
+                printer.softspace().append(self.toString()).append('N')
+                  .softspace();
+            }
+        };
+        Protocol<Printer.Fn<?>> protocol = MAPPER.registerPrinters(
+          Printers.defaultProtocolBuilder(), Item.class, PlainItem.class)
+          .put(Long.class, suffixed).put(Integer.class, suffixed)
+          .put(Short.class, suffixed).build();
+        String input = "{:id 1 :count 2 :small 3 :price 4.5 :active true"
+          + " :name \"n\" :kind :LARGE}";
+        String printed = Printers.printString(protocol,
+          read(input, Item.class));
+        assertEquals("{:id 1N :count 2N :small 3N :price 4.5 :active true"
+          + " :name\"n\":kind :LARGE :children nil}", printed);
+        assertEquals(printed, Printers.printString(protocol,
+          read(input, PlainItem.class)));
+    }
+
+    @Test
+    public void rejectsWhatReflectionRejects() {
+        for (String input : new String[] {
+            "{:count 3000000000}", "{:id nil}", "{:price \"1\"}",
+            "{:kind :MEDIUM}", "[]", "{:id 1", "{:id 1 :count 2 :id 3}",
+            "{:other 1 :id 2 :other 3}" }) {
+            try {
+                read(input, Item.class);
+                throw new AssertionError(input);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void generatesCodecsForRecords() throws Exception {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(javac != null);
+        assumeTrue(hasRecords());
+        File dir = Files.createTempDirectory("records").toFile();
+        File file = new File(dir, "Range.java");
+        FileWriter w = new FileWriter(file);
+        try {
+            w.write("@us.bpsm.edn.mapper.EdnRecord\n"
+              + "public record Range(long from, long to, String label,"
+              + " java.util.List<Range> parts) {}\n");
+        } finally {
+            w.close();
+        }
+        assertEquals(0, javac.run(null, null, null, "-classpath",
+          System.getProperty("java.class.path"), "-d", dir.getPath(),
+          file.getPath()));
+        assertTrue(new File(dir, "RangeEdnCodec.class").isFile());
+        URLClassLoader loader = new URLClassLoader(
+          new URL[] { dir.toURI().toURL() }, getClass().getClassLoader());
+        Class<?> type = loader.loadClass("Range");
+        assertNotNull(MAPPER.codec(type));
+        Object range = MAPPER.readValue(Parsers.newParseable(
+          "{:to 9 :from 1 :parts [{:label \"a\"}]}"), type);
+        assertEquals("Range[from=1, to=9, label=null, parts="
+          + "[Range[from=0, to=0, label=a, parts=null]]]", range.toString());
+        assertEquals(Arrays.asList(range), Arrays.asList(
+          MAPPER.readValue(Parsers.newParseable(Printers.printString(
+            MAPPER.registerPrinters(Printers.defaultProtocolBuilder(), type)
+              .build(), range)), type)));
+    }
+
+    private static boolean hasRecords() {
+        try {
+            Class.forName("java.lang.Record");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.mapper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.TaggedValue;
+import us.bpsm.edn.parser.Parseable;
+import us.bpsm.edn.parser.Parsers;
+import us.bpsm.edn.printer.Printers;
+
+public class EdnMapperTest {
+
+    enum Color { RED, GREEN }
+
+    static class Point {
+        int x;
+        long y;
+
+        Point() {
+        }
+
+        Point(int x, long y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Point && ((Point) o).x == x
+              && ((Point) o).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            return x * 31 + (int) y;
+        }
+    }
+
+    static class Shape {
+        String name;
+        Color color;
+        double[] weights;
+        List<Point> points;
+        Map<Keyword, Integer> counts;
+        Set<String> tags;
+        Object extra;
+        Shape parent;
+        UUID id;
+        transient String ignored = "ignored";
+        static String alsoIgnored;
+    }
+
+    static class Labelled extends Point {
+        String label;
+    }
+
+    private static final EdnMapper MAPPER = EdnMapper.newMapper();
+
+    private static <T> T read(String input, Class<T> type) {
+        return MAPPER.readValue(Parsers.newParseable(input), type);
+    }
+
+    @Test
+    public void bindsMapsToObjects() {
+        Shape s = read("{:name \"tri\" :color :GREEN :weights [1 2.5]"
+          + " :points [{:x 1 :y 2} {:x 3, :y 4, :z [ignored {:deeply #_x nested}]}]"
+          + " :counts {:a 1 :b 2} :tags #{\"p\" \"q\"} :extra [1 {:k #{}}]"
+          + " :unknown #foo/bar {:a (1 2)}"
+          + " :parent {:name \"up\"} :ignored \"no\""
+          + " :id #uuid \"f81d4fae-7dec-11d0-a765-00a0c91e6bf6\"}", Shape.class);
+        assertEquals("tri", s.name);
+        assertSame(Color.GREEN, s.color);
+        assertArrayEquals(new double[] { 1, 2.5 }, s.weights, 0);
+        assertEquals(Arrays.asList(new Point(1, 2), new Point(3, 4)), s.points);
+        assertEquals(Integer.valueOf(2), s.counts.get(Keyword.newKeyword("b")));
+        assertEquals(new HashSet<String>(Arrays.asList("p", "q")), s.tags);
+        assertEquals(Arrays.asList(1L, Collections.singletonMap(
+          Keyword.newKeyword("k"), Collections.emptySet())), s.extra);
+        assertEquals("up", s.parent.name);
+        assertNull(s.parent.parent);
+        assertEquals(UUID.fromString("f81d4fae-7dec-11d0-a765-00a0c91e6bf6"),
+                     s.id);
+        assertEquals("ignored", s.ignored);
+        assertNull(Shape.alsoIgnored);
+    }
+
+    @Test
+    public void bindsInheritedFieldsAndNil() {
+        Labelled l = read("{:label \"a\" :x 1}", Labelled.class);
+        assertEquals("a", l.label);
+        assertEquals(1, l.x);
+        assertNull(read("nil", Point.class));
+        assertEquals(Integer.valueOf(7), read("7", Integer.class));
+    }
+
+    @Test
+    public void readsOnlyOneValue() {
+        Parseable pbr = Parsers.newParseable("{:x 1} {:x 2}");
+        assertEquals(new Point(1, 0), MAPPER.readValue(pbr, Point.class));
+        assertEquals(new Point(2, 0), MAPPER.readValue(pbr, Point.class));
+    }
+
+    @Test
+    public void rejectsValuesWhichDontFit() {
+        String[] inputs = {
+            "{:x 1 :y nil}",        // nil for a primitive
+            "{:x 3000000000}",      // too large for an int
+            "{:x 1.5}",             // not an integer
+            "{:x \"1\"}",           // not a number
+            "[1 2]",                // not a map
+            "{:x 1",                // truncated
+            "{:x 1 :y 2 :x 3}",     // a property repeated
+            "{:z 1 :x 2 :z 3}",     // an unknown key repeated
+            "",                     // empty
+        };
+        for (String input : inputs) {
+            try {
+                read(input, Point.class);
+                throw new AssertionError(input);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+        try {
+            read("{:color :BLUE}", Shape.class);
+            throw new AssertionError();
+        } catch (EdnSyntaxException expected) {
+        }
+        // Duplicate set elements are rejected, whatever they bind to.
+        for (String input : new String[] {
+            "{:tags #{\"p\" \"p\"}}", "{:weights #{1.0 1.0}}" }) {
+            try {
+                read(input, Shape.class);
+                throw new AssertionError(input);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void rejectsClassesWithoutNoArgumentConstructor() {
+        MAPPER.printFn(TaggedValue.class);
+    }
+
+    @Test
+    public void printsWhatItReads() {
+        Shape s = new Shape();
+        s.name = "sq";
+        s.color = Color.RED;
+        s.weights = new double[] { 0.5 };
+        s.points = Arrays.asList(new Point(1, 2));
+        s.counts = Collections.singletonMap(Keyword.newKeyword("c"), 3);
+        s.parent = new Shape();
+        String printed = Printers.printString(
+          MAPPER.registerPrinters(Printers.defaultProtocolBuilder(),
+            Shape.class, Point.class).build(), s);
+        assertTrue(printed, printed.startsWith("{:name\"sq\":color :RED"));
+        Shape t = read(printed, Shape.class);
+        assertEquals(s.name, t.name);
+        assertSame(s.color, t.color);
+        assertArrayEquals(s.weights, t.weights, 0);
+        assertEquals(s.points, t.points);
+        assertEquals(s.counts, t.counts);
+        assertNull(t.parent.name);
+    }
+
+    @Test
+    public void bindsRecords() throws Exception {
+        assumeTrue(hasRecords());
+        Class<?> type = compileRecord(
+          "public record Pair(String left, long right, Pair next) {}");
+        Object pair = MAPPER.readValue(Parsers.newParseable(
+          "{:right 2 :left \"a\" :next {:left \"b\"} :other 3}"), type);
+        assertEquals("Pair[left=a, right=2, next=Pair[left=b, right=0, next=null]]",
+                     pair.toString());
+        String printed = Printers.printString(
+          MAPPER.registerPrinters(Printers.defaultProtocolBuilder(), type)
+            .build(), pair);
+        assertEquals("{:left\"a\":right 2 :next{:left\"b\":right 0 :next nil}}",
+                     printed);
+        assertEquals(pair, MAPPER.readValue(Parsers.newParseable(printed), type));
+    }
+
+    private static boolean hasRecords() {
+        try {
+            Class.forName("java.lang.Record");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Class<?> compileRecord(String source)
+      throws IOException, ClassNotFoundException {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(javac != null);
+        File dir = Files.createTempDirectory("records").toFile();
+        File file = new File(dir, "Pair.java");
+        FileWriter w = new FileWriter(file);
+        try {
+            w.write(source);
+        } finally {
+            w.close();
+        }
+        assumeTrue(javac.run(null, null, null, file.getPath()) == 0);
+        URLClassLoader loader =
+          new URLClassLoader(new URL[] { dir.toURI().toURL() });
+        return loader.loadClass("Pair");
+    }
+}
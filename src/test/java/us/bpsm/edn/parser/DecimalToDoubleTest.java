@@ -0,0 +1,116 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DecimalToDoubleTest {
+
+    private final Random random = new Random(20210125);
+
+    @Test
+    public void shortestRepresentations() {
+        for (int i = 0; i < 100000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                check(Double.toString(d));
+            }
+        }
+    }
+
+    @Test
+    public void randomDigitsAndExponents() {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            b.setLength(0);
+            if (random.nextBoolean()) {
+                b.append('-');
+            }
+            int n = 1 + random.nextInt(24);
+            int point = random.nextInt(n + 1);
+            for (int k = 0; k < n; k++) {
+                if (k == point && k > 0) {
+                    b.append('.');
+                }
+                b.append((char) ('0' + random.nextInt(10)));
+            }
+            if (point == 0 || random.nextBoolean()) {
+                b.append(random.nextBoolean() ? 'e' : 'E')
+                 .append(random.nextInt(720) - 360);
+            }
+            check(b.toString());
+        }
+    }
+
+    @Test
+    public void halfwayCases() {
+        for (int i = 0; i < 10000; i++) {
+            double d = Math.abs(Double.longBitsToDouble(random.nextLong()));
+            if (Double.isNaN(d) || Double.isInfinite(d)
+                || d == Double.MAX_VALUE) {
+                continue;
+            }
+            BigDecimal lo = new BigDecimal(d);
+            BigDecimal hi = new BigDecimal(Math.nextUp(d));
+            BigDecimal mid = lo.add(hi).divide(BigDecimal.valueOf(2));
+            check(mid.toString());
+            check(mid.round(new MathContext(17)).toString());
+            check(mid.round(new MathContext(19)).toString());
+        }
+    }
+
+    @Test
+    public void edgeCases() {
+        for (String s : new String[] {
+            "0.0", "-0.0", "0e999", "1e22", "1e23", "9007199254740993.0",
+            "9007199254740992e10", "4.9e-324", "2.4703282292062327e-324",
+            "2.2250738585072011e-308", "2.2250738585072014e-308",
+            "1.7976931348623157e308", "1.7976931348623158e308", "1e309",
+            "1e-400", "18446744073709551615.0", "9999999999999999999.0",
+            "0.000000000000000000000000000000000000001e38",
+            "123456789012345678901234567890.0", "1.0E+5", "1.e5", "7.",
+            "3.14159265358979323846264338327950288419716939937510" }) {
+            check(s);
+        }
+        for (int q = -330; q <= 310; q++) {
+            check("1e" + q);
+            check("9.999999999999999e" + q);
+        }
+    }
+
+    @Test
+    public void unsignedMultiplyHigh() {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int i = 0; i < 10000; i++) {
+            long x = random.nextLong();
+            long y = random.nextLong();
+            BigInteger expected = new BigInteger(Long.toUnsignedString(x))
+                .multiply(new BigInteger(Long.toUnsignedString(y)))
+                .shiftRight(64).and(mask);
+            assertEquals(expected.longValue(),
+                         DecimalToDouble.unsignedMultiplyHigh(x, y));
+        }
+    }
+
+    private static void check(String literal) {
+        if (literal.matches("-?[0-9]+")) {
+            // Make sure it is read as a floating point literal.
+            literal += ".0";
+        }
+        double expected = Double.parseDouble(literal);
+        Parser parser = Parsers.newParser(Parsers.defaultConfiguration());
+        assertEquals(literal, Double.doubleToRawLongBits(expected),
+          Double.doubleToRawLongBits(
+            (Double) parser.nextValue(Parsers.newParseable(literal))));
+        assertEquals(literal, Double.doubleToRawLongBits(expected),
+          Double.doubleToRawLongBits((Double) parser.nextValue(
+            Parsers.newParseable(new StringReader(literal)))));
+    }
+}
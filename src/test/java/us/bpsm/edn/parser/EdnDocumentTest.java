@@ -0,0 +1,136 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static us.bpsm.edn.parser.ScannerTest.key;
+import static us.bpsm.edn.parser.ScannerTest.sym;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.parser.EdnDocument.Kind;
+
+public class EdnDocumentTest {
+
+    private static final String INPUT = "#_ skipped ; comment\n"
+      + "{:user {:id 7, :roles [:a #_ :x :b]}, \"name\" \"f\\u00fcr\","
+      + " \"grüß\" 1, sym (), 2 #{3}, [1] :vec,"
+      + " :ns #:ns{:k 1}, :when #inst \"2012-01-01T00:00:00Z\"} :after";
+
+    @Test
+    public void navigatesWithoutParsing() {
+        for (Parseable pbr : Arrays.asList(Parsers.newParseable(INPUT),
+            Parsers.newParseable(INPUT.getBytes(StandardCharsets.UTF_8)))) {
+            EdnDocument d = document(pbr);
+            int root = d.root();
+            assertEquals(Kind.MAP, d.kind(root));
+            assertEquals(16, d.count(root));
+            assertEquals(-1, d.next(root));
+
+            int user = d.get(root, key("user"));
+            assertEquals(Kind.MAP, d.kind(user));
+            int roles = d.get(user, key("roles"));
+            assertEquals(Kind.VECTOR, d.kind(roles));
+            assertEquals(2, d.count(roles));
+            assertEquals(key("b"), d.value(d.child(roles, 1)));
+            assertEquals(-1, d.child(roles, 2));
+            assertEquals(-1, d.next(d.child(roles, 1)));
+            assertEquals("[:a #_ :x :b]", d.text(roles));
+            assertEquals(7L, d.value(d.get(user, key("id"))));
+
+            assertEquals("für", d.value(d.get(root, "name")));
+            assertEquals(1L, d.value(d.get(root, "grüß")));
+            assertEquals(Kind.LIST, d.kind(d.get(root, sym("sym"))));
+            assertEquals(Kind.SET, d.kind(d.get(root, 2L)));
+            assertEquals(key("vec"), d.value(d.get(root, Arrays.asList(1L))));
+            assertEquals(Kind.VALUE, d.kind(d.get(root, key("ns"))));
+            assertEquals(Collections.singletonMap(key("ns", "k"), 1L),
+              d.value(d.get(root, key("ns"))));
+            assertEquals(-1, d.get(root, key("missing")));
+            assertEquals(-1, d.get(roles, key("a")));
+            assertEquals(-1, d.child(d.get(user, key("id")), 0));
+            assertEquals(0, d.count(d.get(user, key("id"))));
+
+            assertEquals(Parsers.newParser(Parsers.defaultConfiguration())
+              .nextValue(Parsers.newParseable(INPUT)), d.value(root));
+            assertEquals(key("after"), document(pbr).value(0));
+            assertNull(document(pbr));
+        }
+    }
+
+    @Test
+    public void rejectsUnbalancedInput() {
+        for (String bad : new String[] {
+            "[1 2", "(1]", ")", "{:a \"b}", "#_ ]" }) {
+            try {
+                document(Parsers.newParseable(bad));
+                throw new AssertionError(bad);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresIndexedInput() {
+        document(Parsers.newParseable(new StringReader("1")));
+    }
+
+    @Test
+    public void textIsThreadSafeForDirectBuffers() throws Exception {
+        StringBuilder b = new StringBuilder("[");
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            StringBuilder e = new StringBuilder("\"gr\u00fc\u00df");
+            for (int j = 0; j < i % 37; j++) {
+                e.append((char) ('a' + j % 26));
+            }
+            expected.add(e.append('"').toString());
+            b.append(e).append(' ');
+        }
+        byte[] bytes = b.append(']').toString()
+          .getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        final EdnDocument d = document(Parsers.newParseable(direct));
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>();
+            for (int t = 0; t < 4; t++) {
+                results.add(threads.submit(new Callable<Void>() {
+                    public Void call() {
+                        for (int round = 0; round < 200; round++) {
+                            int i = 0;
+                            for (int e = d.child(d.root(), 0); e >= 0;
+                                 e = d.next(e)) {
+                                assertEquals(expected.get(i++), d.text(e));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> f : results) {
+                f.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    private static EdnDocument document(Parseable pbr) {
+        return Parsers.newDocument(Parsers.defaultConfiguration(), pbr);
+    }
+}
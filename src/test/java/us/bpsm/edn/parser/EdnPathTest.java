@@ -0,0 +1,125 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static us.bpsm.edn.Keyword.newKeyword;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Tag;
+
+public class EdnPathTest {
+
+    static final String EVENT =
+      "{:id 1, :payload [1 {2 3}], #_ [:event :skipped] " +
+      ":event {:kind :login, :user/id 42, :tags #{:a}, :at #inst \"2012\"}" +
+      ", :items [{:id :x} #_ {:id :discarded} ({:id :y} {:id :z})]" +
+      ", \"s\" nil, :m #:ns{:k 1 :_/k 2}}";
+
+    @Test
+    public void selectsNestedValues() {
+        assertEquals(42L, select("[:event :user/id]", EVENT));
+        assertEquals(newKeyword("login"), select("[:event :kind]", EVENT));
+        assertEquals(newKeyword("x"), select("[:items 0 :id]", EVENT));
+        assertEquals(newKeyword("z"), select("[:items 1 1 :id]", EVENT));
+        assertEquals(3L, select("[:payload 1 2]", EVENT));
+        assertEquals(1L, select("[:m :ns/k]", EVENT));
+        assertEquals(2L, select("[:m :k]", EVENT));
+        assertEquals(parse(EVENT), select("[]", EVENT));
+        assertEquals(parse("#{:a}"),
+          select("[:event :tags]", "{:event {:tags #{:a}} :x {:a #{:a}}}"));
+    }
+
+    @Test
+    public void missingPathsSelectNotFound() {
+        for (String path : new String[] {
+            "[:nope]", "[:event :nope]", "[:items 2]", "[:items -1]",
+            "[:items :id]", "[:id :x]", "[\"s\" :x]", "[:event :tags :a]" }) {
+            assertNull(path, select(path, EVENT));
+            Parseable pbr = Parsers.newParseable(EVENT + " :next");
+            Parser parser = Parsers.newParser(Parsers.defaultConfiguration());
+            assertEquals(path, "none",
+              EdnPath.compile(path).select(parser, pbr, "none"));
+            assertEquals(newKeyword("next"), parser.nextValue(pbr));
+        }
+    }
+
+    @Test
+    public void selectsThroughTaggedValues() {
+        Parser.Config cfg = Parsers.newParserConfigBuilder()
+          .putTagHandler(Tag.newTag("wrap"), new TagHandler() {
+              public Object transform(Tag tag, Object value) {
+                  return Arrays.asList(value);
+              }
+          }).build();
+        Parser parser = Parsers.newParser(cfg);
+        Parseable pbr = Parsers.newParseable("{:a #wrap {:b 1}}");
+        assertEquals(1L, EdnPath.compile("[:a 0 :b]").select(parser, pbr));
+    }
+
+    @Test
+    public void readsOneTopLevelValueAtATime() {
+        Parser parser = Parsers.newParser(Parsers.defaultConfiguration());
+        Parseable pbr = Parsers.newParseable("{:a 1} {:b 2} #_ x {:a 3}");
+        EdnPath path = EdnPath.of(newKeyword("a"));
+        assertEquals(1L, path.select(parser, pbr));
+        assertNull(path.select(parser, pbr));
+        assertEquals(3L, path.select(parser, pbr));
+        assertEquals(Parser.END_OF_INPUT, path.select(parser, pbr));
+    }
+
+    @Test
+    public void agreesWithParsersOtherThanParserImpl() {
+        final Parser inner = Parsers.newParser(Parsers.defaultConfiguration());
+        Parser wrapper = new Parser() {
+            public Object nextValue(Parseable pbr) {
+                return inner.nextValue(pbr);
+            }
+        };
+        EdnPath path = EdnPath.compile("[:items 1 0 :id]");
+        assertEquals(newKeyword("y"),
+          path.select(wrapper, Parsers.newParseable(EVENT)));
+        assertEquals(newKeyword("y"),
+          path.select(inner, Parsers.newParseable(EVENT)));
+    }
+
+    @Test
+    public void malformedInputIsRejected() {
+        for (String input : new String[] {
+            "{:a}", "{:a 1 :b}", "{:a [1 2)}", "[:x {:a 1]", "{:a 1", "}" }) {
+            try {
+                select("[:a]", input);
+                fail(input);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pathMustBeAVector() {
+        EdnPath.compile("(:a :b)");
+    }
+
+    @Test
+    public void equality() {
+        assertEquals(EdnPath.compile("[:a 1]"),
+                     EdnPath.of(newKeyword("a"), 1L));
+        assertEquals(EdnPath.compile("[:a 1]").hashCode(),
+                     EdnPath.of(newKeyword("a"), 1L).hashCode());
+    }
+
+    static Object select(String path, String input) {
+        Parser parser = Parsers.newParser(Parsers.defaultConfiguration());
+        return EdnPath.compile(path).select(parser,
+                                            Parsers.newParseable(input));
+    }
+
+    static Object parse(String input) {
+        return ParserTest.parse(input);
+    }
+}
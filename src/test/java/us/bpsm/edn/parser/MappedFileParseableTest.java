@@ -0,0 +1,78 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileParseableTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final String EDN =
+        "{:a [1 2 3]} \"grüße € 😀\" " +
+        "\\é sym/bol 3.25 \"ääääää\"";
+
+    @Test
+    public void parseWholeFile() throws IOException {
+        File f = write(EDN);
+        Parseable pbr = Parsers.newParseable(f.toPath());
+        try {
+            assertEquals(parseAll(Parsers.newParseable(EDN)), parseAll(pbr));
+        } finally {
+            pbr.close();
+        }
+    }
+
+    @Test
+    public void parseEmptyFile() throws IOException {
+        File f = write("");
+        assertEquals(new ArrayList<Object>(),
+                     parseAll(Parsers.newParseable(f.toPath())));
+    }
+
+    /**
+     * Map the file in chunks of every size up to its own, so that chunk
+     * boundaries fall inside every token and every multi-byte character.
+     */
+    @Test
+    public void parseFileInChunks() throws IOException {
+        File f = write(EDN);
+        List<Object> expected = parseAll(Parsers.newParseable(EDN));
+        for (long chunkSize = 4; chunkSize <= f.length(); chunkSize++) {
+            Parseable pbr = MappedFileParseable.open(f.toPath(), chunkSize);
+            try {
+                assertEquals("chunkSize " + chunkSize,
+                             expected, parseAll(pbr));
+            } finally {
+                pbr.close();
+            }
+        }
+    }
+
+    private File write(String text) throws IOException {
+        File f = tmp.newFile();
+        Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static List<Object> parseAll(Parseable pbr) {
+        Parser p = Parsers.newParser(Parsers.defaultConfiguration());
+        List<Object> values = new ArrayList<Object>();
+        Object v;
+        while ((v = p.nextValue(pbr)) != Parser.END_OF_INPUT) {
+            values.add(v);
+        }
+        return values;
+    }
+}
@@ -14,9 +14,15 @@ import static us.bpsm.edn.parser.Parser.Config.LONG_TAG;
 import static us.bpsm.edn.parser.Parsers.defaultConfiguration;
 import static us.bpsm.edn.parser.Parsers.newParserConfigBuilder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -27,6 +33,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 
@@ -34,6 +41,7 @@ import us.bpsm.edn.EdnSyntaxException;
 import us.bpsm.edn.Keyword;
 import us.bpsm.edn.Symbol;
 import us.bpsm.edn.Tag;
+import us.bpsm.edn.printer.Printers;
 
 
 
@@ -82,6 +90,42 @@ public class ParserTest {
         parse(INVALID_UUID);
     }
 
+    @Test
+    public void discardSkipsStructurally() {
+        assertDiscards(Arrays.asList(1L),
+          "[#_ (a \"]\\\"\" \\] \\) [{}] #{} #x ;]\n y) 1]");
+        assertDiscards(Arrays.asList(1L, 2L),
+          "[#_ #_ 3 4 1 #_ #:ns{:a 1} #_ \\u0041 2]");
+        assertDiscards(Arrays.asList(1L),
+          "[1 #_ [1x2 foo//bar \"\\q\" a\u00e9\ud83d\ude00]]");
+        for (String malformed : new String[] {
+            "[#_ (]", "[#_ \"abc]", "[#_ {]}]", "#_ #tag", "[#_ @ 1]",
+            "[#_ #tag]" }) {
+            for (Parseable pbr : parseables(malformed)) {
+                try {
+                    Parsers.newParser(defaultConfiguration()).nextValue(pbr);
+                    throw new AssertionError(malformed);
+                } catch (EdnSyntaxException expected) {
+                }
+            }
+        }
+    }
+
+    private static void assertDiscards(Object expected, String input) {
+        for (Parseable pbr : parseables(input)) {
+            assertEquals(input, expected,
+              Parsers.newParser(defaultConfiguration()).nextValue(pbr));
+        }
+    }
+
+    private static Parseable[] parseables(String input) {
+        return new Parseable[] {
+            Parsers.newParseable(input),
+            Parsers.newParseable(new StringReader(input)),
+            Parsers.newParseable(
+              input.getBytes(StandardCharsets.UTF_8)) };
+    }
+
     @Test
     public void discardedTaggedValuesDoNotCallTransformer() {
         // The given UUID is invalid, as demonstrated in the test above.
@@ -202,6 +246,93 @@ public class ParserTest {
         assertEquals(expected, results);
     }
 
+    @Test
+    public void primitiveHandlersReceiveUnboxedNumbers() {
+        final long[] sum = new long[1];
+        final double[] total = new double[1];
+        Parser.Config cfg = newParserConfigBuilder()
+            .putTagHandler(LONG_TAG, new LongTagHandler() {
+                public Object transformLong(long value) {
+                    sum[0] += value;
+                    return null;
+                }})
+            .putTagHandler(DOUBLE_TAG, new DoubleTagHandler() {
+                public Object transformDouble(double value) {
+                    total[0] += value;
+                    return "d";
+                }})
+            .build();
+        assertEquals(Arrays.asList(null, "d", null, new BigDecimal("1.5"), "d"),
+                     parse(cfg, "[1 2.5 -3 1.5M 4e0]"));
+        assertEquals(-2L, sum[0]);
+        assertEquals(6.5, total[0], 0.0);
+        assertEquals("d", cfg.getTagHandler(DOUBLE_TAG)
+                     .transform(DOUBLE_TAG, 1.0));
+        assertEquals(7.5, total[0], 0.0);
+    }
+
+    @Test
+    public void smallNumbersShareBoxes() {
+        List<?> a = (List<?>) parse("[-128 0 1023 0.0 7.0 1024]");
+        List<?> b = (List<?>) parse("[-128 0 1023 0.0 7.0 1024]");
+        for (int i = 0; i < 5; i++) {
+            assertTrue(a.get(i) == b.get(i));
+        }
+        assertFalse(a.get(5) == b.get(5));
+        assertEquals(Double.doubleToRawLongBits(-0.0),
+                     Double.doubleToRawLongBits((Double) parse("-0.0")));
+    }
+
+    @Test
+    public void primitiveVectorFactoryBuildsCompactVectors() {
+        Parser.Config cfg = newParserConfigBuilder()
+            .setVectorFactory(Parsers.primitiveVectorFactory()).build();
+
+        Object longs = parse(cfg, "[1 -2 3 4 5 6 7 8 9 9223372036854775807]");
+        assertTrue(longs instanceof LongVector);
+        assertTrue(longs instanceof RandomAccess);
+        assertEquals(Arrays.asList(1L, -2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L,
+                                   Long.MAX_VALUE), longs);
+        assertEquals(longs, Arrays.asList(1L, -2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L,
+                                          Long.MAX_VALUE));
+        assertEquals(Arrays.asList(1L, -2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L,
+                                   Long.MAX_VALUE).hashCode(),
+                     longs.hashCode());
+        assertEquals(-2L, ((LongVector) longs).getLong(1));
+        assertEquals(10, ((LongVector) longs).toLongArray().length);
+
+        Object doubles = parse(cfg, "[1.5 -0.0 2e300]");
+        assertTrue(doubles instanceof DoubleVector);
+        assertEquals(Arrays.asList(1.5, -0.0, 2e300), doubles);
+        assertEquals(Arrays.asList(1.5, -0.0, 2e300).hashCode(),
+                     doubles.hashCode());
+        assertEquals(1.5, ((DoubleVector) doubles).getDouble(0), 0.0);
+
+        Object mixed = parse(cfg, "[1 2 3.0]");
+        assertFalse(mixed instanceof LongVector);
+        assertEquals(Arrays.asList(1L, 2L, 3.0), mixed);
+        assertEquals(Arrays.asList(1.0, 2L, nil()), parse(cfg, "[1.0 2 nil]"));
+        assertEquals(Arrays.asList(1L, "two", new BigInteger("3")),
+                     parse(cfg, "[1 \"two\" 3N]"));
+        assertEquals(Arrays.asList(), parse(cfg, "[]"));
+        assertEquals(Arrays.asList(Arrays.asList(1L), Arrays.asList(2.0)),
+                     parse(cfg, "[[1] [2.0]]"));
+        assertEquals(Arrays.asList(1L, 2L), parse(cfg, "(1 2)"));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void primitiveVectorsAreUnmodifiable() {
+        Parser.Config cfg = newParserConfigBuilder()
+            .setVectorFactory(Parsers.primitiveVectorFactory()).build();
+        @SuppressWarnings("unchecked")
+        List<Object> v = (List<Object>) parse(cfg, "[1 2]");
+        v.set(0, 3L);
+    }
+
+    private static Object nil() {
+        return null;
+    }
+
     @Test
     public void canCustomizeParsingOfFloats() {
         Parser.Config cfg = newParserConfigBuilder()
@@ -257,6 +388,243 @@ public class ParserTest {
             result.size(), ms, (1.0*ms)/result.size());
     }
 
+    @Test
+    public void parallelParsingMatchesSequentialParsing() {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            b.append(" #_ :skipped {:id ").append(i)
+              .append(", :name \"item ]}) ").append(i)
+              .append("\", :tags #{\\] \\} s").append(i)
+              .append("} ; ]})\n :path [a/b (c d)]} ");
+        }
+        String elements = b.toString();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parser.Config parallel = newParserConfigBuilder()
+              .parallelizeTopLevelCollections(pool).build();
+            for (String input : new String[] {
+                "[" + elements + "]", "(" + elements + ")",
+                "#{" + elements + "}", "{" + elements + "}" }) {
+                assertTrue(input.length() > ParserImpl.MIN_PARALLEL_UNITS);
+                Parser parser = Parsers.newParser(parallel);
+                Parseable pbr = Parsers.newParseable(input + " :next");
+                assertEquals(parse(input), parser.nextValue(pbr));
+                assertEquals(ScannerTest.key("next"), parser.nextValue(pbr));
+                assertEquals(Parser.END_OF_INPUT, parser.nextValue(pbr));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // Discarded values before the collection don't prevent it from
+        // being parsed in parallel.
+        ForkJoinPool fresh = new ForkJoinPool(4);
+        try {
+            Parser parser = Parsers.newParser(newParserConfigBuilder()
+              .parallelizeTopLevelCollections(fresh).build());
+            String input = "#_ #_ 1 2 [" + elements + "]";
+            assertEquals(parse(input),
+              parser.nextValue(Parsers.newParseable(input)));
+            assertTrue(fresh.getPoolSize() > 0);
+        } finally {
+            fresh.shutdown();
+        }
+    }
+
+    @Test
+    public void numbersEndBeforeHashInEveryMode() {
+        // '#' separates a number from what follows, so the skipper
+        // must not take "1#" for one atom.
+        StringBuilder b = new StringBuilder("[");
+        List<Object> expected = new ArrayList<Object>();
+        List<Object> element = Arrays.<Object>asList(
+          new HashSet<Object>(Arrays.asList(2L)), 3L);
+        while (b.length() <= ParserImpl.MIN_PARALLEL_UNITS) {
+            b.append("[#_1#{2} 3] ");
+            expected.add(element);
+        }
+        String input = b.append("]").toString();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Parser.Config[] cfgs = {
+                defaultConfiguration(),
+                newParserConfigBuilder()
+                  .presizeTopLevelCollections(true).build(),
+                newParserConfigBuilder()
+                  .lazyNestedCollections(true).build(),
+                newParserConfigBuilder()
+                  .parallelizeTopLevelCollections(pool).build() };
+            for (Parser.Config cfg : cfgs) {
+                Parser parser = Parsers.newParser(cfg);
+                for (Parseable pbr : parseables(input)) {
+                    assertEquals(expected, parser.nextValue(pbr));
+                }
+                assertEquals(3L, EdnPath.of(1L, 1L).select(parser,
+                  Parsers.newParseable(input)));
+                EdnDocument d = Parsers.newDocument(cfg,
+                  Parsers.newParseable(input));
+                int first = d.child(d.root(), 0);
+                assertEquals(2, d.count(first));
+                assertEquals(element, d.value(first));
+                Set<Object> two = new HashSet<Object>(Arrays.asList(2L));
+                assertEquals(Arrays.asList(-1L, two, newSymbol("a#b"), 1L,
+                  two, 3L),
+                  Parsers.stream(parser, Parsers.newParseable(
+                    "-1 #_-1#{2} a#b #_a#b 1#{2} 3")).collect(
+                      java.util.stream.Collectors.toList()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelParsingReportsErrors() {
+        StringBuilder b = new StringBuilder("#{");
+        for (int i = 0; i < 20000; i++) {
+            b.append("#{").append(i).append("} ");
+        }
+        b.append("#{0}}");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parser.Config parallel = newParserConfigBuilder()
+              .parallelizeTopLevelCollections(pool).build();
+            for (String input : new String[] {
+                b.toString(), b.substring(1), "[" + b.substring(2) }) {
+                try {
+                    parse(parallel, input);
+                    throw new AssertionError("expected EdnSyntaxException");
+                } catch (EdnSyntaxException expected) {
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void presizedCollectionsAreGivenTheirSize() {
+        final List<Integer> sizes = new ArrayList<Integer>();
+        final CollectionBuilder.Factory recording =
+          new CollectionBuilder.Factory() {
+            public CollectionBuilder builder() {
+                sizes.add(-1);
+                return Parsers.DEFAULT_MAP_FACTORY.builder();
+            }
+            @Override
+            public CollectionBuilder builder(int expectedSize) {
+                sizes.add(expectedSize);
+                return Parsers.DEFAULT_MAP_FACTORY.builder(expectedSize);
+            }
+        };
+        Parser.Config presized = newParserConfigBuilder()
+          .presizeTopLevelCollections(true)
+          .setMapFactory(recording).build();
+        String input = "#_ [:x] #_ #_ 1 2 {:a {:b 1}, #_ :c :d [\"}\" {}],"
+          + " :e #:ns{:f 2}} #:ns{:g 3} [1 #_ 2 3 \\]] #{} (\"(\" 2) :k";
+        for (Parseable pbr : parseables(input)) {
+            sizes.clear();
+            Parser parser = Parsers.newParser(presized);
+            Parser plain = Parsers.newParser(defaultConfiguration());
+            Parseable expected = Parsers.newParseable(input);
+            for (int i = 0; i < 6; i++) {
+                assertEquals(plain.nextValue(expected), parser.nextValue(pbr));
+            }
+            assertEquals(Parser.END_OF_INPUT, parser.nextValue(pbr));
+            if (pbr instanceof IndexedParseable) {
+                assertEquals(Arrays.asList(3, -1, -1, -1, -1), sizes);
+            } else {
+                assertEquals(Arrays.asList(-1, -1, -1, -1, -1), sizes);
+            }
+        }
+        try {
+            parse(presized, "{:a 1 :b}");
+            throw new AssertionError("expected EdnSyntaxException");
+        } catch (EdnSyntaxException expected) {
+        }
+    }
+
+    @Test
+    public void lazyCollectionsEqualEagerOnes() throws IOException {
+        Parser.Config lazy = newParserConfigBuilder()
+          .lazyNestedCollections(true).build();
+        String input = "{:a {:b [1 (2 \")\")]}, #_ [:c] :d #{[\"}\"] {}},"
+          + " :e #:ns{:f [2]}, :g #my/tag {:h 3}} [() [[]] #{}] ((1)) :k "
+          + IOUtil.stringFromResource("us/bpsm/edn/edn-sample.txt");
+        for (Parseable pbr : parseables(input)) {
+            Parser parser = Parsers.newParser(lazy);
+            Parser plain = Parsers.newParser(defaultConfiguration());
+            Parseable expected = Parsers.newParseable(input);
+            Object e;
+            do {
+                e = plain.nextValue(expected);
+                Object o = parser.nextValue(pbr);
+                assertEquals(e, o);
+                if (e != Parser.END_OF_INPUT) {
+                    assertEquals(Printers.printString(e),
+                      Printers.printString(o));
+                }
+            } while (e != Parser.END_OF_INPUT);
+        }
+    }
+
+    @Test
+    public void lazyCollectionsAreParsedWhenUsed() throws Exception {
+        Parser.Config lazy = newParserConfigBuilder()
+          .lazyNestedCollections(true).build();
+        Map<?, ?> m = (Map<?, ?>) parse(lazy,
+          "{:ok {:x [1 2]} :bad {:y 1 :z}}");
+        Object ok = m.get(ScannerTest.key("ok"));
+        assertTrue(ok instanceof LazyCollection.LazyMap);
+        assertTrue(((Map<?, ?>) parse(lazy, "#_ [1] {:ok [1]}"))
+          .get(ScannerTest.key("ok")) instanceof LazyCollection.LazyList);
+        assertEquals(map(ScannerTest.key("x"), Arrays.asList(1L, 2L)), ok);
+        Object bad = m.get(ScannerTest.key("bad"));
+        for (int i = 0; i < 2; i++) {
+            try {
+                ((Map<?, ?>) bad).size();
+                throw new AssertionError("expected EdnSyntaxException");
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+        try {
+            parse(lazy, "{:a [1 2}");
+            throw new AssertionError("expected EdnSyntaxException");
+        } catch (EdnSyntaxException expected) {
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(ok);
+        out.close();
+        Object copy = new ObjectInputStream(
+          new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(ok, copy);
+        assertTrue(((Map<?, ?>) copy).get(ScannerTest.key("x"))
+          instanceof RandomAccess);
+    }
+
+    @Test
+    public void defaultFactoriesAcceptSizeHints() {
+        assertEquals(Arrays.asList(1L, 2L), build(
+          Parsers.DEFAULT_VECTOR_FACTORY.builder(0), 1L, 2L));
+        assertEquals(Arrays.asList(1L, 2L), build(
+          Parsers.DEFAULT_LIST_FACTORY.builder(1), 1L, 2L));
+        assertEquals(new HashSet<Object>(Arrays.asList(1L, 2L)), build(
+          Parsers.DEFAULT_SET_FACTORY.builder(2), 1L, 2L));
+        assertEquals(map(1L, 2L), build(
+          Parsers.DEFAULT_MAP_FACTORY.builder(100000), 1L, 2L));
+        assertEquals(Arrays.asList(1L, 2L, 3.0), build(
+          Parsers.primitiveVectorFactory().builder(0), 1L, 2L, 3.0));
+        assertTrue(DefaultMapFactory.hashCapacity(6) * 3 / 4 >= 6);
+    }
+
+    private static Object build(CollectionBuilder b, Object... elements) {
+        for (Object o : elements) {
+            b.add(o);
+        }
+        return b.build();
+    }
+
     static Object parse(String input) {
         return parse(defaultConfiguration(), input);
     }
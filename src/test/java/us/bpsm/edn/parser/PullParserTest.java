@@ -0,0 +1,209 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static us.bpsm.edn.Keyword.newKeyword;
+import static us.bpsm.edn.Symbol.newSymbol;
+import static us.bpsm.edn.Tag.newTag;
+import static us.bpsm.edn.parser.PullParser.Event.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.parser.PullParser.Event;
+
+public class PullParserTest {
+
+    @Test
+    public void builtConfigsShareOneScanner() {
+        Parser.Config cfg = Parsers.defaultConfiguration();
+        assertSame(Parsers.scanner(cfg), Parsers.scanner(cfg));
+        assertNotSame(Parsers.scanner(cfg), Parsers.scanner(
+          Parsers.newParserConfigBuilder().build()));
+        Parser.Config custom = new Parser.Config() {
+            public CollectionBuilder.Factory getListFactory() {
+                return cfg.getListFactory();
+            }
+            public CollectionBuilder.Factory getVectorFactory() {
+                return cfg.getVectorFactory();
+            }
+            public CollectionBuilder.Factory getSetFactory() {
+                return cfg.getSetFactory();
+            }
+            public CollectionBuilder.Factory getMapFactory() {
+                return cfg.getMapFactory();
+            }
+            public TagHandler getTagHandler(us.bpsm.edn.Tag tag) {
+                return cfg.getTagHandler(tag);
+            }
+        };
+        assertNotSame(Parsers.scanner(custom), Parsers.scanner(custom));
+        PullParser p = Parsers.newPullParser(custom,
+          Parsers.newParseable("[1]"));
+        assertEquals(START_VECTOR, p.next());
+    }
+
+    @Test
+    public void eventsOfNestedCollections() {
+        assertEquals(Arrays.asList(
+            START_MAP, KEY, START_VECTOR, VALUE, VALUE, END_VECTOR,
+            KEY, START_SET, VALUE, END_SET, KEY, START_LIST, END_LIST,
+            END_MAP, VALUE, END_OF_INPUT),
+          events("{:a [1 2], :b #{\"x\"} :c ()} nil"));
+    }
+
+    @Test
+    public void collectionsAsKeys() {
+        assertEquals(Arrays.asList(
+            START_MAP, START_VECTOR, VALUE, END_VECTOR, VALUE, KEY,
+            START_MAP, END_MAP, END_MAP, END_OF_INPUT),
+          events("{[1] :a :b {}}"));
+    }
+
+    @Test
+    public void typedAccessors() {
+        PullParser p = pull("[42 2.5 true \"s\" nil :k]");
+        assertEquals(START_VECTOR, p.next());
+        assertEquals(1, p.depth());
+        p.next();
+        assertEquals(42L, p.longValue());
+        assertEquals(42.0, p.doubleValue(), 0.0);
+        p.next();
+        assertEquals(2.5, p.doubleValue(), 0.0);
+        p.next();
+        assertEquals(true, p.booleanValue());
+        p.next();
+        assertEquals("s", p.stringValue());
+        assertEquals(VALUE, p.next());
+        assertNull(p.value());
+        p.next();
+        assertEquals(newKeyword("k"), p.value());
+        try {
+            p.longValue();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(END_VECTOR, p.next());
+        assertEquals(0, p.depth());
+        try {
+            p.value();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(END_OF_INPUT, p.next());
+        assertEquals(END_OF_INPUT, p.next());
+    }
+
+    @Test
+    public void tagsAndDiscards() {
+        PullParser p = pull("{#_ :x :a #_ [1 {2 3}] #foo [1] #_ #bar 2 :b 3}");
+        assertEquals(START_MAP, p.next());
+        assertEquals(KEY, p.next());
+        assertEquals(newKeyword("a"), p.value());
+        assertEquals(TAG, p.next());
+        assertEquals(newTag(newSymbol("foo")), p.value());
+        assertEquals(START_VECTOR, p.next());
+        assertEquals(VALUE, p.next());
+        assertEquals(END_VECTOR, p.next());
+        assertEquals(KEY, p.next());
+        assertEquals(newKeyword("b"), p.value());
+        assertEquals(VALUE, p.next());
+        assertEquals(3L, p.longValue());
+        assertEquals(END_MAP, p.next());
+        assertEquals(END_OF_INPUT, p.next());
+    }
+
+    @Test
+    public void namespacedMapKeys() {
+        PullParser p = pull("#:ns{:a 1 :_/b 2 :other/c {:d 3}}");
+        List<Object> keys = new ArrayList<Object>();
+        for (Event e = p.next(); e != END_OF_INPUT; e = p.next()) {
+            if (e == KEY) {
+                keys.add(p.value());
+            }
+        }
+        assertEquals(Arrays.<Object>asList(newKeyword("ns", "a"),
+          newKeyword("b"), newKeyword("other", "c"), newKeyword("d")), keys);
+    }
+
+    @Test
+    public void skipChildren() {
+        PullParser p = pull("{:a {:b [1 #_ (2 #{3}) \"[)\"]} :c 4}");
+        assertEquals(START_MAP, p.next());
+        assertEquals(KEY, p.next());
+        assertEquals(START_MAP, p.next());
+        assertEquals(END_MAP, p.skipChildren());
+        assertEquals(1, p.depth());
+        assertEquals(KEY, p.next());
+        assertEquals(newKeyword("c"), p.value());
+        assertEquals(KEY, p.skipChildren());
+        assertEquals(VALUE, p.next());
+        assertEquals(END_MAP, p.next());
+    }
+
+    @Test
+    public void skipChildrenRejectsMismatchedBrackets() {
+        PullParser p = pull("[(1]]");
+        p.next();
+        try {
+            p.skipChildren();
+            fail();
+        } catch (EdnSyntaxException expected) {
+        }
+    }
+
+    @Test
+    public void malformedInputIsRejected() {
+        for (String input : new String[] {
+            "[1 2", "[1 2)", "]", "{:a}", "{:a 1 :b}", "[#foo]", "#foo",
+            "#_", "[#_]", "#:ns[1]", "#:a/b{}"}) {
+            try {
+                events(input);
+                fail(input);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void deepNesting() {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            b.append("[{:k ");
+        }
+        b.append("0");
+        for (int i = 0; i < 100; i++) {
+            b.append("}]");
+        }
+        PullParser p = pull(b.toString());
+        int maxDepth = 0;
+        while (p.next() != END_OF_INPUT) {
+            maxDepth = Math.max(maxDepth, p.depth());
+        }
+        assertEquals(200, maxDepth);
+    }
+
+    static PullParser pull(String input) {
+        return Parsers.newPullParser(Parsers.defaultConfiguration(),
+                                     Parsers.newParseable(input));
+    }
+
+    static List<Event> events(String input) {
+        PullParser p = pull(input);
+        List<Event> events = new ArrayList<Event>();
+        Event e;
+        do {
+            e = p.next();
+            events.add(e);
+        } while (e != END_OF_INPUT);
+        return events;
+    }
+}
@@ -4,10 +4,17 @@ package us.bpsm.edn.parser;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static us.bpsm.edn.Keyword.newKeyword;
 import static us.bpsm.edn.Symbol.newSymbol;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import org.junit.Test;
@@ -16,6 +23,7 @@ import us.bpsm.edn.EdnException;
 import us.bpsm.edn.EdnSyntaxException;
 import us.bpsm.edn.Keyword;
 import us.bpsm.edn.Symbol;
+import us.bpsm.edn.Tag;
 import us.bpsm.edn.parser.Parseable;
 import us.bpsm.edn.parser.Parsers;
 import us.bpsm.edn.parser.ScannerImpl;
@@ -230,6 +238,48 @@ public class ScannerTest {
         assertEquals(new BigInteger("-9223372036854775809"), scan("-9223372036854775809"));
     }
 
+    @Test
+    public void integersAroundTheRangeOfLong() {
+        assertEquals(0L, scan("-0"));
+        assertEquals(12L, scan("00012"));
+        assertEquals(Long.MAX_VALUE, scan("+9223372036854775807"));
+        assertEquals(new BigInteger("-9223372036854775808"),
+                     scan("-9223372036854775808N"));
+        assertEquals(new BigInteger("92233720368547758070"),
+                     scan("92233720368547758070"));
+        assertEquals(new BigInteger("-9223372036854775810"),
+                     scan("-9223372036854775810"));
+        assertEquals(new BigInteger("1000000000000000000000000000000"),
+                     scan("1000000000000000000000000000000"));
+        Random r = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            long n = r.nextLong() >> r.nextInt(64);
+            assertEquals(n, scan(Long.toString(n)));
+        }
+    }
+
+    @Test
+    public void numbersRebuildTheirTextAfterAccumulating() {
+        assertEquals(new BigDecimal("-007.50"), scan("-007.50M"));
+        assertEquals(new BigDecimal("0012"), scan("+0012M"));
+        assertEquals(-0.5d, scan("-0.5"));
+        assertEquals(1200d, scan("+0012e2"));
+        assertEquals(BigInteger.valueOf(-7), scan("-0007N"));
+        assertEquals(new BigDecimal("-92233720368547758080.5"),
+                     scan("-92233720368547758080.5M"));
+        assertEquals(new BigInteger("-92233720368547758080"),
+                     scan("-92233720368547758080N"));
+        assertEquals(-9.2233720368547758075e18d,
+                     scan("-9223372036854775807.5"));
+        try {
+            scanner().nextToken(Parsers.newParseable(
+              new StringReader("-0090x")));
+            fail();
+        } catch (EdnSyntaxException e) {
+            assertEquals("Not a number: '-0090x'.", e.getMessage());
+        }
+    }
+
     @Test
     public void bigIntegerRequested() {
         assertEquals(BigInteger.valueOf(1), scan("1N"));
@@ -252,6 +302,18 @@ public class ScannerTest {
         assertEquals(1.23456e3d, scan("1.23456E3"));
     }
 
+    @Test
+    public void exponentRequiresDigits() {
+        for (String bad : new String[] {
+            "1e+", "1e-", "1.5e+", "1e", "1e+ 2", "-1E-]", "1e+M" }) {
+            try {
+                scan(bad);
+                throw new AssertionError(bad);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+    }
+
     @Test
     public void decimalWithFraction() {
         assertEquals(new BigDecimal("1.23456"), scan("1.23456M"));
@@ -409,9 +471,197 @@ public class ScannerTest {
         assertEquals("\n", scan("\"\n\""));
     }
 
+    @Test
+    public void sequenceOfTokensFromCharArray() throws IOException {
+        char[] chars = "xx[:a \"b\\tc\" 12 -3.5e2 sym/bol]xx".toCharArray();
+        Parseable pbr = Parsers.newParseable(chars, 2, chars.length - 4);
+        Object[] expected = {
+            Token.BEGIN_VECTOR, key("a"), "b\tc", 12L, -350.0d,
+            sym("sym", "bol"), Token.END_VECTOR, Token.END_OF_INPUT
+        };
+        Scanner s = scanner();
+        for (Object o: expected) {
+            assertEquals(o, s.nextToken(pbr));
+        }
+    }
+
+    @Test
+    public void rangesBeyondTheArrayAreRejected() {
+        char[] chars = new char[4];
+        byte[] bytes = new byte[4];
+        int[][] ranges = {
+            { -1, 2 }, { 1, -1 }, { 2, 3 }, { 1, Integer.MAX_VALUE },
+            { Integer.MAX_VALUE, 1 }
+        };
+        for (int[] r : ranges) {
+            try {
+                Parsers.newParseable(chars, r[0], r[1]);
+                fail(Arrays.toString(r));
+            } catch (IndexOutOfBoundsException expected) {
+            }
+            try {
+                Parsers.newParseable(bytes, r[0], r[1]);
+                fail(Arrays.toString(r));
+            } catch (IndexOutOfBoundsException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void charSequenceOtherThanString() {
+        Parseable pbr = Parsers.newParseable(new StringBuilder("1 foo"));
+        Scanner s = scanner();
+        assertEquals(1L, s.nextToken(pbr));
+        assertEquals(sym("foo"), s.nextToken(pbr));
+        assertEquals(Token.END_OF_INPUT, s.nextToken(pbr));
+    }
+
+    @Test
+    public void nonAsciiFromUtf8Bytes() {
+        String txt = "\"gr\u00fc\u00dfe \u20ac \ud83d\ude00\" \\\u00e9 " +
+            "\"esc\\t\u00e4\" :k\u00e9y";
+        Object[] expected = {
+            "gr\u00fc\u00dfe \u20ac \ud83d\ude00", '\u00e9', "esc\t\u00e4",
+        };
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        direct.put(txt.getBytes(StandardCharsets.UTF_8)).flip();
+        for (Parseable pbr: Arrays.asList(
+                Parsers.newParseable(txt.getBytes(StandardCharsets.UTF_8)),
+                Parsers.newParseable(direct))) {
+            Scanner s = scanner();
+            for (Object o: expected) {
+                assertEquals(o, s.nextToken(pbr));
+            }
+            // 'é' is not a symbol constituent, so the keyword ends at 'k'
+            assertEquals(key("k"), s.nextToken(pbr));
+            try {
+                s.nextToken(pbr);
+                fail();
+            } catch (EdnSyntaxException expectedFailure) {
+                assertTrue(expectedFailure.getMessage().contains("\u00e9"));
+            }
+        }
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    public void successiveEscapedStringLiterals() {
+        String input = "\"long\\tfirst\" \"b\\n\" \"plain\" \"\\\"c\\\"\"";
+        for (Parseable pbr : Arrays.asList(
+                Parsers.newParseable(new StringReader(input)),
+                Parsers.newParseable(input),
+                Parsers.newParseable(input.getBytes(StandardCharsets.UTF_8)))) {
+            Scanner s = scanner();
+            assertEquals("long\tfirst", s.nextToken(pbr));
+            assertEquals("b\n", s.nextToken(pbr));
+            assertEquals("plain", s.nextToken(pbr));
+            assertEquals("\"c\"", s.nextToken(pbr));
+            assertEquals(Token.END_OF_INPUT, s.nextToken(pbr));
+        }
+    }
+
+    @Test
+    public void malformedUtf8IsReplaced() {
+        byte[] bytes = {'"', 'a', (byte) 0xC3, '"', (byte) 0xFF, '"'};
+        Parseable pbr = Parsers.newParseable(bytes, 0, 4);
+        assertEquals("a\ufffd", scanner().nextToken(pbr));
+    }
+
+    @Test
+    public void repeatedSymbolsAndTagsComeFromTheCache() {
+        String input = "foo a/b #inst #my/tag foo a/b #inst #my/tag";
+        Scanner cached = new ScannerImpl(Parsers.newParserConfigBuilder()
+          .cacheIdentifiers(true).build());
+        Scanner uncached = scanner();
+        for (Parseable pbr : Arrays.asList(Parsers.newParseable(input),
+            Parsers.newParseable(input.getBytes(StandardCharsets.UTF_8)))) {
+            Object[] first = new Object[4];
+            for (int i = 0; i < first.length; i++) {
+                first[i] = cached.nextToken(pbr);
+            }
+            assertEquals(sym("foo"), first[0]);
+            assertEquals(sym("a", "b"), first[1]);
+            assertEquals(Tag.newTag("inst"), first[2]);
+            assertEquals(Tag.newTag("my", "tag"), first[3]);
+            for (int i = 0; i < first.length; i++) {
+                assertSame(first[i], cached.nextToken(pbr));
+            }
+        }
+        Parseable pbr = Parsers.newParseable("foo foo");
+        Object foo = uncached.nextToken(pbr);
+        assertEquals(foo, uncached.nextToken(pbr));
+        assertTrue(foo != scan("foo"));
+    }
+
+    @Test
+    public void repeatedKeywordsComeFromTheCache() {
+        Scanner s = scanner();
+        String input = ":user/id :user/i :user/idx :a :a\n:a.b :a.b :user/id";
+        for (Parseable pbr : Arrays.asList(Parsers.newParseable(input),
+            Parsers.newParseable(input.getBytes(StandardCharsets.UTF_8)))) {
+            assertSame(key("user", "id"), s.nextToken(pbr));
+            assertSame(key("user", "i"), s.nextToken(pbr));
+            assertSame(key("user", "idx"), s.nextToken(pbr));
+            assertSame(key("a"), s.nextToken(pbr));
+            assertSame(key("a"), s.nextToken(pbr));
+            assertSame(key("a.b"), s.nextToken(pbr));
+            assertSame(key("a.b"), s.nextToken(pbr));
+            assertSame(key("user", "id"), s.nextToken(pbr));
+            assertEquals(Token.END_OF_INPUT, s.nextToken(pbr));
+        }
+        for (String bad : new String[] { ":/", ":a/", ":/a" }) {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    s.nextToken(Parsers.newParseable(bad));
+                    throw new AssertionError(bad);
+                } catch (EdnSyntaxException expected) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Scan the first token of {@code input} from a Readable, which is
+     * scanned character by character, and from a String and UTF-8 bytes,
+     * which are scanned in bulk. All must agree, including on whether
+     * they fail.
+     */
     static Object scan(String input) {
-        Parseable pbr = Parsers.newParseable(input);
-        return scanner().nextToken(pbr);
+        List<Parseable> pbrs = Arrays.asList(
+            Parsers.newParseable(new StringReader(input)),
+            Parsers.newParseable(input),
+            Parsers.newParseable(input.getBytes(StandardCharsets.UTF_8)));
+        Object expected = null;
+        EdnException failure = null;
+        for (int i = 0; i < pbrs.size(); i++) {
+            Object result;
+            try {
+                result = scanner().nextToken(pbrs.get(i));
+            } catch (EdnException e) {
+                if (i > 0 && failure == null) {
+                    throw new AssertionError(
+                        "Only Parseable " + i + " failed: " + e);
+                }
+                if (failure != null) {
+                    assertEquals(failure.getClass(), e.getClass());
+                }
+                failure = e;
+                continue;
+            }
+            if (failure != null) {
+                throw new AssertionError(
+                    "Only Parseable " + i + " succeeded: " + result);
+            }
+            if (i == 0) {
+                expected = result;
+            } else {
+                assertEquals(expected, result);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return expected;
     }
 
     static Scanner scanner() {
@@ -0,0 +1,141 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static us.bpsm.edn.parser.ParserTest.parse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.printer.Printers;
+
+public class SmallCollectionsTest {
+
+    @Test
+    public void smallMapsAreArrayMaps() {
+        for (int size = 0; size <= DefaultMapFactory.MAX_ARRAY_ENTRIES + 1;
+             size++) {
+            StringBuilder b = new StringBuilder("{");
+            Map<Object, Object> expected = new HashMap<Object, Object>();
+            for (int i = 0; i < size; i++) {
+                b.append(":k").append(i).append(" \"v").append(i).append("\" ");
+                expected.put(Keyword.newKeyword("k" + i), "v" + i);
+            }
+            Map<?, ?> m = (Map<?, ?>) parse(b.append("}").toString());
+            assertEquals(size <= DefaultMapFactory.MAX_ARRAY_ENTRIES,
+                         m instanceof ArrayMap);
+            assertEquals(expected, m);
+            assertEquals(m, expected);
+            assertEquals(expected.hashCode(), m.hashCode());
+            assertEquals(expected.entrySet(), m.entrySet());
+            for (int i = 0; i < size; i++) {
+                assertEquals("v" + i, m.get(Keyword.newKeyword("k" + i)));
+            }
+            assertNull(m.get(Keyword.newKeyword("k" + size)));
+            assertFalse(m.containsKey(Keyword.newKeyword("k" + size)));
+        }
+    }
+
+    @Test
+    public void smallSetsAreArraySets() {
+        for (int size = 0; size <= DefaultSetFactory.MAX_ARRAY_ELEMENTS + 1;
+             size++) {
+            StringBuilder b = new StringBuilder("#{");
+            Set<Object> expected = new HashSet<Object>();
+            for (int i = 0; i < size; i++) {
+                b.append(i).append(' ');
+                expected.add((long) i);
+            }
+            Set<?> s = (Set<?>) parse(b.append("}").toString());
+            assertEquals(size <= DefaultSetFactory.MAX_ARRAY_ELEMENTS,
+                         s instanceof ArraySet);
+            assertEquals(expected, s);
+            assertEquals(s, expected);
+            assertEquals(expected.hashCode(), s.hashCode());
+            assertFalse(s.contains((long) size));
+        }
+    }
+
+    @Test
+    public void keysAreComparedByEquality() {
+        Map<?, ?> m = (Map<?, ?>) parse("{\"a\" 1, nil 2, [1] 3}");
+        assertEquals(1L, m.get(new String("a")));
+        assertEquals(2L, m.get(null));
+        assertEquals(3L, m.get(Arrays.asList(1L)));
+        assertTrue(((Set<?>) parse("#{nil \"b\"}")).contains(new String("b")));
+    }
+
+    @Test
+    public void duplicatesAreDetectedBeforeAndAfterPromotion() {
+        for (String input : new String[] {
+            "{:a 1 :b 2 :a 3}", "{1 1 2 2 3 3 4 4 5 5 6 6 7 7 8 8 9 9 1 1}",
+            "#{:a :b :a}", "#{1 2 3 4 5 6 7 8 9 1}" }) {
+            try {
+                parse(input);
+                throw new AssertionError(input);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void smallCollectionsAreUnmodifiable() {
+        @SuppressWarnings("unchecked")
+        final Map<Object, Object> m = (Map<Object, Object>) parse("{:a 1}");
+        @SuppressWarnings("unchecked")
+        final Set<Object> s = (Set<Object>) parse("#{:a}");
+        Runnable[] mutations = {
+            new Runnable() { public void run() { m.put(2L, 2L); } },
+            new Runnable() { public void run() { m.remove(2L); } },
+            new Runnable() { public void run() { m.putIfAbsent(2L, 2L); } },
+            new Runnable() { public void run() { m.entrySet().clear(); } },
+            new Runnable() { public void run() {
+                m.entrySet().iterator().next().setValue(2L); } },
+            new Runnable() { public void run() { m.keySet().clear(); } },
+            new Runnable() { public void run() { s.add(2L); } },
+            new Runnable() { public void run() { s.remove(2L); } },
+            new Runnable() { public void run() { s.clear(); } },
+            new Runnable() { public void run() {
+                s.retainAll(Arrays.asList()); } },
+        };
+        for (Runnable mutation : mutations) {
+            try {
+                mutation.run();
+                throw new AssertionError("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void smallCollectionsSerializeAndPrint() throws Exception {
+        Object v = parse("{:a #{1 2}, :b {}}");
+        assertEquals(v, roundTrip(v));
+        assertEquals(v, parse(Printers.printString(v)));
+    }
+
+    private static Object roundTrip(Object o)
+      throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(o);
+        out.close();
+        return new ObjectInputStream(
+          new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+}
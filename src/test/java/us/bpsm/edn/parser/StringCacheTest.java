@@ -0,0 +1,79 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StringCacheTest {
+
+    @Test
+    public void equalLiteralsShareOneString() {
+        Parser p = Parsers.newParser(Parsers.newParserConfigBuilder()
+          .cacheStrings(64, 16).build());
+        String input = "[\"ok\" \"ok\" \"\\u00fcber\" \"\u00fcber\""
+          + " \"a\\tb\" \"a\\tb\" \"longer than sixteen\" \"longer than sixteen\"]";
+        for (Parseable pbr : Arrays.asList(
+                Parsers.newParseable(input),
+                Parsers.newParseable(input.getBytes(StandardCharsets.UTF_8)),
+                Parsers.newParseable(new java.io.StringReader(input)))) {
+            List<?> v = (List<?>) p.nextValue(pbr);
+            assertEquals("ok", v.get(0));
+            assertSame(v.get(0), v.get(1));
+            assertEquals("\u00fcber", v.get(2));
+            assertSame(v.get(2), v.get(3));
+            assertEquals("a\tb", v.get(4));
+            assertSame(v.get(4), v.get(5));
+            assertEquals(v.get(6), v.get(7));
+            assertNotSame(v.get(6), v.get(7));
+        }
+    }
+
+    @Test
+    public void stringsAreNotCachedByDefault() {
+        List<?> v = (List<?>) Parsers.newParser(
+          Parsers.defaultConfiguration()).nextValue(
+            Parsers.newParseable("[\"ok\" \"ok\"]"));
+        assertNotSame(v.get(0), v.get(1));
+    }
+
+    @Test
+    public void recurringStringsOutliveOneOffs() {
+        // A single set of two slots.
+        StringCache c = new StringCache(2, 100);
+        String a = c.canonical(new String("a"));
+        assertSame(a, c.canonical(new String("a")));
+        for (int i = 0; i < 10; i++) {
+            c.canonical("x" + i);
+            assertSame(a, c.canonical(new String("a")));
+        }
+        // Once a stops recurring, it loses its place to y, which does.
+        String y = c.canonical(new String("y"));
+        assertSame(y, c.canonical(new String("y")));
+        c.canonical("z");
+        assertSame(y, c.canonical(new String("y")));
+        assertNotSame(a, c.canonical(new String("a")));
+    }
+
+    @Test
+    public void largeCachesUseAllTheirSlots() {
+        // Sets are chosen by more than 16 bits of the hash.
+        int size = 1 << 20;
+        StringCache c = new StringCache(size, 100);
+        int highest = 0;
+        for (int h = 0; h < size; h++) {
+            int i = c.index(h);
+            assertEquals(0, i % 2);
+            highest = Math.max(highest, i);
+        }
+        assertTrue(highest >= size - 16);
+        assertEquals(0, new StringCache(2, 100).index(-1));
+    }
+}
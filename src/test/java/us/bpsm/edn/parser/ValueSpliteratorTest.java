@@ -0,0 +1,111 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import us.bpsm.edn.EdnSyntaxException;
+
+public class ValueSpliteratorTest {
+
+    /**
+     * A log of many top-level values whose strings, character literals
+     * and comments contain delimiters, to trip up a naive splitter.
+     */
+    static final String LOG;
+    static {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            b.append("{:seq ").append(i)
+             .append(", :msg \"closing ] and } and \\\" in ").append(i)
+             .append("\", :c \\] :tags #{:a :b} #_ [\"discarded\"]")
+             .append(" :at #inst \"2012-09-10\"} ; comment with ) and ]\n")
+             .append(i % 7 == 0 ? "nil\n" : "");
+        }
+        LOG = b.toString();
+    }
+
+    @Test
+    public void parallelStreamAgreesWithSequentialParse() {
+        List<Object> expected = parseAll(Parsers.newParseable(LOG));
+        for (Parseable pbr: Arrays.asList(
+                Parsers.newParseable(LOG),
+                Parsers.newParseable(LOG.toCharArray()),
+                Parsers.newParseable(LOG.getBytes(StandardCharsets.UTF_8)))) {
+            List<Object> actual;
+            Stream<Object> s = Parsers.stream(parser(), pbr);
+            try {
+                actual = s.parallel().collect(Collectors.toList());
+            } finally {
+                s.close();
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void splitsAtValueBoundaries() {
+        List<Object> expected = parseAll(Parsers.newParseable(LOG));
+        Spliterator<Object> suffix =
+            new ValueSpliterator(parser(), Parsers.newParseable(LOG));
+        Spliterator<Object> prefix = suffix.trySplit();
+        assertNotNull(prefix);
+        List<Object> prefixValues = drain(prefix);
+        List<Object> suffixValues = drain(suffix);
+        assertTrue(prefixValues.size() > 0);
+        assertTrue(suffixValues.size() > 0);
+        List<Object> actual = new ArrayList<Object>(prefixValues);
+        actual.addAll(suffixValues);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void readableIsNotSplit() {
+        Spliterator<Object> s = new ValueSpliterator(parser(),
+            Parsers.newParseable(new java.io.StringReader(LOG)));
+        assertNull(s.trySplit());
+    }
+
+    @Test(expected = EdnSyntaxException.class)
+    public void syntaxErrorsPropagate() {
+        Parsers.stream(parser(), Parsers.newParseable(LOG + " ]"))
+            .parallel().count();
+    }
+
+    private static Parser parser() {
+        return Parsers.newParser(Parsers.defaultConfiguration());
+    }
+
+    private static List<Object> drain(Spliterator<Object> s) {
+        final List<Object> values = new ArrayList<Object>();
+        s.forEachRemaining(new Consumer<Object>() {
+            public void accept(Object o) {
+                values.add(o);
+            }
+        });
+        return values;
+    }
+
+    private static List<Object> parseAll(Parseable pbr) {
+        Parser p = parser();
+        List<Object> values = new ArrayList<Object>();
+        Object v;
+        while ((v = p.nextValue(pbr)) != Parser.END_OF_INPUT) {
+            values.add(v);
+        }
+        return values;
+    }
+}
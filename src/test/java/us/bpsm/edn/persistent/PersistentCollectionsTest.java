@@ -0,0 +1,239 @@
+// (c) 2012 B Smith-Mannschott -- Distributed under the Eclipse Public License
+package us.bpsm.edn.persistent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import us.bpsm.edn.EdnSyntaxException;
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+import us.bpsm.edn.printer.Printers;
+
+public class PersistentCollectionsTest {
+
+    @Test
+    public void vectorMatchesArrayList() {
+        Random random = new Random(42);
+        PersistentVector<Integer> v = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<Integer>();
+        List<PersistentVector<Integer>> versions =
+          new ArrayList<PersistentVector<Integer>>();
+        List<List<Integer>> snapshots = new ArrayList<List<Integer>>();
+        for (int i = 0; i < 40000; i++) {
+            int op = random.nextInt(10);
+            if (op < 6 || expected.isEmpty()) {
+                v = v.cons(i);
+                expected.add(i);
+            } else if (op < 9) {
+                int idx = random.nextInt(expected.size());
+                v = v.assocN(idx, -i);
+                expected.set(idx, -i);
+            } else {
+                v = v.pop();
+                expected.remove(expected.size() - 1);
+            }
+            if (i % 997 == 0) {
+                versions.add(v);
+                snapshots.add(new ArrayList<Integer>(expected));
+            }
+        }
+        assertEquals(expected, v);
+        assertEquals(expected.hashCode(), v.hashCode());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(snapshots.get(i), versions.get(i));
+        }
+        while (!v.isEmpty()) {
+            v = v.pop();
+            expected.remove(expected.size() - 1);
+            if (expected.size() % 1000 == 0) {
+                assertEquals(expected, v);
+            }
+        }
+    }
+
+    @Test
+    public void mapMatchesHashMap() {
+        Random random = new Random(42);
+        PersistentHashMap<Object, Integer> m = PersistentHashMap.empty();
+        Map<Object, Integer> expected = new HashMap<Object, Integer>();
+        PersistentHashMap<Object, Integer> snapshot = m;
+        Map<Object, Integer> snapshotExpected = new HashMap<Object, Integer>();
+        for (int i = 0; i < 40000; i++) {
+            Object key = key(random.nextInt(5000));
+            if (random.nextInt(4) == 0) {
+                m = m.without(key);
+                expected.remove(key);
+            } else {
+                m = m.assoc(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), m.size());
+            if (i == 20000) {
+                snapshot = m;
+                snapshotExpected.putAll(expected);
+            }
+        }
+        assertEquals(expected, m);
+        assertEquals(m, expected);
+        assertEquals(expected.hashCode(), m.hashCode());
+        assertEquals(snapshotExpected, snapshot);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(expected.get(key(i)), m.get(key(i)));
+            assertEquals(expected.containsKey(key(i)), m.containsKey(key(i)));
+        }
+    }
+
+    /** Keys with many colliding hash codes, and a null. */
+    private static Object key(int i) {
+        if (i == 0) {
+            return null;
+        }
+        return i % 3 == 0 ? new Colliding(i) : (Object) (long) i;
+    }
+
+    private static final class Colliding implements java.io.Serializable {
+        private final int n;
+
+        Colliding(int n) {
+            this.n = n;
+        }
+
+        @Override
+        public int hashCode() {
+            return n % 7;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Colliding && ((Colliding) o).n == n;
+        }
+    }
+
+    @Test
+    public void setSharesStructureWithDerivedVersions() {
+        PersistentHashSet<Object> s = PersistentHashSet.empty();
+        for (int i = 0; i < 100; i++) {
+            s = s.cons(key(i));
+        }
+        PersistentHashSet<Object> t = s.disj(key(3)).cons("x");
+        assertEquals(100, s.size());
+        assertTrue(s.contains(key(3)));
+        assertFalse(s.contains("x"));
+        assertEquals(100, t.size());
+        assertFalse(t.contains(key(3)));
+        assertTrue(t.contains(null));
+        assertSame(s, s.cons(key(5)));
+        assertSame(s, s.disj("absent"));
+        Set<Object> expected = new HashSet<Object>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(key(i));
+        }
+        assertEquals(expected, s);
+    }
+
+    @Test
+    public void parsesIntoPersistentCollections() throws Exception {
+        Parser.Config cfg = Parsers.newParserConfigBuilder()
+          .setVectorFactory(PersistentCollections.vectorFactory())
+          .setSetFactory(PersistentCollections.setFactory())
+          .setMapFactory(PersistentCollections.mapFactory())
+          .build();
+        StringBuilder b = new StringBuilder("{:v [");
+        for (int i = 0; i < 2000; i++) {
+            b.append(i).append(' ');
+        }
+        b.append("], :s #{1 2 nil}, #:ns{:a 1} {}, nil []}");
+        String text = b.toString();
+        Object parsed = Parsers.newParser(cfg).nextValue(
+          Parsers.newParseable(text));
+        assertTrue(parsed instanceof PersistentHashMap);
+        @SuppressWarnings("unchecked")
+        PersistentHashMap<Object, Object> m =
+          (PersistentHashMap<Object, Object>) parsed;
+        assertTrue(m.get(Keyword.newKeyword("v")) instanceof PersistentVector);
+        assertTrue(m.get(Keyword.newKeyword("s")) instanceof PersistentHashSet);
+        assertEquals(Parsers.newParser(Parsers.defaultConfiguration())
+                       .nextValue(Parsers.newParseable(text)), m);
+        assertEquals(m, Parsers.newParser(cfg).nextValue(
+          Parsers.newParseable(Printers.printString(m))));
+        assertEquals(m, roundTrip(m));
+
+        PersistentHashMap<Object, Object> derived =
+          m.assoc(Keyword.newKeyword("w"), 1L);
+        assertNull(m.get(Keyword.newKeyword("w")));
+        assertEquals(1L, derived.get(Keyword.newKeyword("w")));
+        assertSame(m.get(Keyword.newKeyword("v")),
+                   derived.get(Keyword.newKeyword("v")));
+
+        for (String input : new String[] { "{:a 1 :a 2}", "#{1 1}", "{:a}" }) {
+            try {
+                Parsers.newParser(cfg).nextValue(Parsers.newParseable(input));
+                throw new AssertionError(input);
+            } catch (EdnSyntaxException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void collectionsAreUnmodifiable() {
+        final List<Object> v = PersistentVector.<Object>empty().cons(1L);
+        final Map<Object, Object> m =
+          PersistentHashMap.<Object, Object>empty().assoc(1L, 1L);
+        final Set<Object> s = PersistentHashSet.<Object>empty().cons(1L);
+        Runnable[] mutations = {
+            new Runnable() { public void run() { v.add(2L); } },
+            new Runnable() { public void run() { v.set(0, 2L); } },
+            new Runnable() { public void run() { v.clear(); } },
+            new Runnable() { public void run() { m.put(2L, 2L); } },
+            new Runnable() { public void run() { m.remove(2L); } },
+            new Runnable() { public void run() { s.add(2L); } },
+            new Runnable() { public void run() { s.remove(2L); } },
+        };
+        for (Runnable mutation : mutations) {
+            try {
+                mutation.run();
+                throw new AssertionError("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException expected) {
+            }
+        }
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void transientCannotBeUsedAfterPersistent() {
+        PersistentVector.Transient<Object> t =
+          new PersistentVector.Transient<Object>();
+        t.conj(1L);
+        assertEquals(Arrays.asList(1L), t.persistent());
+        t.conj(2L);
+    }
+
+    private static Object roundTrip(Object o)
+      throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(o);
+        out.close();
+        return new ObjectInputStream(
+          new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+}